@@ -0,0 +1,70 @@
+package com.gouwsf.primenumbers.benchmark;
+
+import com.gouwsf.primenumbers.algorithms.PrimeSequence;
+import com.gouwsf.primenumbers.algorithms.PrimesGenerator;
+import com.gouwsf.primenumbers.model.AlgorithmType;
+import com.gouwsf.primenumbers.service.impl.PrimesExecutorService;
+import com.gouwsf.primenumbers.service.impl.SizeAwareScheduler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end cost of {@link PrimesExecutorService#computeAsync} - base primes, scheduling, leaves and the
+ * merge - on pools of {@code threads} workers. Comparing thread counts shows how far the split scales on the
+ * machine at hand; a run with {@code threads=1} against {@link GeneratorBenchmark#singleShot} shows what the
+ * parallel path costs over a single thread. Every generator is covered; {@code NAIVE} at the largest limit
+ * takes seconds per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ExecutorBenchmark {
+
+    @Param({"NAIVE", "ERATOS", "ATKIN", "SEGMENTED", "WHEEL"})
+    AlgorithmType algo;
+
+    @Param({"1000000", "10000000", "100000000"})
+    int limit;
+
+    @Param({"1", "2", "4", "8"})
+    int threads;
+
+    private ForkJoinPool pool;
+    private PrimesExecutorService executor;
+    private PrimesGenerator generator;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        pool = new ForkJoinPool(threads);
+        executor = new PrimesExecutorService(pool, new SizeAwareScheduler(pool, 1_000_000, new SimpleMeterRegistry()));
+        generator = Generators.of(algo);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Benchmark
+    public PrimeSequence computeAsync() {
+        return executor.computeAsync(limit, generator);
+    }
+}
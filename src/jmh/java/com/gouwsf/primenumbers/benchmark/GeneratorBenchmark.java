@@ -0,0 +1,67 @@
+package com.gouwsf.primenumbers.benchmark;
+
+import com.gouwsf.primenumbers.algorithms.PrimeSequence;
+import com.gouwsf.primenumbers.algorithms.PrimesGenerator;
+import com.gouwsf.primenumbers.model.AlgorithmType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single-threaded cost of every {@link PrimesGenerator}.
+ * <p>
+ * {@code singleShot} sieves everything up to {@code limit}, as a small {@code /primeNumbers} request does.
+ * {@code segment} sieves one executor leaf - the top {@code window} numbers below {@code limit} - from
+ * precomputed base primes, as each task of {@code PrimesExecutorService.computeAsync} does. The window is
+ * capped at half the limit, so the segment never degenerates into a full sieve from 1.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class GeneratorBenchmark {
+
+    @Param({"NAIVE", "ERATOS", "ATKIN", "SEGMENTED", "WHEEL"})
+    AlgorithmType algo;
+
+    @Param({"100000", "1000000", "10000000"})
+    int limit;
+
+    /** Numbers per segment - the executor's default leaf for a {@code boolean}-per-number sieve; capped at {@code limit / 2}. */
+    @Param({"1048576"})
+    int window;
+
+    private PrimesGenerator generator;
+    private PrimeSequence basePrimes;
+    private int segmentFrom;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        generator = Generators.of(algo);
+        basePrimes = generator.determinePrimes((int) Math.sqrt(limit) + 1);
+        segmentFrom = limit - Math.min(window, limit / 2);
+    }
+
+    @Benchmark
+    public PrimeSequence singleShot() {
+        return generator.determinePrimes(limit);
+    }
+
+    @Benchmark
+    public PrimeSequence segment() {
+        return generator.determinePrimes(segmentFrom, limit, basePrimes);
+    }
+}
@@ -0,0 +1,29 @@
+package com.gouwsf.primenumbers.benchmark;
+
+import com.gouwsf.primenumbers.algorithms.PrimesGenerator;
+import com.gouwsf.primenumbers.algorithms.impl.AtkinsSieve;
+import com.gouwsf.primenumbers.algorithms.impl.EratosthenesSieve;
+import com.gouwsf.primenumbers.algorithms.impl.PrimesNaive;
+import com.gouwsf.primenumbers.algorithms.impl.SegmentedSieve;
+import com.gouwsf.primenumbers.algorithms.impl.WheelSieve;
+import com.gouwsf.primenumbers.model.AlgorithmType;
+
+/**
+ * Creates generators outside the Spring context, so benchmarks measure the algorithms and nothing else.
+ */
+final class Generators {
+
+    private Generators() {
+    }
+
+    static PrimesGenerator of(AlgorithmType algo) {
+        return switch (algo) {
+            case NAIVE -> new PrimesNaive();
+            case ERATOS -> new EratosthenesSieve();
+            case ATKIN -> new AtkinsSieve();
+            case SEGMENTED -> new SegmentedSieve();
+            case WHEEL -> new WheelSieve();
+            case AUTO -> throw new IllegalArgumentException("AUTO is not a generator");
+        };
+    }
+}
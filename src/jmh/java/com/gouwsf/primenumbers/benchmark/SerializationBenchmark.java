@@ -0,0 +1,68 @@
+package com.gouwsf.primenumbers.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+import com.gouwsf.primenumbers.algorithms.PrimeSequence;
+import com.gouwsf.primenumbers.algorithms.impl.SegmentedSieve;
+import com.gouwsf.primenumbers.controller.PrimeSequenceSerializer;
+import com.gouwsf.primenumbers.model.PrimeNumberResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of rendering a {@code /primeNumbers} response body, compared with sieving it in {@link GeneratorBenchmark}.
+ * <p>
+ * Both render the same {@link PrimeSequence}: {@code boxed} as Jackson does any {@code List<Integer>}, boxing each
+ * prime, and {@code sequence} through {@link PrimeSequenceSerializer}, as the application's object mappers do.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class SerializationBenchmark {
+
+    @Param({"json", "xml"})
+    String format;
+
+    @Param({"1000000", "10000000"})
+    int limit;
+
+    private ObjectMapper plain;
+    private ObjectMapper withSerializer;
+    private PrimeNumberResponse response;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        plain = "xml".equals(format) ? new XmlMapper() : new ObjectMapper();
+        withSerializer = plain.copy().registerModule(new SimpleModule()
+                .addSerializer(PrimeSequence.class, new PrimeSequenceSerializer()));
+        response = new PrimeNumberResponse.Builder().primes(new SegmentedSieve().determinePrimes(limit)).build();
+    }
+
+    @Benchmark
+    public void boxed() throws IOException {
+        plain.writeValue(OutputStream.nullOutputStream(), response);
+    }
+
+    @Benchmark
+    public void sequence() throws IOException {
+        withSerializer.writeValue(OutputStream.nullOutputStream(), response);
+    }
+}
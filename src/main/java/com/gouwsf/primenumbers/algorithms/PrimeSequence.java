@@ -0,0 +1,257 @@
+package com.gouwsf.primenumbers.algorithms;
+
+import java.nio.IntBuffer;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Immutable, ascending sequence of primes backed by a primitive {@code int[]} or, for the persisted
+ * prime table, by a read-only (memory-mapped) {@link IntBuffer} that lives off-heap.
+ * <p>
+ * This is the result type of every {@link PrimesGenerator}. Slices are views over the same
+ * storage, so narrowing a sequence never copies. The class also implements {@code List<Integer>}
+ * so it can be handed straight to the generated response model; prefer {@link #getInt(int)}
+ * and {@link #forEachInt(IntConsumer)} over the boxed {@link #get(int)} in hot paths.
+ */
+public final class PrimeSequence extends AbstractList<Integer> implements RandomAccess {
+
+    private static final PrimeSequence EMPTY = new PrimeSequence(new int[0], 0, 0);
+
+    // exactly one of values / mapped is set
+    private final int[] values;
+    private final IntBuffer mapped;
+    private final int offset;
+    private final int size;
+
+    private PrimeSequence(int[] values, int offset, int size) {
+        this(values, null, offset, size);
+    }
+
+    private PrimeSequence(int[] values, IntBuffer mapped, int offset, int size) {
+        this.values = values;
+        this.mapped = mapped;
+        this.offset = offset;
+        this.size = size;
+    }
+
+    public static PrimeSequence empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Creates a sequence holding a copy of the given values.
+     *
+     * @param values ascending primes
+     */
+    public static PrimeSequence of(int... values) {
+        return values.length == 0 ? EMPTY : new PrimeSequence(values.clone(), 0, values.length);
+    }
+
+    /**
+     * Wraps the first {@code size} entries of an array without copying.
+     * The caller hands over ownership and must not modify the array afterwards.
+     */
+    public static PrimeSequence wrap(int[] values, int size) {
+        if (size < 0 || size > values.length) {
+            throw new IllegalArgumentException("size out of bounds: " + size);
+        }
+        return size == 0 ? EMPTY : new PrimeSequence(values, 0, size);
+    }
+
+    /**
+     * Wraps every remaining int of a buffer without copying. Only absolute reads are made, so the
+     * buffer's position is never touched. The caller must not modify the buffer's contents afterwards.
+     */
+    public static PrimeSequence wrap(IntBuffer buffer) {
+        IntBuffer view = buffer.slice();
+        return view.limit() == 0 ? EMPTY : new PrimeSequence(null, view, 0, view.limit());
+    }
+
+    /**
+     * Concatenates sequences, in the given order, into a single array sized exactly for the result.
+     */
+    public static PrimeSequence concat(List<PrimeSequence> parts) {
+        long total = 0;
+        for (PrimeSequence part : parts) total += part.size;
+        if (total > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("too many primes to concatenate: " + total);
+        }
+
+        int[] out = new int[(int) total];
+        int pos = 0;
+        for (PrimeSequence part : parts) {
+            part.copyTo(out, pos);
+            pos += part.size;
+        }
+        return wrap(out, out.length);
+    }
+
+    public static Builder builder(int initialCapacity) {
+        return new Builder(initialCapacity);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the prime at {@code index} without boxing.
+     */
+    public int getInt(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+        }
+        return at(offset + index);
+    }
+
+    @Override
+    public Integer get(int index) {
+        return getInt(index);
+    }
+
+    /**
+     * Returns a view of {@code [fromIndex, toIndex)} sharing this sequence's array.
+     */
+    public PrimeSequence slice(int fromIndex, int toIndex) {
+        if (fromIndex < 0 || toIndex > size || fromIndex > toIndex) {
+            throw new IndexOutOfBoundsException("slice [" + fromIndex + ", " + toIndex + ") of length " + size);
+        }
+        if (fromIndex == 0 && toIndex == size) return this;
+        return toIndex == fromIndex ? EMPTY : new PrimeSequence(values, mapped, offset + fromIndex, toIndex - fromIndex);
+    }
+
+    @Override
+    public PrimeSequence subList(int fromIndex, int toIndex) {
+        return slice(fromIndex, toIndex);
+    }
+
+    /**
+     * Searches for {@code key} with {@link Arrays#binarySearch(int[], int, int, int)} semantics:
+     * the index if found, otherwise {@code -(insertion point) - 1}.
+     */
+    public int binarySearch(int key) {
+        if (values != null) {
+            int index = Arrays.binarySearch(values, offset, offset + size, key);
+            return index >= 0 ? index - offset : index + offset;
+        }
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int value = mapped.get(offset + mid);
+            if (value < key) low = mid + 1;
+            else if (value > key) high = mid - 1;
+            else return mid;
+        }
+        return -(low + 1);
+    }
+
+    /**
+     * Returns a view of the primes ≤ {@code limit} - a prefix of this sequence.
+     */
+    public PrimeSequence upTo(int limit) {
+        int index = binarySearch(limit);
+        return slice(0, index >= 0 ? index + 1 : -index - 1);
+    }
+
+    public void forEachInt(IntConsumer action) {
+        for (int i = offset, end = offset + size; i < end; i++) {
+            action.accept(at(i));
+        }
+    }
+
+    public IntStream intStream() {
+        return values != null
+                ? Arrays.stream(values, offset, offset + size)
+                : IntStream.range(offset, offset + size).map(mapped::get);
+    }
+
+    /**
+     * Copies every prime into {@code dest}, starting at {@code destPos}.
+     */
+    public void copyTo(int[] dest, int destPos) {
+        if (values != null) {
+            System.arraycopy(values, offset, dest, destPos, size);
+        } else {
+            mapped.get(offset, dest, destPos, size);
+        }
+    }
+
+    public int[] toIntArray() {
+        int[] out = new int[size];
+        copyTo(out, 0);
+        return out;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) return true;
+        if (o instanceof PrimeSequence other) {
+            if (values != null && other.values != null) {
+                return Arrays.equals(values, offset, offset + size, other.values, other.offset, other.offset + other.size);
+            }
+            if (size != other.size) return false;
+            for (int i = 0; i < size; i++) {
+                if (at(offset + i) != other.at(other.offset + i)) return false;
+            }
+            return true;
+        }
+        return super.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 1;
+        for (int i = offset, end = offset + size; i < end; i++) {
+            hash = 31 * hash + at(i);
+        }
+        return hash;
+    }
+
+    private int at(int absoluteIndex) {
+        return values != null ? values[absoluteIndex] : mapped.get(absoluteIndex);
+    }
+
+    /**
+     * Growable primitive buffer used by generators to collect primes in ascending order.
+     */
+    public static final class Builder {
+
+        private int[] buffer;
+        private int size;
+
+        private Builder(int initialCapacity) {
+            this.buffer = new int[Math.max(initialCapacity, 8)];
+        }
+
+        public Builder add(int prime) {
+            if (size == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length + (buffer.length >> 1));
+            }
+            buffer[size++] = prime;
+            return this;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public int getInt(int index) {
+            return buffer[index];
+        }
+
+        /**
+         * Builds the sequence, trimming the buffer only when more than an eighth of it is unused.
+         */
+        public PrimeSequence build() {
+            int[] values = buffer.length - size > buffer.length >> 3 ? Arrays.copyOf(buffer, size) : buffer;
+            buffer = null;
+            return wrap(values, size);
+        }
+    }
+}
@@ -2,9 +2,6 @@ package com.gouwsf.primenumbers.algorithms;
 
 import com.gouwsf.primenumbers.model.AlgorithmType;
 
-import java.util.ArrayList;
-import java.util.List;
-
 /**
  * Defines a contract for prime number generation algorithms.
  * <p>
@@ -25,10 +22,44 @@ public interface PrimesGenerator {
      * Computes all prime numbers less than or equal to the specified limit.
      *
      * @param limit the upper bound (inclusive) up to which primes are generated
-     * @return a list of prime numbers ≤ {@code limit}, in ascending order
+     * @return a sequence of prime numbers ≤ {@code limit}, in ascending order
+     */
+    PrimeSequence determinePrimes(int limit);
+
+    /**
+     * Computes all prime numbers in {@code (fromExclusive, toInclusive]}.
+     *
+     * @param fromExclusive the lower bound (exclusive) of the range
+     * @param toInclusive the upper bound (inclusive) of the range
+     * @param basePrimes ascending primes covering at least {@code sqrt(toInclusive)}
+     * @return a sequence of the primes in the range, in ascending order
+     */
+    PrimeSequence determinePrimes(int fromExclusive, int toInclusive, PrimeSequence basePrimes);
+
+    /**
+     * Bytes of sieve state {@link #determinePrimes(int, int, PrimeSequence)} touches per number of the range.
+     * Used to size work so a range's sieve fits a cache budget.
+     * <p>
+     * Defaults to one {@code boolean} per number.
+     *
+     * @return sieve bytes per number, or 0 if the generator keeps no sieve
+     */
+    default double sieveBytesPerNumber() {
+        return 1;
+    }
+
+    /**
+     * Peak bytes of sieve state held while computing the primes in {@code (fromExclusive, toInclusive]}
+     * in one call - excluding the primes found.
+     *
+     * @param fromExclusive the lower bound (exclusive) of the range
+     * @param toInclusive the upper bound (inclusive) of the range
+     * @return {@link #sieveBytesPerNumber()} for every number of the range, unless the generator reuses a smaller buffer
      */
-    List<Integer> determinePrimes(int limit);
-    List<Integer> determinePrimes(int fromExclusive, int toInclusive, List<Integer> basePrimes);
+    default long sieveBufferBytes(long fromExclusive, long toInclusive) {
+        return (long) Math.ceil(Math.max(0, toInclusive - fromExclusive) * sieveBytesPerNumber());
+    }
+
     /**
      * Estimates an initial capacity for the list of prime numbers
      * up to {@code n}, using the prime number theorem approximation {@code n / log(n)}.
@@ -44,20 +75,52 @@ public interface PrimesGenerator {
     }
 
     /**
-     * Converts a boolean sieve array into a list of prime numbers.
+     * Converts a boolean sieve array into a sequence of prime numbers.
      *
      * @param sieve a boolean array where {@code true} indicates a prime candidate
-     * @return a list of all indices marked prime in ascending order
+     * @return a sequence of all indices marked prime in ascending order
      */
-    default List<Integer> convertSieveToList(boolean[] sieve) {
+    default PrimeSequence convertSieveToSequence(boolean[] sieve) {
         var limit = sieve.length > 1 ? sieve.length - 1 : 0;
 
-        var primesList = new ArrayList<Integer>(determineInitialCapacity(sieve.length));
+        var primes = PrimeSequence.builder(determineInitialCapacity(sieve.length));
         for (int k = 2; k <= limit; k++) {
             if (sieve[k]) {
-                primesList.add(k);
+                primes.add(k);
+            }
+        }
+        return primes.build();
+    }
+
+    /**
+     * Converts a bit-packed, odd-only sieve into a sequence of prime numbers.
+     * <p>
+     * Bit {@code i} of the sieve represents the odd number {@code 2 * i + 1} and is set when that
+     * number is composite. Primes are extracted a word at a time using trailing-zero scans.
+     *
+     * @param composites the odd-only sieve, where a set bit marks a composite
+     * @param limit the upper bound (inclusive) the sieve was built for
+     * @return 2 (if within {@code limit}) followed by every odd number left unmarked, in ascending order
+     */
+    default PrimeSequence convertOddSieveToSequence(long[] composites, int limit) {
+        if (limit < 2) return PrimeSequence.empty();
+
+        var primes = PrimeSequence.builder(determineInitialCapacity(limit));
+        primes.add(2);
+
+        final int maxIndex = (limit - 1) >>> 1;
+        final int lastWord = maxIndex >>> 6;
+        for (int w = 0; w <= lastWord; w++) {
+            long candidates = ~composites[w];
+            if (w == lastWord && (maxIndex & 63) != 63) {
+                candidates &= (1L << ((maxIndex & 63) + 1)) - 1;
+            }
+            final int base = w << 7;
+            while (candidates != 0) {
+                primes.add(base + (Long.numberOfTrailingZeros(candidates) << 1) + 1);
+                candidates &= candidates - 1;
             }
         }
-        return primesList;
+        return primes.build();
     }
 }
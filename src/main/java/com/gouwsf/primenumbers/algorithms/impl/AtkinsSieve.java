@@ -1,42 +1,43 @@
 package com.gouwsf.primenumbers.algorithms.impl;
 
+import com.gouwsf.primenumbers.algorithms.PrimeSequence;
 import com.gouwsf.primenumbers.algorithms.PrimesGenerator;
 import com.gouwsf.primenumbers.model.AlgorithmType;
 import lombok.Getter;
 import org.springframework.stereotype.Component;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
-
 @Component
 @Getter
 public class AtkinsSieve implements PrimesGenerator {
+    private static final boolean[] FIRST_FORM = residues(1, 13, 17, 29, 37, 41, 49, 53);
+    private static final boolean[] SECOND_FORM = residues(7, 19, 31, 43);
+    private static final boolean[] THIRD_FORM = residues(11, 23, 47, 59);
+
     private final AlgorithmType type = AlgorithmType.ATKIN;
 
     /**
      * Computes all prime numbers up to a given upper bound using the Sieve of Atkins algorithm
      *
      * @param limit the upper bound (inclusive) for prime generation;
-     * @return a list of all prime numbers ≤ {@code limit}, in ascending order;
+     * @return a sequence of all prime numbers ≤ {@code limit}, in ascending order;
      */
-    public List<Integer> determinePrimes(int limit) {
-        if (limit < 2) return Collections.emptyList();
-        if (limit == 2) return List.of(2);
+    public PrimeSequence determinePrimes(int limit) {
+        if (limit < 2) return PrimeSequence.empty();
+        if (limit == 2) return PrimeSequence.of(2);
 
         boolean[] sieve = doInitialPrimesEstimate(0, limit);
         filterOutNonPrimes(sieve, limit);
-        return convertSieveToList(sieve);
+        return convertSieveToSequence(sieve);
     }
 
-    public List<Integer> determinePrimes(int fromExclusive, int toInclusive, List<Integer> basePrimes) {
+    public PrimeSequence determinePrimes(int fromExclusive, int toInclusive, PrimeSequence basePrimes) {
         if (basePrimes == null) throw new IllegalArgumentException("basePrimes must not be null");
-        if (toInclusive <= fromExclusive || toInclusive < 2) return new ArrayList<>();
+        if (toInclusive <= fromExclusive || toInclusive < 2) return PrimeSequence.empty();
         if (fromExclusive == 0) return determinePrimes(toInclusive);
 
         final int lower = Math.max(fromExclusive + 1, 2);
         final int upper = toInclusive;
-        if (upper < lower) return new ArrayList<>();
+        if (upper < lower) return PrimeSequence.empty();
 
         // 1) Atkin quadratic toggling
         boolean[] segment = doInitialPrimesEstimate(lower, upper);
@@ -45,19 +46,23 @@ public class AtkinsSieve implements PrimesGenerator {
         filterOutNonPrimes(segment, lower, upper, basePrimes);
 
         // THe extension from base primes
-        var res = new ArrayList<Integer>(determineInitialCapacity(upper - lower));
+        var res = PrimeSequence.builder(determineInitialCapacity(upper - lower));
 
         for (int i = 0; i < segment.length; i++) {
             if (segment[i]) {
                 res.add(lower + i);
             }
         }
-        return res;
+        return res.build();
     }
 
 
     /**
-     * Computes initial primes using Atkins 3 quadratics and mod 12 conditions
+     * Computes initial primes using Atkins 3 quadratics and mod 60 conditions.
+     * <p>
+     * For every {@code x} only the {@code y} values whose quadratic form lands inside
+     * {@code [lower, upper]} are enumerated, stepping {@code y} by 2 to keep the parity each form needs.
+     * A segment therefore only pays for the lattice points in its own window.
      *
      * @param lower the lower bound
      * @param upper the lower bound
@@ -73,35 +78,62 @@ public class AtkinsSieve implements PrimesGenerator {
         final int len = end - start + 1;
         boolean[] sieve = new boolean[len];
 
-        // handle 2 and 3 explicitly
+        // handle 2, 3 and 5 explicitly - the mod 60 residues below are coprime to 60
         if (2 >= start && 2 <= end) sieve[2 - start] = true;
         if (3 >= start && 3 <= end) sieve[3 - start] = true;
+        if (5 >= start && 5 <= end) sieve[5 - start] = true;
+
+        // n = 4x² + y², n mod 60 in {1, 13, 17, 29, 37, 41, 49, 53}: y odd
+        for (long x = 1; 4 * x * x + 1 <= end; x++) {
+            long base = 4 * x * x;
+            long y = ceilSqrt(Math.max(start - base, 1));
+            if ((y & 1) == 0) y++;
+            for (long n = base + y * y; n <= end; y += 2, n = base + y * y) {
+                if (FIRST_FORM[(int) (n % 60)]) sieve[(int) (n - start)] ^= true;
+            }
+        }
 
-        int xLimit = (int) Math.sqrt(end);
-        for (int x = 1; x <= xLimit; x++) {
-            int x2 = x * x;
-            for (int y = 1; y <= xLimit; y++) {
-                int y2 = y * y;
-
-                int n1 = 4 * x2 + y2;
-                if (n1 >= start && n1 <= end && (n1 % 12 == 1 || n1 % 12 == 5)) {
-                    sieve[n1 - start] = !sieve[n1 - start];
-                }
-
-                int n2 = 3 * x2 + y2;
-                if (n2 >= start && n2 <= end && (n2 % 12 == 7)) {
-                    sieve[n2 - start] = !sieve[n2 - start];
-                }
+        // n = 3x² + y², n mod 60 in {7, 19, 31, 43}: x odd, y even
+        for (long x = 1; 3 * x * x + 4 <= end; x += 2) {
+            long base = 3 * x * x;
+            long y = ceilSqrt(Math.max(start - base, 4));
+            if ((y & 1) == 1) y++;
+            for (long n = base + y * y; n <= end; y += 2, n = base + y * y) {
+                if (SECOND_FORM[(int) (n % 60)]) sieve[(int) (n - start)] ^= true;
+            }
+        }
 
-                int n3 = 3 * x2 - y2;
-                if (x > y && n3 >= start && n3 <= end && (n3 % 12 == 11)) {
-                    sieve[n3 - start] = !sieve[n3 - start];
-                }
+        // n = 3x² - y² with x > y, n mod 60 in {11, 23, 47, 59}: x and y of opposite parity
+        for (long x = 2; 2 * x * x + 2 * x - 1 <= end; x++) {
+            long base = 3 * x * x;
+            if (base - start < 1) continue;
+            long y = Math.min(x - 1, floorSqrt(base - start));
+            if (((x + y) & 1) == 0) y--;
+            for (long n = base - y * y; y >= 1 && n <= end; y -= 2, n = base - y * y) {
+                if (THIRD_FORM[(int) (n % 60)]) sieve[(int) (n - start)] ^= true;
             }
         }
         return sieve;
     }
 
+    private static boolean[] residues(int... values) {
+        boolean[] table = new boolean[60];
+        for (int v : values) table[v] = true;
+        return table;
+    }
+
+    private static long floorSqrt(long v) {
+        long r = (long) Math.sqrt(v);
+        while (r * r > v) r--;
+        while ((r + 1) * (r + 1) <= v) r++;
+        return r;
+    }
+
+    private static long ceilSqrt(long v) {
+        long r = floorSqrt(v);
+        return r * r == v ? r : r + 1;
+    }
+
     /**
      * Elimination of multiples of prime squares
      *
@@ -124,11 +156,12 @@ public class AtkinsSieve implements PrimesGenerator {
      * The 'segment' array has length (upper - lower + 1) and segment[i] corresponds to n = lower + i.
      * `basePrimes` must contain at least all primes up to floor(sqrt(upper)).
      */
-    private void filterOutNonPrimes(boolean[] segment, int lower, int upper, List<Integer> basePrimes) {
+    private void filterOutNonPrimes(boolean[] segment, int lower, int upper, PrimeSequence basePrimes) {
         if (segment.length == 0 || upper < 2) return;
 
         int sqrtUpper = (int) Math.floor(Math.sqrt(upper));
-        for (int r : basePrimes) {
+        for (int i = 0; i < basePrimes.size(); i++) {
+            final int r = basePrimes.getInt(i);
             if (r < 5) continue;
             if (r > sqrtUpper) break;
 
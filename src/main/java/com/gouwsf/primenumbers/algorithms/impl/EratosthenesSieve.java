@@ -1,58 +1,69 @@
 package com.gouwsf.primenumbers.algorithms.impl;
 
+import com.gouwsf.primenumbers.algorithms.PrimeSequence;
 import com.gouwsf.primenumbers.algorithms.PrimesGenerator;
 import com.gouwsf.primenumbers.model.AlgorithmType;
 import lombok.Getter;
 import org.springframework.stereotype.Component;
 
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
-
 @Component
 @Getter
 public class EratosthenesSieve implements PrimesGenerator {
 
     private final AlgorithmType type = AlgorithmType.ERATOS;
 
+    /** A range starting at 0 is sieved bit-packed - one bit per odd number; any other range a {@code boolean} per number. */
+    @Override
+    public long sieveBufferBytes(long fromExclusive, long toInclusive) {
+        if (fromExclusive == 0) return Math.max(0, toInclusive) / 16;
+        return PrimesGenerator.super.sieveBufferBytes(fromExclusive, toInclusive);
+    }
+
     /**
-     * Computes all prime numbers up to a given upper bound using the Sieve of Eratosthenes algorithm
+     * Computes all prime numbers up to a given upper bound using the Sieve of Eratosthenes algorithm.
+     * <p>
+     * Only odd candidates are stored, one bit each, so the sieve for {@code limit} takes roughly
+     * {@code limit / 16} bytes. A set bit marks the odd number {@code 2 * index + 1} as composite.
      *
      * @param limit the upper bound (inclusive) for prime generation;
-     * @return a list of all prime numbers ≤ {@code limit}, in ascending order;
+     * @return a sequence of all prime numbers ≤ {@code limit}, in ascending order;
      */
-    public List<Integer> determinePrimes(int limit) {
-        boolean[] sieve = new boolean[limit + 1];
-        Arrays.fill(sieve, true);
+    public PrimeSequence determinePrimes(int limit) {
+        if (limit < 2) return PrimeSequence.empty();
 
-        for (int p = 2; p * p <= limit; p++) {
-            if(sieve[p]) {
-                for (int j = p * p; j <= limit; j += p) {
-                    sieve[j] = false;
+        final int maxIndex = (limit - 1) >>> 1;
+        long[] composites = new long[(maxIndex >>> 6) + 1];
+        composites[0] = 1L; // 1 is not prime
+
+        for (int p = 3; (long) p * p <= limit; p += 2) {
+            if ((composites[p >>> 7] & (1L << (p >>> 1))) == 0) {
+                for (int j = (p * p) >>> 1; j <= maxIndex; j += p) {
+                    composites[j >>> 6] |= 1L << j;
                 }
             }
         }
-        return convertSieveToList(sieve);
+        return convertOddSieveToSequence(composites, limit);
     }
 
     @Override
-    public List<Integer> determinePrimes(int fromExclusive, int toInclusive, List<Integer> basePrimes) {
+    public PrimeSequence determinePrimes(int fromExclusive, int toInclusive, PrimeSequence basePrimes) {
         if (fromExclusive == 0) return determinePrimes(toInclusive);
 
         if (basePrimes == null) {
             throw new IllegalArgumentException("basePrimes must not be null");
         }
-        if (toInclusive <= fromExclusive || toInclusive < 2) List.of();
+        if (toInclusive <= fromExclusive || toInclusive < 2) return PrimeSequence.empty();
 
         final int start = Math.max(fromExclusive + 1, 2);
         final int end = toInclusive;
         final int len = end - start + 1;
-        if (len <= 0) List.of();
+        if (len <= 0) return PrimeSequence.empty();
 
         final boolean[] sieve = new boolean[len];
 
-        for (int p : basePrimes) {
-            if (p * p > end) break;
+        for (int i = 0; i < basePrimes.size(); i++) {
+            final int p = basePrimes.getInt(i);
+            if ((long) p * p > end) break;
 
             // First multiple of p within [start, end]
             long first = Math.max((long) p * p, ((start + p - 1L) / p) * p);
@@ -61,16 +72,13 @@ public class EratosthenesSieve implements PrimesGenerator {
             }
         }
         // The extension from base primes
-        var res = new ArrayList<Integer>(determineInitialCapacity(len));
+        var res = PrimeSequence.builder(determineInitialCapacity(len));
 
         for (int i = 0; i < len; i++) {
             if (!sieve[i]) {
                 res.add(start + i);
             }
         }
-        return res;
+        return res.build();
     }
-
-
-
 }
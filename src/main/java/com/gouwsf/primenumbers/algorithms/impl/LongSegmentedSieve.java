@@ -0,0 +1,126 @@
+package com.gouwsf.primenumbers.algorithms.impl;
+
+import com.gouwsf.primenumbers.algorithms.PrimeSequence;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+
+/**
+ * {@code long}-addressed variant of {@link SegmentedSieve} for ranges beyond {@code Integer.MAX_VALUE}.
+ * <p>
+ * Windows are swept exactly like {@link SegmentedSieve} - 32 KB of odd candidates, per-prime next
+ * multiple offsets - but positions and results are {@code long}. Base primes stay {@code int}, which
+ * covers every upper bound up to {@code (2^31 - 1)²}; {@link #MAX_LIMIT} keeps them to a few MB.
+ * Results are returned per call, so callers are expected to sieve a huge range in segments and
+ * stream each segment's primes rather than collect them.
+ */
+@Component
+@RequiredArgsConstructor
+public class LongSegmentedSieve {
+
+    public static final String ALGORITHM_NAME = "SEGMENTED_LONG";
+
+    /** Largest supported upper bound - 10^15, so base primes stay below ~3.2 * 10^7. */
+    public static final long MAX_LIMIT = 1_000_000_000_000_000L;
+
+    private static final long[] EMPTY = new long[0];
+
+    private final SegmentedSieve segmentedSieve;
+
+    /**
+     * Computes the base primes needed to sieve any range ending at {@code toInclusive}.
+     *
+     * @throws IllegalArgumentException if {@code toInclusive} exceeds {@link #MAX_LIMIT}
+     */
+    public PrimeSequence determineBasePrimes(long toInclusive) {
+        if (toInclusive > MAX_LIMIT) {
+            throw new IllegalArgumentException("upper bound must not exceed " + MAX_LIMIT);
+        }
+        return segmentedSieve.determinePrimes((int) floorSqrt(Math.max(toInclusive, 0)));
+    }
+
+    /**
+     * Computes all primes in {@code (fromExclusive, toInclusive]}.
+     *
+     * @param fromExclusive lower bound - exclusive
+     * @param toInclusive upper bound - inclusive, at most {@link #MAX_LIMIT}
+     * @param basePrimes ascending primes covering at least {@code sqrt(toInclusive)}
+     * @return the primes in the range, ascending, in an exactly sized array
+     * @throws IllegalArgumentException if the range holds more than {@code Integer.MAX_VALUE} odd numbers
+     */
+    public long[] determinePrimes(long fromExclusive, long toInclusive, PrimeSequence basePrimes) {
+        if (basePrimes == null) throw new IllegalArgumentException("basePrimes must not be null");
+        if (toInclusive > MAX_LIMIT) throw new IllegalArgumentException("upper bound must not exceed " + MAX_LIMIT);
+        final long start = Math.max(fromExclusive + 1, 2);
+        if (toInclusive < start) return EMPTY;
+
+        long[] res = new long[estimateCount(start, toInclusive)];
+        int size = 0;
+        if (start <= 2) res[size++] = 2;
+
+        // index i in the odd-only space stands for firstOdd + 2 * i
+        final long firstOdd = Math.max(3, start | 1);
+        if (firstOdd > toInclusive) return Arrays.copyOf(res, size);
+        final long odds = (toInclusive - firstOdd) / 2 + 1;
+        if (odds > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("range too wide for a single segment: " + (toInclusive - start + 1));
+        }
+        final int oddCount = (int) odds;
+
+        // per base prime: step (the prime itself) and index of its next odd multiple
+        int[] primes = new int[basePrimes.size()];
+        long[] next = new long[basePrimes.size()];
+        int count = 0;
+        for (int b = 0; b < basePrimes.size(); b++) {
+            final int p = basePrimes.getInt(b);
+            if (p < 3) continue;
+            if ((long) p * p > toInclusive) break;
+
+            long first = Math.max((long) p * p, ((firstOdd + p - 1) / p) * p);
+            if ((first & 1) == 0) first += p;
+            primes[count] = p;
+            next[count] = (first - firstOdd) / 2;
+            count++;
+        }
+
+        final byte[] window = new byte[Math.min(SegmentedSieve.WINDOW_SIZE, oddCount)];
+        for (int low = 0; low < oddCount; low += window.length) {
+            final int len = Math.min(window.length, oddCount - low);
+            Arrays.fill(window, 0, len, (byte) 0);
+
+            for (int k = 0; k < count; k++) {
+                final int p = primes[k];
+                long j = next[k] - low;
+                for (; j < len; j += p) {
+                    window[(int) j] = 1;
+                }
+                next[k] = j + low;
+            }
+
+            final long base = firstOdd + 2L * low;
+            for (int i = 0; i < len; i++) {
+                if (window[i] == 0) {
+                    if (size == res.length) res = Arrays.copyOf(res, res.length + (res.length >> 1) + 1);
+                    res[size++] = base + 2L * i;
+                }
+            }
+        }
+        return size == res.length ? res : Arrays.copyOf(res, size);
+    }
+
+    /** Slight over-estimate of the primes in {@code [start, end]}, from the prime number theorem. */
+    private static int estimateCount(long start, long end) {
+        double estimate = start < 1_000
+                ? 1.26 * end / Math.log(Math.max(end, 3)) + 16
+                : 1.2 * (end - start + 1) / Math.log(start) + 16;
+        return (int) Math.min(estimate, Integer.MAX_VALUE - 8);
+    }
+
+    private static long floorSqrt(long n) {
+        long r = (long) Math.sqrt((double) n);
+        while (r * r > n) r--;
+        while ((r + 1) * (r + 1) <= n) r++;
+        return r;
+    }
+}
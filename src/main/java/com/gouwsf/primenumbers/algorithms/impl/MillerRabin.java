@@ -0,0 +1,115 @@
+package com.gouwsf.primenumbers.algorithms.impl;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Deterministic Miller-Rabin primality test for every non-negative {@code long}.
+ * <p>
+ * Small factors are rejected by trial division first. Below 2^32 the bases {@code {2, 7, 61}} are
+ * sufficient and products fit in an unsigned 64-bit word. Above that the seven bases found by
+ * Jim Sinclair are used, which have no strong pseudoprime below 2^64; modular products are done in
+ * Montgomery form so no 128-bit division is ever needed.
+ */
+@Component
+public class MillerRabin {
+
+    public static final String ALGORITHM_NAME = "MILLER_RABIN";
+
+    private static final int[] SMALL_PRIMES = {2, 3, 5, 7, 11, 13, 17, 19, 23, 29, 31, 37, 41, 43, 47, 53};
+    /** Smallest number that trial division by {@link #SMALL_PRIMES} cannot settle on its own - 59². */
+    private static final long TRIAL_DIVISION_BOUND = 59L * 59;
+
+    private static final long[] BASES_32 = {2, 7, 61};
+    private static final long[] BASES_64 = {2, 325, 9375, 28178, 450775, 9780504, 1795265022};
+
+    /**
+     * Returns whether {@code n} is prime. Negative numbers, 0 and 1 are not prime.
+     */
+    public boolean isPrime(long n) {
+        if (n < 2) return false;
+        for (int p : SMALL_PRIMES) {
+            if (n % p == 0) return n == p;
+        }
+        if (n < TRIAL_DIVISION_BOUND) return true;
+
+        return n < (1L << 32) ? isStrongProbablePrime32(n) : isStrongProbablePrime64(n);
+    }
+
+    /** Miller-Rabin for odd {@code n < 2^32}: every product fits in 64 unsigned bits. */
+    private static boolean isStrongProbablePrime32(long n) {
+        long d = n - 1;
+        final int s = Long.numberOfTrailingZeros(d);
+        d >>>= s;
+
+        nextBase:
+        for (long a : BASES_32) {
+            long x = 1;
+            long b = a;
+            for (long e = d; e > 0; e >>>= 1) {
+                if ((e & 1) == 1) x = Long.remainderUnsigned(x * b, n);
+                b = Long.remainderUnsigned(b * b, n);
+            }
+            if (x == 1 || x == n - 1) continue;
+            for (int r = 1; r < s; r++) {
+                x = Long.remainderUnsigned(x * x, n);
+                if (x == n - 1) continue nextBase;
+            }
+            return false;
+        }
+        return true;
+    }
+
+    /** Miller-Rabin for odd {@code 2^32 ≤ n < 2^63} using Montgomery multiplication modulo {@code n}. */
+    private static boolean isStrongProbablePrime64(long n) {
+        // n * nInv ≡ 1 (mod 2^64) - Newton's iteration doubles the correct low bits each step (3 → 96)
+        long nInv = n;
+        for (int i = 0; i < 5; i++) nInv *= 2 - n * nInv;
+
+        final long one = Long.remainderUnsigned(-n, n); // R mod n, with R = 2^64
+        long r2 = one;                                 // R² mod n, by doubling R mod n 64 times
+        for (int i = 0; i < 64; i++) r2 = addMod(r2, r2, n);
+        final long minusOne = n - one;
+
+        long d = n - 1;
+        final int s = Long.numberOfTrailingZeros(d);
+        d >>>= s;
+
+        nextBase:
+        for (long a : BASES_64) {
+            long b = montMultiply(a % n, r2, n, nInv); // a in Montgomery form
+            long x = one;
+            for (long e = d; e > 0; e >>>= 1) {
+                if ((e & 1) == 1) x = montMultiply(x, b, n, nInv);
+                b = montMultiply(b, b, n, nInv);
+            }
+            if (x == one || x == minusOne) continue;
+            for (int r = 1; r < s; r++) {
+                x = montMultiply(x, x, n, nInv);
+                if (x == minusOne) continue nextBase;
+            }
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns {@code a * b * R^-1 mod n} for {@code a, b < n < 2^63}.
+     * {@code m = lo * n^-1} makes the low words of {@code a * b} and {@code m * n} equal, so the
+     * reduction is just the difference of the high words.
+     */
+    private static long montMultiply(long a, long b, long n, long nInv) {
+        final long hi = Math.multiplyHigh(a, b); // a, b are non-negative, so signed == unsigned
+        final long m = (a * b) * nInv;
+        final long t = hi - unsignedMultiplyHigh(m, n);
+        return t < 0 ? t + n : t;
+    }
+
+    private static long addMod(long a, long b, long n) {
+        final long sum = a + b;
+        return Long.compareUnsigned(sum, n) >= 0 ? sum - n : sum;
+    }
+
+    private static long unsignedMultiplyHigh(long a, long b) {
+        return Math.multiplyHigh(a, b) + ((a >> 63) & b) + ((b >> 63) & a);
+    }
+}
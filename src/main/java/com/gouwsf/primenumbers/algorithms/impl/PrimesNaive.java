@@ -1,50 +1,53 @@
 package com.gouwsf.primenumbers.algorithms.impl;
 
+import com.gouwsf.primenumbers.algorithms.PrimeSequence;
 import com.gouwsf.primenumbers.algorithms.PrimesGenerator;
 import com.gouwsf.primenumbers.model.AlgorithmType;
 import lombok.Getter;
 import org.springframework.stereotype.Component;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
-
 @Component
 @Getter
 public class PrimesNaive implements PrimesGenerator {
 
     private final AlgorithmType type = AlgorithmType.NAIVE;
 
+    /** Trial division keeps no sieve - only the primes found. */
+    @Override
+    public double sieveBytesPerNumber() {
+        return 0;
+    }
+
     /**
      * Computes all prime numbers up to a given upper bound using optimised naive approach.
      *
      * @param limit the upper bound (inclusive) for prime generation;
-     * @return a list of all prime numbers ≤ {@code limit}, in ascending order;
+     * @return a sequence of all prime numbers ≤ {@code limit}, in ascending order;
      */
-    public List<Integer> determinePrimes(int limit) {
-        if (limit < 2) return Collections.emptyList();
-        if (limit == 2) return List.of(2);
+    public PrimeSequence determinePrimes(int limit) {
+        if (limit < 2) return PrimeSequence.empty();
+        if (limit == 2) return PrimeSequence.of(2);
 
-        List<Integer> primes = new ArrayList<>(determineInitialCapacity(limit));
+        var primes = PrimeSequence.builder(determineInitialCapacity(limit));
         primes.add(2);
 
-        for (int j = 3; j <= limit; j += 2) {
-            if (isPrimeByPrimes(j, primes)) {
-                primes.add(j);
+        for (long j = 3; j <= limit; j += 2) {
+            if (isPrimeByPrimes((int) j, primes)) {
+                primes.add((int) j);
             }
         }
-        return primes;
+        return primes.build();
     }
 
     @Override
-    public List<Integer> determinePrimes(int fromExclusive, int toInclusive, List<Integer> basePrimes) {
-        if (toInclusive < 2 || toInclusive <= fromExclusive) return List.of();
+    public PrimeSequence determinePrimes(int fromExclusive, int toInclusive, PrimeSequence basePrimes) {
+        if (toInclusive < 2 || toInclusive <= fromExclusive) return PrimeSequence.empty();
 
         if (fromExclusive < 2) {
             return determinePrimes(toInclusive);
         }
 
-        var res = new ArrayList<Integer>(determineInitialCapacity(toInclusive - fromExclusive));
+        var res = PrimeSequence.builder(determineInitialCapacity(toInclusive - fromExclusive));
         int start = fromExclusive + 1;
         if (start % 2 == 0) {
             if (start == 2) {
@@ -53,16 +56,26 @@ public class PrimesNaive implements PrimesGenerator {
             start++;
         }
 
-        for (int i = start; i <= toInclusive; i += 2) {
-            if (isPrimeByPrimes(i, basePrimes)) {
-                res.add(i);
+        for (long i = start; i <= toInclusive; i += 2) {
+            if (isPrimeByPrimes((int) i, basePrimes)) {
+                res.add((int) i);
             }
         }
-        return res;
+        return res.build();
+    }
+
+    private static boolean isPrimeByPrimes(int x, PrimeSequence existingPrimes) {
+        for (int i = 0; i < existingPrimes.size(); i++) {
+            final int p = existingPrimes.getInt(i);
+            if ((long) p * p > x) break;
+            if (x % p == 0) return false;
+        }
+        return true;
     }
 
-    private static boolean isPrimeByPrimes(int x, List<Integer> existingPrimes) {
-        for (int p : existingPrimes) {
+    private static boolean isPrimeByPrimes(int x, PrimeSequence.Builder primesSoFar) {
+        for (int i = 0; i < primesSoFar.size(); i++) {
+            final int p = primesSoFar.getInt(i);
             if ((long) p * p > x) break;
             if (x % p == 0) return false;
         }
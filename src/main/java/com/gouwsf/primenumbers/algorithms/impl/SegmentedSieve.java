@@ -0,0 +1,119 @@
+package com.gouwsf.primenumbers.algorithms.impl;
+
+import com.gouwsf.primenumbers.algorithms.PrimeSequence;
+import com.gouwsf.primenumbers.algorithms.PrimesGenerator;
+import com.gouwsf.primenumbers.model.AlgorithmType;
+import lombok.Getter;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+
+/**
+ * Cache-blocked Sieve of Eratosthenes.
+ * <p>
+ * Rather than marking one array as large as the range, the range is swept in fixed-size windows
+ * that fit in the L1/L2 cache. The same window buffer is cleared and reused for every step, and
+ * each base prime remembers the offset of its next odd multiple so marking carries on where the
+ * previous window stopped. Only odd candidates are stored.
+ */
+@Component
+@Getter
+public class SegmentedSieve implements PrimesGenerator {
+
+    /** Odd candidates per window - 32 KB, one byte each, sized for a typical L1 data cache. */
+    static final int WINDOW_SIZE = 32 * 1024;
+
+    private final AlgorithmType type = AlgorithmType.SEGMENTED;
+
+    /** One byte per odd candidate. */
+    @Override
+    public double sieveBytesPerNumber() {
+        return 0.5;
+    }
+
+    /** The range is swept through one reused window. */
+    @Override
+    public long sieveBufferBytes(long fromExclusive, long toInclusive) {
+        return Math.min(WINDOW_SIZE, PrimesGenerator.super.sieveBufferBytes(fromExclusive, toInclusive));
+    }
+
+    /**
+     * Computes all prime numbers up to a given upper bound using a cache-blocked segmented sieve.
+     * Base primes up to {@code sqrt(limit)} are produced by the same sieve, recursively.
+     *
+     * @param limit the upper bound (inclusive) for prime generation;
+     * @return a sequence of all prime numbers ≤ {@code limit}, in ascending order;
+     */
+    public PrimeSequence determinePrimes(int limit) {
+        if (limit < 2) return PrimeSequence.empty();
+
+        int root = (int) Math.sqrt(limit);
+        PrimeSequence basePrimes = root < 3 ? PrimeSequence.empty() : determinePrimes(root);
+        return sieveWindows(2, limit, basePrimes);
+    }
+
+    @Override
+    public PrimeSequence determinePrimes(int fromExclusive, int toInclusive, PrimeSequence basePrimes) {
+        if (basePrimes == null) throw new IllegalArgumentException("basePrimes must not be null");
+        if (toInclusive < 2 || toInclusive <= fromExclusive) return PrimeSequence.empty();
+        if (fromExclusive < 2) return determinePrimes(toInclusive);
+
+        return sieveWindows(fromExclusive + 1, toInclusive, basePrimes);
+    }
+
+    /**
+     * Sieves {@code [start, end]} window by window.
+     *
+     * @param start inclusive lower bound, at least 2
+     * @param end inclusive upper bound
+     * @param basePrimes ascending primes covering at least {@code sqrt(end)}
+     */
+    private PrimeSequence sieveWindows(int start, int end, PrimeSequence basePrimes) {
+        var res = PrimeSequence.builder(determineInitialCapacity(end - start + 1));
+        if (start <= 2) res.add(2);
+
+        // index i in the odd-only space stands for firstOdd + 2 * i
+        final int firstOdd = Math.max(3, start | 1);
+        if (firstOdd > end) return res.build();
+        final int oddCount = (int) (((long) end - firstOdd) / 2 + 1);
+
+        // per base prime: step (the prime itself) and index of its next odd multiple
+        int[] primes = new int[basePrimes.size()];
+        int[] next = new int[basePrimes.size()];
+        int count = 0;
+        for (int b = 0; b < basePrimes.size(); b++) {
+            final int p = basePrimes.getInt(b);
+            if (p < 3) continue;
+            if ((long) p * p > end) break;
+
+            long first = Math.max((long) p * p, ((firstOdd + (long) p - 1) / p) * p);
+            if ((first & 1) == 0) first += p;
+            primes[count] = p;
+            next[count] = (int) Math.min((first - firstOdd) / 2, Integer.MAX_VALUE);
+            count++;
+        }
+
+        final byte[] window = new byte[Math.min(WINDOW_SIZE, oddCount)];
+        for (int low = 0; low < oddCount; low += window.length) {
+            final int len = Math.min(window.length, oddCount - low);
+            Arrays.fill(window, 0, len, (byte) 0);
+
+            for (int k = 0; k < count; k++) {
+                final int p = primes[k];
+                int j = next[k] - low;
+                for (; j < len; j += p) {
+                    window[j] = 1;
+                }
+                next[k] = j + low;
+            }
+
+            final int base = firstOdd + 2 * low;
+            for (int i = 0; i < len; i++) {
+                if (window[i] == 0) {
+                    res.add(base + 2 * i);
+                }
+            }
+        }
+        return res.build();
+    }
+}
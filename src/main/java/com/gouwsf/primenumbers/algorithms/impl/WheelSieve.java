@@ -0,0 +1,160 @@
+package com.gouwsf.primenumbers.algorithms.impl;
+
+import com.gouwsf.primenumbers.algorithms.PrimeSequence;
+import com.gouwsf.primenumbers.algorithms.PrimesGenerator;
+import com.gouwsf.primenumbers.model.AlgorithmType;
+import lombok.Getter;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+
+/**
+ * Mod-30 wheel-factorised Sieve of Eratosthenes.
+ * <p>
+ * Only the 8 residues coprime to 30 ({@code 1, 7, 11, 13, 17, 19, 23, 29}) are stored, one bit each,
+ * so every byte covers a block of 30 integers and multiples of 2, 3 and 5 never take up space.
+ * Marking also walks the wheel: a base prime {@code p} only strikes {@code p * k} for {@code k}
+ * coprime to 30, using per-prime block offsets so the inner loop needs no division.
+ * The range is processed in cache-sized windows of blocks, like {@link SegmentedSieve}.
+ */
+@Component
+@Getter
+public class WheelSieve implements PrimesGenerator {
+
+    /** Blocks (bytes) per window - each block covers 30 integers. */
+    static final int WINDOW_BLOCKS = 32 * 1024;
+
+    private static final int[] WHEEL = {1, 7, 11, 13, 17, 19, 23, 29};
+    private static final int[] BIT_OF_RESIDUE = new int[30];
+
+    static {
+        Arrays.fill(BIT_OF_RESIDUE, -1);
+        for (int i = 0; i < WHEEL.length; i++) {
+            BIT_OF_RESIDUE[WHEEL[i]] = i;
+        }
+    }
+
+    private final AlgorithmType type = AlgorithmType.WHEEL;
+
+    /** One byte per block of 30 numbers. */
+    @Override
+    public double sieveBytesPerNumber() {
+        return 1.0 / 30;
+    }
+
+    /** The range is swept through one reused window of blocks. */
+    @Override
+    public long sieveBufferBytes(long fromExclusive, long toInclusive) {
+        return Math.min(WINDOW_BLOCKS, PrimesGenerator.super.sieveBufferBytes(fromExclusive, toInclusive));
+    }
+
+    /**
+     * Computes all prime numbers up to a given upper bound using a mod-30 wheel sieve.
+     * Base primes up to {@code sqrt(limit)} are produced by the same sieve, recursively.
+     *
+     * @param limit the upper bound (inclusive) for prime generation;
+     * @return a sequence of all prime numbers ≤ {@code limit}, in ascending order;
+     */
+    public PrimeSequence determinePrimes(int limit) {
+        if (limit < 2) return PrimeSequence.empty();
+
+        int root = (int) Math.sqrt(limit);
+        PrimeSequence basePrimes = root < 7 ? PrimeSequence.empty() : determinePrimes(root);
+        return sieveWheel(2, limit, basePrimes);
+    }
+
+    @Override
+    public PrimeSequence determinePrimes(int fromExclusive, int toInclusive, PrimeSequence basePrimes) {
+        if (basePrimes == null) throw new IllegalArgumentException("basePrimes must not be null");
+        if (toInclusive < 2 || toInclusive <= fromExclusive) return PrimeSequence.empty();
+        if (fromExclusive < 2) return determinePrimes(toInclusive);
+
+        return sieveWheel(fromExclusive + 1, toInclusive, basePrimes);
+    }
+
+    /**
+     * Sieves {@code [start, end]} over the mod-30 wheel.
+     *
+     * @param start inclusive lower bound, at least 2
+     * @param end inclusive upper bound
+     * @param basePrimes ascending primes covering at least {@code sqrt(end)}
+     */
+    private PrimeSequence sieveWheel(int start, int end, PrimeSequence basePrimes) {
+        var res = PrimeSequence.builder(determineInitialCapacity(end - start + 1));
+        for (int small : new int[]{2, 3, 5}) {
+            if (small >= start && small <= end) res.add(small);
+        }
+
+        final int firstBlock = start / 30;
+        final int lastBlock = end / 30;
+
+        // per base prime: the prime, p * q of its current wheel turn, its wheel position,
+        // and for each wheel position the block offset and bit mask of p * k
+        int[] primes = new int[basePrimes.size()];
+        int[] turnBase = new int[basePrimes.size()];
+        int[] position = new int[basePrimes.size()];
+        int[] offsets = new int[basePrimes.size() * 8];
+        byte[] masks = new byte[basePrimes.size() * 8];
+        int count = 0;
+        for (int b = 0; b < basePrimes.size(); b++) {
+            final int p = basePrimes.getInt(b);
+            if (p < 7) continue;
+            if ((long) p * p > end) break;
+
+            long kMin = Math.max(p, (start + (long) p - 1) / p);
+            long q = kMin / 30;
+            int i = 0;
+            while (i < 8 && WHEEL[i] < kMin % 30) i++;
+            if (i == 8) {
+                i = 0;
+                q++;
+            }
+            for (int w = 0; w < 8; w++) {
+                offsets[count * 8 + w] = (p / 30) * WHEEL[w] + ((p % 30) * WHEEL[w]) / 30;
+                masks[count * 8 + w] = (byte) (1 << BIT_OF_RESIDUE[((p % 30) * WHEEL[w]) % 30]);
+            }
+            primes[count] = p;
+            turnBase[count] = (int) (p * q);
+            position[count] = i;
+            count++;
+        }
+
+        final byte[] window = new byte[Math.min(WINDOW_BLOCKS, lastBlock - firstBlock + 1)];
+        for (int winLo = firstBlock; winLo <= lastBlock; winLo += window.length) {
+            final int winHi = (int) Math.min((long) winLo + window.length, lastBlock + 1L);
+            Arrays.fill(window, (byte) 0);
+            if (winLo == 0) window[0] = 1; // 1 is not prime
+
+            for (int k = 0; k < count; k++) {
+                final int p = primes[k];
+                final int o = k * 8;
+                int base = turnBase[k];
+                int i = position[k];
+                int block = base + offsets[o + i];
+                while (block < winHi) {
+                    window[block - winLo] |= masks[o + i];
+                    if (++i == 8) {
+                        i = 0;
+                        base += p;
+                    }
+                    block = base + offsets[o + i];
+                }
+                turnBase[k] = base;
+                position[k] = i;
+            }
+
+            for (int b = 0; b < winHi - winLo; b++) {
+                int candidates = ~window[b] & 0xFF;
+                final long blockStart = 30L * (winLo + b);
+                while (candidates != 0) {
+                    long n = blockStart + WHEEL[Integer.numberOfTrailingZeros(candidates)];
+                    if (n >= start && n <= end) {
+                        res.add((int) n);
+                    }
+                    candidates &= candidates - 1;
+                }
+            }
+        }
+        return res.build();
+    }
+}
@@ -1,22 +1,33 @@
 package com.gouwsf.primenumbers.configuration;
 
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.gouwsf.primenumbers.controller.ResponseCacheFilter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
 
+import java.util.Objects;
 import java.util.concurrent.TimeUnit;
 
 @Configuration
 public class CacheConfig {
 
+    static final String RESPONSE_CACHE = "primeResponses";
+    /** Bound on the bytes held by all caches together. */
+    static final long MAXIMUM_WEIGHT_BYTES = 100L * 1024 * 1024;
+
     @Bean
     public Caffeine<Object, Object> caffeineSpec() {
         return Caffeine.newBuilder()
-                .maximumWeight(100L * 1024 * 1024) // ~100 MB
+                .maximumWeight(MAXIMUM_WEIGHT_BYTES) // ~100 MB
                 .weigher((Object key, Object value) -> {
                     if (value instanceof int[] arr) return arr.length * 4;
+                    if (value instanceof byte[] arr) return arr.length;
+                    if (value instanceof ResponseCacheFilter.CachedResponse response) return response.weight();
                     return 64;
                 })
                 .expireAfterAccess(2, TimeUnit.HOURS)
@@ -25,9 +36,32 @@ public class CacheConfig {
 
     @Bean
     public CacheManager cacheManager(Caffeine<Object, Object> caffeine) {
-        CaffeineCacheManager mgr = new CaffeineCacheManager("primesByAlgoAndLimit");
+        CaffeineCacheManager mgr = new CaffeineCacheManager("primeCountByLimit", RESPONSE_CACHE);
         mgr.setCaffeine(caffeine);
         mgr.setAllowNullValues(false);
+        // lets @Cacheable cache the results of methods returning CompletableFuture, e.g. prime counts
+        mgr.setAsyncCacheMode(true);
         return mgr;
     }
+
+    /**
+     * Serialized bodies of prime lists, per representation - see {@link ResponseCacheFilter}.
+     * <p>
+     * The largest stored body is a fraction of the caches' maximum weight, so it follows that bound. A larger
+     * fraction lets bigger lists be replayed, but each such entry evicts more of the others, and a few large bodies
+     * can flush every small one; {@code 1/8} keeps at least eight of the largest entries resident.
+     */
+    @Bean
+    public FilterRegistrationBean<ResponseCacheFilter> responseCacheFilter(
+            CacheManager cacheManager, @Value("${config.response-cache.max-entry-fraction:0.125}") double maxEntryFraction) {
+        if (!(maxEntryFraction > 0 && maxEntryFraction <= 1)) {
+            throw new IllegalArgumentException("config.response-cache.max-entry-fraction must be in (0, 1]");
+        }
+        int maxEntryBytes = (int) Math.min(Integer.MAX_VALUE, (long) (MAXIMUM_WEIGHT_BYTES * maxEntryFraction));
+        var filter = new ResponseCacheFilter(Objects.requireNonNull(cacheManager.getCache(RESPONSE_CACHE)), maxEntryBytes);
+        var registration = new FilterRegistrationBean<>(filter);
+        registration.addUrlPatterns("/primeNumbers", "/primeNumbers/range");
+        registration.setOrder(Ordered.LOWEST_PRECEDENCE);
+        return registration;
+    }
 }
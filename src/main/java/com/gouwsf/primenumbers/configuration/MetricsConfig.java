@@ -0,0 +1,35 @@
+package com.gouwsf.primenumbers.configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Metrics beyond what Actuator binds on its own (JVM, HTTP server requests and the Caffeine caches,
+ * which record stats in {@link CacheConfig}). Everything is scraped from {@code /actuator/prometheus}.
+ */
+@Configuration
+public class MetricsConfig {
+
+    /** Active, running and queued threads, steals and parallelism of the prime executor, as {@code executor.*{name="primes"}}. */
+    @Bean
+    public MeterBinder primeExecutorMetrics(ForkJoinPool primeExecutor) {
+        return registry -> new ExecutorServiceMetrics(primeExecutor, "primes", Tags.empty()).bindTo(registry);
+    }
+
+    @Bean
+    public FilterRegistrationBean<ResponseBytesFilter> responseBytesFilter(MeterRegistry meterRegistry) {
+        var registration = new FilterRegistrationBean<>(new ResponseBytesFilter(meterRegistry));
+        registration.addUrlPatterns("/primeNumbers/*", "/primeNumbers");
+        // outside the response cache, so bodies replayed from it are counted too
+        registration.setOrder(Ordered.LOWEST_PRECEDENCE - 1);
+        return registration;
+    }
+}
@@ -3,14 +3,14 @@ package com.gouwsf.primenumbers.configuration;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 
 @Configuration
 public class PrimeAsyncConfig {
     @Bean(destroyMethod = "shutdown")
-    public ExecutorService primeExecutor() {
+    public ForkJoinPool primeExecutor() {
+        // work-stealing pool - also serves as the plain ExecutorService for async tasks
         int cores = Math.max(1, Runtime.getRuntime().availableProcessors());
-        return Executors.newFixedThreadPool(cores);
+        return new ForkJoinPool(cores);
     }
 }
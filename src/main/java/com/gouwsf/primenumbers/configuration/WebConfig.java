@@ -0,0 +1,30 @@
+package com.gouwsf.primenumbers.configuration;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.gouwsf.primenumbers.algorithms.PrimeSequence;
+import com.gouwsf.primenumbers.controller.PrimeGapsHttpMessageConverter;
+import com.gouwsf.primenumbers.controller.PrimeSequenceSerializer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        // negotiated alongside JSON and XML for clients that accept application/x-prime-gaps
+        converters.add(new PrimeGapsHttpMessageConverter());
+    }
+
+    /** Picked up by Spring Boot for both the JSON and the XML object mapper. */
+    @Bean
+    public Module primeSequenceModule() {
+        return new SimpleModule("PrimeSequenceModule")
+                .addSerializer(PrimeSequence.class, new PrimeSequenceSerializer());
+    }
+}
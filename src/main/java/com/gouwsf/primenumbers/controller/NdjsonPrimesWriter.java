@@ -0,0 +1,105 @@
+package com.gouwsf.primenumbers.controller;
+
+import com.gouwsf.primenumbers.algorithms.PrimeSequence;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Writes chunks of primes as newline-delimited JSON - one JSON array per line.
+ * <p>
+ * Digits are written straight into a reusable byte buffer, so no per-prime objects are created,
+ * and the stream is flushed after every line so clients receive each chunk as soon as it is ready.
+ */
+class NdjsonPrimesWriter {
+
+    private static final int MAX_INT_DIGITS = 10;
+    private static final int MAX_LONG_DIGITS = 19;
+
+    private final OutputStream out;
+    private final byte[] buffer = new byte[8192];
+    private int pos;
+
+    NdjsonPrimesWriter(OutputStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Writes {@code primes} as a single JSON array line. Empty chunks are skipped.
+     *
+     * @throws UncheckedIOException if the client connection fails
+     */
+    void writeLine(PrimeSequence primes) {
+        if (primes.isEmpty()) return;
+        try {
+            put((byte) '[');
+            for (int i = 0; i < primes.size(); i++) {
+                if (i > 0) put((byte) ',');
+                putInt(primes.getInt(i));
+            }
+            put((byte) ']');
+            put((byte) '\n');
+            drain();
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes {@code primes} as a single JSON array line. Empty chunks are skipped.
+     *
+     * @throws UncheckedIOException if the client connection fails
+     */
+    void writeLine(long[] primes) {
+        if (primes.length == 0) return;
+        try {
+            put((byte) '[');
+            for (int i = 0; i < primes.length; i++) {
+                if (i > 0) put((byte) ',');
+                putLong(primes[i]);
+            }
+            put((byte) ']');
+            put((byte) '\n');
+            drain();
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void put(byte b) throws IOException {
+        if (pos == buffer.length) drain();
+        buffer[pos++] = b;
+    }
+
+    /** Writes a non-negative int in decimal. */
+    private void putInt(int value) throws IOException {
+        if (buffer.length - pos < MAX_INT_DIGITS) drain();
+        int digits = 1;
+        for (int v = value; v >= 10; v /= 10) digits++;
+        for (int i = pos + digits - 1; i >= pos; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        pos += digits;
+    }
+
+    /** Writes a non-negative long in decimal. */
+    private void putLong(long value) throws IOException {
+        if (buffer.length - pos < MAX_LONG_DIGITS) drain();
+        int digits = 1;
+        for (long v = value; v >= 10; v /= 10) digits++;
+        for (int i = pos + digits - 1; i >= pos; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        pos += digits;
+    }
+
+    private void drain() throws IOException {
+        out.write(buffer, 0, pos);
+        pos = 0;
+    }
+}
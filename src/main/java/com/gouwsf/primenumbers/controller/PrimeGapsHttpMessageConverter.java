@@ -0,0 +1,176 @@
+package com.gouwsf.primenumbers.controller;
+
+import com.gouwsf.primenumbers.algorithms.PrimeSequence;
+import com.gouwsf.primenumbers.model.PrimeNumberResponse;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Reads and writes {@link PrimeNumberResponse} as {@value #MEDIA_TYPE_VALUE}: a short header followed by
+ * the gaps between consecutive primes as varints.
+ * <p>
+ * Layout - every number is an unsigned LEB128 varint (7 bits per byte, high bit set on all but the last):
+ * <pre>
+ *   'P' 'G' version
+ *   numberOfPrimes  durationMillis  queueWaitMillis
+ *   algorithmUsed   (byte length, then UTF-8)
+ *   first prime     then, for every following prime, gap / 2 - or 0 for the one odd gap, 2 to 3
+ * </pre>
+ * Halving works because every other gap is even. Gaps below 2^31 never exceed 292, so each prime after the
+ * first takes one byte (gap ≤ 254) or two: the 13.7M primes below 250,000,000 encode to about 14 MB, against
+ * roughly 130 MB of JSON. Diagnostics are not part of the format.
+ */
+public class PrimeGapsHttpMessageConverter extends AbstractHttpMessageConverter<PrimeNumberResponse> {
+
+    public static final String MEDIA_TYPE_VALUE = "application/x-prime-gaps";
+    public static final MediaType MEDIA_TYPE = MediaType.parseMediaType(MEDIA_TYPE_VALUE);
+
+    private static final int VERSION = 1;
+    private static final int MAX_VARINT_BYTES = 10;
+
+    public PrimeGapsHttpMessageConverter() {
+        super(MEDIA_TYPE);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return PrimeNumberResponse.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    protected void writeInternal(PrimeNumberResponse response, HttpOutputMessage outputMessage) throws IOException {
+        List<Integer> primes = response.getPrimes() != null ? response.getPrimes() : List.of();
+        var writer = new Writer(outputMessage.getBody());
+        writer.put('P');
+        writer.put('G');
+        writer.put(VERSION);
+        writer.putVarint(primes.size());
+        writer.putVarint(orZero(response.getDurationMillis()));
+        writer.putVarint(orZero(response.getQueueWaitMillis()));
+        byte[] algorithm = response.getAlgorithmUsed() != null
+                ? response.getAlgorithmUsed().getBytes(StandardCharsets.UTF_8) : new byte[0];
+        writer.putVarint(algorithm.length);
+        for (byte b : algorithm) writer.put(b);
+
+        if (primes instanceof PrimeSequence sequence) {
+            int previous = 0;
+            for (int i = 0; i < sequence.size(); i++) {
+                int prime = sequence.getInt(i);
+                writer.putVarint(i == 0 ? prime : encodeGap(prime - previous));
+                previous = prime;
+            }
+        } else {
+            int previous = 0;
+            boolean first = true;
+            for (int prime : primes) {
+                writer.putVarint(first ? prime : encodeGap(prime - previous));
+                previous = prime;
+                first = false;
+            }
+        }
+        writer.drain();
+    }
+
+    @Override
+    protected PrimeNumberResponse readInternal(Class<? extends PrimeNumberResponse> clazz, HttpInputMessage inputMessage)
+            throws IOException {
+        var in = new BufferedInputStream(inputMessage.getBody());
+        if (readByte(in) != 'P' || readByte(in) != 'G') {
+            throw new HttpMessageNotReadableException("Not a prime gaps payload", inputMessage);
+        }
+        int version = readByte(in);
+        if (version != VERSION) {
+            throw new HttpMessageNotReadableException("Unsupported prime gaps version " + version, inputMessage);
+        }
+        long count = readVarint(in);
+        if (count > Integer.MAX_VALUE - 8) {
+            throw new HttpMessageNotReadableException("Too many primes: " + count, inputMessage);
+        }
+        long durationMillis = readVarint(in);
+        long queueWaitMillis = readVarint(in);
+        byte[] algorithm = in.readNBytes((int) readVarint(in));
+
+        int[] primes = new int[(int) count];
+        for (int i = 0; i < primes.length; i++) {
+            long value = readVarint(in);
+            primes[i] = (int) (i == 0 ? value : primes[i - 1] + decodeGap(value));
+        }
+        return new PrimeNumberResponse.Builder()
+                .primes(PrimeSequence.wrap(primes, primes.length))
+                .numberOfPrimes(primes.length)
+                .durationMillis(durationMillis)
+                .queueWaitMillis(queueWaitMillis)
+                .algorithmUsed(algorithm.length > 0 ? new String(algorithm, StandardCharsets.UTF_8) : null)
+                .build();
+    }
+
+    static long encodeGap(int gap) {
+        return gap == 1 ? 0 : gap >>> 1;
+    }
+
+    static long decodeGap(long encoded) {
+        return encoded == 0 ? 1 : encoded << 1;
+    }
+
+    private static long orZero(Long value) {
+        return value != null ? value : 0;
+    }
+
+    private static int readByte(InputStream in) throws IOException {
+        int b = in.read();
+        if (b < 0) throw new EOFException("Truncated prime gaps payload");
+        return b;
+    }
+
+    private static long readVarint(InputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 7 * MAX_VARINT_BYTES; shift += 7) {
+            int b = readByte(in);
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IOException("Malformed varint in prime gaps payload");
+    }
+
+    /** Buffers output in a reusable array, so a response is written without per-prime allocation. */
+    private static final class Writer {
+
+        private final OutputStream out;
+        private final byte[] buffer = new byte[8192];
+        private int pos;
+
+        private Writer(OutputStream out) {
+            this.out = out;
+        }
+
+        void put(int b) throws IOException {
+            if (pos == buffer.length) drain();
+            buffer[pos++] = (byte) b;
+        }
+
+        void putVarint(long value) throws IOException {
+            if (buffer.length - pos < MAX_VARINT_BYTES) drain();
+            while ((value & ~0x7FL) != 0) {
+                buffer[pos++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[pos++] = (byte) value;
+        }
+
+        void drain() throws IOException {
+            out.write(buffer, 0, pos);
+            pos = 0;
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.gouwsf.primenumbers.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.json.JsonGeneratorImpl;
+import com.fasterxml.jackson.core.json.UTF8JsonGenerator;
+import com.fasterxml.jackson.databind.BeanProperty;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.ContextualSerializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.fasterxml.jackson.dataformat.xml.ser.ToXmlGenerator;
+import com.gouwsf.primenumbers.algorithms.PrimeSequence;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Serializes a {@link PrimeSequence} property straight from its primitive values, for both JSON and XML.
+ * <p>
+ * Jackson would otherwise treat the sequence as any {@code List<Integer>}: box every prime, look up its
+ * serializer and - in XML - open and close a StAX element around each one. Here digits are formatted two at a
+ * time from a precomputed table into one reusable buffer per response. For UTF-8 JSON the buffer is written
+ * straight to the generator's output stream; otherwise it is handed to the generator as raw output -
+ * {@code 2,3,5} in JSON, {@code <primes>2</primes><primes>3</primes>...} in XML. No object is created per prime.
+ * <p>
+ * The raw path is only taken where its output is identical to Jackson's own; with a pretty printer, or on
+ * any other generator (e.g. a {@code TokenBuffer}), primes are written one {@code writeNumber(int)} at a time,
+ * which still avoids boxing.
+ */
+public class PrimeSequenceSerializer extends StdSerializer<PrimeSequence> implements ContextualSerializer {
+
+    private static final int CHUNK = 8192;
+    private static final int MAX_INT_DIGITS = 10;
+
+    /** "00", "01", ... "99" - two digits per lookup. */
+    private static final byte[] DIGIT_PAIRS = new byte[200];
+
+    static {
+        for (int i = 0; i < 100; i++) {
+            DIGIT_PAIRS[2 * i] = (byte) ('0' + i / 10);
+            DIGIT_PAIRS[2 * i + 1] = (byte) ('0' + i % 10);
+        }
+    }
+
+    /** Open and close tags of each XML item; {@code null} until bound to a property. */
+    private final char[] xmlOpen;
+    private final char[] xmlClose;
+
+    public PrimeSequenceSerializer() {
+        this(null);
+    }
+
+    private PrimeSequenceSerializer(String elementName) {
+        super(PrimeSequence.class);
+        this.xmlOpen = elementName != null ? ("<" + elementName + ">").toCharArray() : null;
+        this.xmlClose = elementName != null ? ("</" + elementName + ">").toCharArray() : null;
+    }
+
+    /** Binds to the property so XML items can be named after it, as Jackson names the items of a wrapped list. */
+    @Override
+    public JsonSerializer<?> createContextual(SerializerProvider provider, BeanProperty property) {
+        return property != null ? new PrimeSequenceSerializer(property.getName()) : this;
+    }
+
+    @Override
+    public boolean isEmpty(SerializerProvider provider, PrimeSequence value) {
+        return value == null || value.isEmpty();
+    }
+
+    @Override
+    public void serialize(PrimeSequence primes, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeStartArray(primes, primes.size());
+        if (gen.getPrettyPrinter() != null) {
+            writeNumbers(primes, gen);
+        } else if (gen instanceof ToXmlGenerator) {
+            if (xmlOpen != null) writeXmlItems(primes, gen);
+            else writeNumbers(primes, gen);
+        } else if (gen instanceof UTF8JsonGenerator && gen.getOutputTarget() instanceof OutputStream out) {
+            flushBuffer(gen);
+            writeJsonBytes(primes, out);
+        } else if (gen instanceof JsonGeneratorImpl) {
+            writeJsonItems(primes, gen);
+        } else {
+            writeNumbers(primes, gen);
+        }
+        gen.writeEndArray();
+    }
+
+    private static void writeNumbers(PrimeSequence primes, JsonGenerator gen) throws IOException {
+        for (int i = 0; i < primes.size(); i++) {
+            gen.writeNumber(primes.getInt(i));
+        }
+    }
+
+    /** Empties the generator's buffer into its stream without flushing the stream itself, which would commit the response. */
+    private static void flushBuffer(JsonGenerator gen) throws IOException {
+        boolean passFlush = gen.isEnabled(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+        gen.disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+        gen.flush();
+        if (passFlush) gen.enable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+    }
+
+    /** UTF-8 JSON: once the generator is flushed up to the opening bracket, digits go straight to its stream. */
+    private static void writeJsonBytes(PrimeSequence primes, OutputStream out) throws IOException {
+        byte[] buffer = new byte[CHUNK];
+        int pos = 0;
+        for (int i = 0; i < primes.size(); i++) {
+            if (CHUNK - pos < MAX_INT_DIGITS + 1) {
+                out.write(buffer, 0, pos);
+                pos = 0;
+            }
+            if (i > 0) buffer[pos++] = ',';
+            pos = putInt(buffer, pos, primes.getInt(i));
+        }
+        if (pos > 0) out.write(buffer, 0, pos);
+    }
+
+    private static void writeJsonItems(PrimeSequence primes, JsonGenerator gen) throws IOException {
+        char[] buffer = new char[CHUNK];
+        int pos = 0;
+        for (int i = 0; i < primes.size(); i++) {
+            if (CHUNK - pos < MAX_INT_DIGITS + 1) {
+                gen.writeRaw(buffer, 0, pos);
+                pos = 0;
+            }
+            if (i > 0) buffer[pos++] = ',';
+            pos = putInt(buffer, pos, primes.getInt(i));
+        }
+        if (pos > 0) gen.writeRaw(buffer, 0, pos);
+    }
+
+    private void writeXmlItems(PrimeSequence primes, JsonGenerator gen) throws IOException {
+        char[] buffer = new char[CHUNK];
+        int item = xmlOpen.length + MAX_INT_DIGITS + xmlClose.length;
+        int pos = 0;
+        for (int i = 0; i < primes.size(); i++) {
+            if (CHUNK - pos < item) {
+                gen.writeRaw(buffer, 0, pos);
+                pos = 0;
+            }
+            System.arraycopy(xmlOpen, 0, buffer, pos, xmlOpen.length);
+            pos = putInt(buffer, pos + xmlOpen.length, primes.getInt(i));
+            System.arraycopy(xmlClose, 0, buffer, pos, xmlClose.length);
+            pos += xmlClose.length;
+        }
+        if (pos > 0) gen.writeRaw(buffer, 0, pos);
+    }
+
+    /** Writes a non-negative int in decimal at {@code pos} and returns the position after its last digit. */
+    static int putInt(char[] buffer, int pos, int value) {
+        int end = pos + digits(value);
+        int i = end;
+        while (value >= 100) {
+            int pair = (value % 100) << 1;
+            value /= 100;
+            buffer[--i] = (char) DIGIT_PAIRS[pair + 1];
+            buffer[--i] = (char) DIGIT_PAIRS[pair];
+        }
+        if (value >= 10) {
+            buffer[--i] = (char) DIGIT_PAIRS[(value << 1) + 1];
+            buffer[--i] = (char) DIGIT_PAIRS[value << 1];
+        } else {
+            buffer[--i] = (char) ('0' + value);
+        }
+        return end;
+    }
+
+    /** Writes a non-negative int in decimal at {@code pos} and returns the position after its last digit. */
+    static int putInt(byte[] buffer, int pos, int value) {
+        int end = pos + digits(value);
+        int i = end;
+        while (value >= 100) {
+            int pair = (value % 100) << 1;
+            value /= 100;
+            buffer[--i] = DIGIT_PAIRS[pair + 1];
+            buffer[--i] = DIGIT_PAIRS[pair];
+        }
+        if (value >= 10) {
+            buffer[--i] = DIGIT_PAIRS[(value << 1) + 1];
+            buffer[--i] = DIGIT_PAIRS[value << 1];
+        } else {
+            buffer[--i] = (byte) ('0' + value);
+        }
+        return end;
+    }
+
+    private static int digits(int value) {
+        int digits = 1;
+        for (int limit = 10; digits < MAX_INT_DIGITS && value >= limit; limit *= 10) digits++;
+        return digits;
+    }
+}
@@ -2,27 +2,94 @@ package com.gouwsf.primenumbers.controller;
 
 import com.gouwsf.primenumbers.api.PrimeNumbersApi;
 import com.gouwsf.primenumbers.model.AlgorithmType;
+import com.gouwsf.primenumbers.model.CalibrationResponse;
+import com.gouwsf.primenumbers.model.PrimalityRequest;
+import com.gouwsf.primenumbers.model.PrimalityResponse;
+import com.gouwsf.primenumbers.model.PrimeCountResponse;
 import com.gouwsf.primenumbers.model.PrimeNumberResponse;
+import com.gouwsf.primenumbers.service.CalibrationService;
+import com.gouwsf.primenumbers.service.PrimalityService;
+import com.gouwsf.primenumbers.service.PrimeCountService;
 import com.gouwsf.primenumbers.service.PrimesService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.concurrent.CompletableFuture;
 
 /**
  * REST controller that exposes endpoints for generating prime numbers.
  * <p>
  * Implements {@link PrimeNumbersApi}, which defines the API contract
  * generated from the OpenAPI specification. Delegates the actual prime
- * number generation to {@link PrimesService}.
+ * number generation to {@link PrimesService}, prime counting to {@link PrimeCountService},
+ * primality testing to {@link PrimalityService} and cost model inspection to {@link CalibrationService}.
+ * <p>
+ * Handlers return {@link CompletableFuture}s, so a request releases its servlet thread while the primes are
+ * computed, counted or tested. Streaming endpoints complete their future once the stream is admitted, so an
+ * invalid or rejected stream still becomes an error response; the body is then written by Spring MVC's async
+ * executor, not by the servlet thread.
  */
 @RestController
 @RequiredArgsConstructor
 public class PrimesController implements PrimeNumbersApi {
 
     private final PrimesService primesService;
+    private final PrimeCountService primeCountService;
+    private final PrimalityService primalityService;
+    private final CalibrationService calibrationService;
+
+    @Override
+    public CompletableFuture<ResponseEntity<PrimeNumberResponse>> getPrimeNumbers(Integer limit, AlgorithmType algo,
+                                                                                 Boolean diagnostics) {
+        return primesService.generatePrimesAsync(limit, algo, Boolean.TRUE.equals(diagnostics))
+                .thenApply(ResponseEntity::ok);
+    }
+
+    @Override
+    public CompletableFuture<ResponseEntity<PrimeNumberResponse>> getPrimeNumbersInRange(Integer from, Integer to,
+                                                                                        AlgorithmType algo,
+                                                                                        Boolean diagnostics) {
+        return primesService.generatePrimesInRangeAsync(from, to, algo, Boolean.TRUE.equals(diagnostics))
+                .thenApply(ResponseEntity::ok);
+    }
+
+    @Override
+    public CompletableFuture<ResponseEntity<PrimeCountResponse>> countPrimeNumbers(Long limit) {
+        return primeCountService.countPrimesAsync(limit).thenApply(ResponseEntity::ok);
+    }
+
+    @Override
+    public CompletableFuture<ResponseEntity<PrimalityResponse>> testPrimality(PrimalityRequest primalityRequest) {
+        return primalityService.testPrimalityAsync(primalityRequest.getNumbers()).thenApply(ResponseEntity::ok);
+    }
+
+    @Override
+    public CompletableFuture<ResponseEntity<StreamingResponseBody>> streamPrimeNumbers(Integer limit, AlgorithmType algo) {
+        return primesService.streamPrimesAsync(limit, algo).thenApply(stream -> ndjson(out -> {
+            var writer = new NdjsonPrimesWriter(out);
+            stream.writeTo(writer::writeLine);
+        }));
+    }
+
+    @Override
+    public CompletableFuture<ResponseEntity<StreamingResponseBody>> streamPrimeNumbersInRange(Long from, Long to) {
+        return primesService.streamPrimesInRangeAsync(from, to).thenApply(stream -> ndjson(out -> {
+            var writer = new NdjsonPrimesWriter(out);
+            stream.writeTo(writer::writeLine);
+        }));
+    }
+
+    private static ResponseEntity<StreamingResponseBody> ndjson(StreamingResponseBody body) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
 
     @Override
-    public ResponseEntity<PrimeNumberResponse> getPrimeNumbers(Integer limit, AlgorithmType algo) {
-        return ResponseEntity.ok(primesService.generatePrimes(limit, algo));
+    public CompletableFuture<ResponseEntity<CalibrationResponse>> getCalibration() {
+        return CompletableFuture.completedFuture(ResponseEntity.ok(calibrationService.getCalibration()));
     }
 }
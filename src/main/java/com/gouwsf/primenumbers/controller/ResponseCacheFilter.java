@@ -0,0 +1,365 @@
+package com.gouwsf.primenumbers.controller;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.cache.Cache;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.filter.ServerHttpObservationFilter;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.WebUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Caches the final bytes of prime list responses, so a repeated request is answered by copying them to the socket
+ * instead of fetching and serializing the primes again.
+ * <p>
+ * Entries are keyed by path, query parameters, {@code Accept} header and whether the client takes gzip: the same
+ * inputs always negotiate the same representation. Bodies of at least {@value #GZIP_MIN_BYTES} bytes are
+ * gzip-compressed while they are buffered for clients that accept it, so compression is paid once per entry as
+ * well. A hit replays the body exactly as it was first sent, timings included - like the count cache does.
+ * <p>
+ * Only successful responses whose stored body - compressed, if it is stored compressed - fits in {@code maxEntryBytes}
+ * are cached. A larger body stops being buffered once it crosses the limit and streams through, still compressed
+ * if compression had started. Requests for diagnostics are never cached, because their per-phase trace describes one request.
+ */
+public class ResponseCacheFilter extends OncePerRequestFilter {
+
+    static final String CACHE_HEADER = "X-Cache";
+    static final int GZIP_MIN_BYTES = 2048;
+
+    /** Inputs that determine a response body. */
+    record Key(String path, Map<String, String> parameters, String accept, boolean gzip) {}
+
+    /** A stored response: headers the body depends on, and the body as sent. */
+    public record CachedResponse(String contentType, String contentEncoding, byte[] body) {
+
+        /** Bytes retained by this entry, for the cache weigher. */
+        public int weight() {
+            return 64 + body.length;
+        }
+    }
+
+    private final Cache cache;
+    private final int maxEntryBytes;
+
+    /**
+     * @param cache where entries are stored
+     * @param maxEntryBytes largest stored body; larger responses stream through uncached
+     */
+    public ResponseCacheFilter(Cache cache, int maxEntryBytes) {
+        this.cache = cache;
+        this.maxEntryBytes = maxEntryBytes;
+    }
+
+    /** Responses finished on another thread come back through the filter on their async dispatch. */
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        var capture = WebUtils.getNativeResponse(response, CapturingResponse.class);
+        if (capture == null) {
+            Key key = key(request);
+            if (key == null) {
+                chain.doFilter(request, response);
+                return;
+            }
+            CachedResponse hit = cache.get(key, CachedResponse.class);
+            if (hit != null) {
+                markPathPattern(request);
+                write(response, hit, "HIT");
+                return;
+            }
+            capture = new CapturingResponse(response, key, maxEntryBytes);
+        }
+        chain.doFilter(request, capture);
+        if (!request.isAsyncStarted()) {
+            finish(capture);
+        }
+    }
+
+    private static Key key(HttpServletRequest request) {
+        if (!HttpMethod.GET.matches(request.getMethod())) return null;
+        if (Boolean.parseBoolean(request.getParameter("diagnostics"))) return null;
+        Map<String, String> parameters = new TreeMap<>();
+        request.getParameterMap().forEach((name, values) -> parameters.put(name, String.join(",", values)));
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        return new Key(request.getRequestURI(), parameters, accept != null ? accept.trim() : "*/*",
+                acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING)));
+    }
+
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) return false;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (!parts[0].trim().equalsIgnoreCase("gzip")) continue;
+            for (int i = 1; i < parts.length; i++) {
+                if (parts[i].trim().matches("q=0(\\.0{0,3})?")) return false;
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private void finish(CapturingResponse capture) throws IOException {
+        capture.flushWriter();
+        capture.finishBody();
+        if (capture.overflowed) return;
+        byte[] body = capture.buffer.toByteArray();
+        String encoding = capture.compressing() ? "gzip" : capture.getHeader(HttpHeaders.CONTENT_ENCODING);
+        var real = (HttpServletResponse) capture.getResponse();
+        // the deflater may hold back its output until it is closed, so the stored size is only final here
+        boolean cacheable = capture.getStatus() == HttpServletResponse.SC_OK && capture.getContentType() != null
+                && (capture.compressing() || encoding == null) && body.length <= maxEntryBytes;
+        if (!cacheable) {
+            if (capture.compressing()) {
+                real.setHeader(HttpHeaders.CONTENT_ENCODING, encoding);
+                real.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            }
+            real.getOutputStream().write(body);
+            return;
+        }
+        var entry = new CachedResponse(capture.getContentType(), encoding, body);
+        cache.put(capture.key, entry);
+        write(real, entry, "MISS");
+    }
+
+    private static void write(HttpServletResponse response, CachedResponse entry, String cacheStatus) throws IOException {
+        if (entry.contentType() != null) response.setContentType(entry.contentType());
+        if (entry.contentEncoding() != null) response.setHeader(HttpHeaders.CONTENT_ENCODING, entry.contentEncoding());
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        response.setHeader(CACHE_HEADER, cacheStatus);
+        response.setContentLength(entry.body().length);
+        response.getOutputStream().write(entry.body());
+    }
+
+    /** Lets metrics and observations tag a hit with its endpoint, as if the request had reached the controller. */
+    private static void markPathPattern(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, path);
+        ServerHttpObservationFilter.findObservationContext(request).ifPresent(context -> context.setPathPattern(path));
+    }
+
+    /**
+     * Buffers the body up to {@code maxEntryBytes}, gzip-compressing it as it arrives once it reaches
+     * {@value #GZIP_MIN_BYTES} bytes for a client that accepts gzip. Past the limit, it writes what it holds to the
+     * real response and passes the rest straight through - through the same compressor, if one was started.
+     */
+    private static final class CapturingResponse extends HttpServletResponseWrapper {
+
+        private final Key key;
+        private final int maxEntryBytes;
+        /** The stored body so far - compressed once {@link #gzip} is started. */
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(8192);
+        /** Where buffered bytes go: {@link #buffer} until overflow, then the real response. */
+        private final Target target = new Target(buffer);
+        private GZIPOutputStream gzip;
+        private boolean overflowed;
+        private ServletOutputStream outputStream;
+        private PrintWriter writer;
+
+        private CapturingResponse(HttpServletResponse response, Key key, int maxEntryBytes) {
+            super(response);
+            this.key = key;
+            this.maxEntryBytes = maxEntryBytes;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            if (outputStream == null) {
+                outputStream = new ServletOutputStream() {
+                    @Override
+                    public void write(int b) throws IOException {
+                        write(new byte[]{(byte) b}, 0, 1);
+                    }
+
+                    @Override
+                    public void write(byte[] b, int off, int len) throws IOException {
+                        if (!overflowed && gzip == null && key.gzip() && buffer.size() + len >= GZIP_MIN_BYTES
+                                && getHeader(HttpHeaders.CONTENT_ENCODING) == null) {
+                            startGzip();
+                        }
+                        if (!overflowed && gzip == null && buffer.size() + len > maxEntryBytes) overflow();
+                        if (gzip != null) gzip.write(b, off, len);
+                        else target.write(b, off, len);
+                        // compressed output only shows once the deflater has produced it
+                        if (!overflowed && buffer.size() > maxEntryBytes) overflow();
+                    }
+
+                    @Override
+                    public void flush() throws IOException {
+                        if (!overflowed) return;
+                        if (gzip != null) gzip.flush();
+                        getResponse().getOutputStream().flush();
+                    }
+
+                    @Override
+                    public boolean isReady() {
+                        if (!overflowed) return true;
+                        try {
+                            return getResponse().getOutputStream().isReady();
+                        } catch (IOException e) {
+                            return false;
+                        }
+                    }
+
+                    /** Non-blocking writers are not cached: the response overflows and the listener goes to the real stream. */
+                    @Override
+                    public void setWriteListener(WriteListener listener) {
+                        try {
+                            if (!overflowed) overflow();
+                            getResponse().getOutputStream().setWriteListener(listener);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }
+                };
+            }
+            return outputStream;
+        }
+
+        @Override
+        public PrintWriter getWriter() {
+            if (writer == null) {
+                String encoding = getCharacterEncoding();
+                writer = new PrintWriter(new OutputStreamWriter(getOutputStream(),
+                        encoding != null ? Charset.forName(encoding) : StandardCharsets.ISO_8859_1));
+            }
+            return writer;
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            flushWriter();
+            if (overflowed) {
+                if (gzip != null) gzip.flush();
+                super.flushBuffer();
+            }
+        }
+
+        @Override
+        public void setContentLength(int len) {
+            if (overflowed && gzip == null) super.setContentLength(len);
+        }
+
+        @Override
+        public void setContentLengthLong(long len) {
+            if (overflowed && gzip == null) super.setContentLengthLong(len);
+        }
+
+        @Override
+        public void resetBuffer() {
+            // characters still pending in the writer belong to the discarded content too
+            flushWriter();
+            if (!overflowed) discard();
+            else super.resetBuffer();
+        }
+
+        @Override
+        public void reset() {
+            flushWriter();
+            super.reset();
+            if (!overflowed) discard();
+        }
+
+        private boolean compressing() {
+            return gzip != null;
+        }
+
+        private void flushWriter() {
+            if (writer != null) writer.flush();
+        }
+
+        /**
+         * Completes the body: writes the gzip trailer, to the buffer or - after overflow - to the client. Closing the
+         * compressor releases its native memory; {@link Target} itself ignores the close.
+         */
+        private void finishBody() throws IOException {
+            if (gzip != null) gzip.close();
+        }
+
+        /** Restarts compression of everything buffered so far; the buffer holds compressed bytes from now on. */
+        private void startGzip() throws IOException {
+            byte[] raw = buffer.toByteArray();
+            buffer.reset();
+            gzip = new GZIPOutputStream(target, 8192);
+            gzip.write(raw);
+        }
+
+        private void discard() {
+            if (gzip != null) {
+                try {
+                    gzip.close();
+                } catch (IOException e) {
+                    // only ever writes into the buffer
+                }
+                gzip = null;
+            }
+            buffer.reset();
+        }
+
+        /** Gives up on caching this response and sends what has been buffered so far. */
+        private void overflow() throws IOException {
+            overflowed = true;
+            var response = (HttpServletResponse) getResponse();
+            if (gzip != null) {
+                response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+                response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            }
+            response.getOutputStream().write(buffer.toByteArray());
+            buffer.reset();
+            target.redirect(response.getOutputStream());
+        }
+    }
+
+    /** Output stream whose destination can be switched, so a running compressor keeps its state across overflow. */
+    private static final class Target extends OutputStream {
+
+        private OutputStream out;
+
+        private Target(OutputStream out) {
+            this.out = out;
+        }
+
+        void redirect(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+    }
+}
@@ -3,24 +3,35 @@ package com.gouwsf.primenumbers.exception;
 import com.gouwsf.primenumbers.model.ErrorResponse;
 import jakarta.validation.ConstraintViolationException;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 
+import java.util.List;
+
 /**
  * Global Exception Handler for handling error response.
  *
  * Ensures consistent response using generated ErrorResponse model generated from OAS
- * number generation to {@link ErrorResponse}.
+ * number generation to {@link ErrorResponse}. Errors are negotiated like any other response; a client that
+ * accepts neither JSON nor XML - e.g. only the binary prime-gaps type - gets {@code application/json}.
  */
 @RestControllerAdvice
 @Slf4j
 class GlobalExceptionHandler {
 
     public static String INTERNAL_ERROR_MSG = "Something went wrong. We are working hard to fix the issue";
+    /** Media types an {@link ErrorResponse} can be written as. */
+    private static final List<MediaType> ERROR_MEDIA_TYPES = List.of(MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML);
 
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<Object> handleValidationErrors(MethodArgumentNotValidException ex) {
@@ -45,6 +56,21 @@ class GlobalExceptionHandler {
         return constructErrorResponse(ex, HttpStatus.BAD_REQUEST, message, "Validation Error");
     }
 
+    @ExceptionHandler(HttpMessageNotReadableException.class)
+    public ResponseEntity<Object> handleUnreadableBody(HttpMessageNotReadableException ex) {
+        return constructErrorResponse(ex, HttpStatus.BAD_REQUEST, "Request body is missing or malformed", "Invalid request body");
+    }
+
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<Object> handleTooManyRequests(TooManyRequestsException ex) {
+        var response = constructErrorResponse(ex, HttpStatus.TOO_MANY_REQUESTS,
+                "Too many expensive requests in flight - retry later", "Too many requests");
+        return ResponseEntity.status(response.getStatusCode())
+                .headers(response.getHeaders())
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(response.getBody());
+    }
+
     @ExceptionHandler({RuntimeException.class})
     public ResponseEntity<Object> handleRuntimeException(RuntimeException ex) {
         return constructErrorResponse(ex, HttpStatus.INTERNAL_SERVER_ERROR, INTERNAL_ERROR_MSG, "");
@@ -96,6 +122,25 @@ class GlobalExceptionHandler {
                 .description(description)
                 .build();
 
-        return new ResponseEntity<>(errorResponse, status);
+        if (acceptsErrorMediaType()) {
+            return new ResponseEntity<>(errorResponse, status);
+        }
+        // no converter could write the error in an accepted type - a 400 must not turn into a 406/500
+        return ResponseEntity.status(status)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(errorResponse);
+    }
+
+    /** Whether the current request accepts a type an {@link ErrorResponse} can be negotiated to. */
+    private static boolean acceptsErrorMediaType() {
+        if (!(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes)) return true;
+        String accept = attributes.getRequest().getHeader(HttpHeaders.ACCEPT);
+        if (accept == null || accept.isBlank()) return true;
+        try {
+            return MediaType.parseMediaTypes(accept).stream()
+                    .anyMatch(accepted -> ERROR_MEDIA_TYPES.stream().anyMatch(accepted::isCompatibleWith));
+        } catch (InvalidMediaTypeException e) {
+            return false;
+        }
     }
 }
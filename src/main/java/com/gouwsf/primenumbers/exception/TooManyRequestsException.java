@@ -0,0 +1,19 @@
+package com.gouwsf.primenumbers.exception;
+
+import lombok.Getter;
+
+/**
+ * Thrown when a request cannot be admitted because the expensive work already in flight uses up
+ * the server's budget. Mapped to {@code 429 Too Many Requests} with a {@code Retry-After} header.
+ */
+@Getter
+public class TooManyRequestsException extends RuntimeException {
+
+    /** Seconds the client should wait before retrying. */
+    private final long retryAfterSeconds;
+
+    public TooManyRequestsException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
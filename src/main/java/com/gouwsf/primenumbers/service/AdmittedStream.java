@@ -0,0 +1,15 @@
+package com.gouwsf.primenumbers.service;
+
+import java.util.function.Consumer;
+
+/**
+ * A streamed computation that has been admitted but not started yet. Writing it computes the result and hands
+ * it to the sink in ascending chunks; the admission is held until it returns, so it must be written exactly once.
+ *
+ * @param <T> type of one chunk of primes
+ */
+@FunctionalInterface
+public interface AdmittedStream<T> {
+
+    void writeTo(Consumer<T> sink);
+}
@@ -0,0 +1,7 @@
+package com.gouwsf.primenumbers.service;
+
+import com.gouwsf.primenumbers.model.CalibrationResponse;
+
+public interface CalibrationService {
+    CalibrationResponse getCalibration();
+}
@@ -0,0 +1,18 @@
+package com.gouwsf.primenumbers.service;
+
+import com.gouwsf.primenumbers.model.PrimalityResponse;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+public interface PrimalityService {
+
+    /**
+     * Tests each number for primality. Returns as soon as the tests are started; no thread waits for them.
+     *
+     * @param numbers numbers to test - any {@code long}, negative numbers are never prime
+     * @return a future of one flag per number, in the given order
+     * @throws IllegalArgumentException if {@code numbers} contains {@code null}
+     */
+    CompletableFuture<PrimalityResponse> testPrimalityAsync(List<Long> numbers);
+}
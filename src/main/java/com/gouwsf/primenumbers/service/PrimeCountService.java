@@ -0,0 +1,13 @@
+package com.gouwsf.primenumbers.service;
+
+import com.gouwsf.primenumbers.model.PrimeCountResponse;
+
+import java.util.concurrent.CompletableFuture;
+
+public interface PrimeCountService {
+
+    /**
+     * Counts the primes ≤ limit. Returns as soon as the count is started; no thread waits for it.
+     */
+    CompletableFuture<PrimeCountResponse> countPrimesAsync(long limit);
+}
@@ -1,8 +1,63 @@
 package com.gouwsf.primenumbers.service;
 
+import com.gouwsf.primenumbers.algorithms.PrimeSequence;
 import com.gouwsf.primenumbers.model.AlgorithmType;
 import com.gouwsf.primenumbers.model.PrimeNumberResponse;
 
+import java.util.concurrent.CompletableFuture;
+
 public interface PrimesService {
-    PrimeNumberResponse generatePrimes(int limit, AlgorithmType algo);
+    default PrimeNumberResponse generatePrimes(int limit, AlgorithmType algo) {
+        return generatePrimes(limit, algo, false);
+    }
+
+    /**
+     * Computes the primes ≤ limit.
+     *
+     * @param diagnostics adds per-phase timings of this request to the response
+     */
+    PrimeNumberResponse generatePrimes(int limit, AlgorithmType algo, boolean diagnostics);
+
+    /**
+     * Like {@link #generatePrimes(int, AlgorithmType, boolean)}, but returns as soon as the computation is
+     * started; no thread waits for it. A request rejected by admission control fails the returned future.
+     */
+    CompletableFuture<PrimeNumberResponse> generatePrimesAsync(int limit, AlgorithmType algo, boolean diagnostics);
+
+    default PrimeNumberResponse generatePrimesInRange(int from, int to, AlgorithmType algo) {
+        return generatePrimesInRange(from, to, algo, false);
+    }
+
+    /**
+     * Computes the primes in {@code [from, to]} without sieving anything below {@code from}
+     * other than the base primes up to {@code sqrt(to)}.
+     *
+     * @param diagnostics adds per-phase timings of this request to the response
+     * @throws IllegalArgumentException if {@code from > to} or the range is wider than allowed
+     */
+    PrimeNumberResponse generatePrimesInRange(int from, int to, AlgorithmType algo, boolean diagnostics);
+
+    /**
+     * Like {@link #generatePrimesInRange(int, int, AlgorithmType, boolean)}, but returns as soon as the
+     * computation is started. Invalid ranges fail before a future is returned, rejected requests fail the future.
+     */
+    CompletableFuture<PrimeNumberResponse> generatePrimesInRangeAsync(int from, int to, AlgorithmType algo,
+                                                                      boolean diagnostics);
+
+    /**
+     * Admits a stream of the primes ≤ limit. Once admitted, the returned stream computes the primes and hands
+     * them to its sink in ascending chunks as they are computed, without ever holding the full result. The
+     * future fails with a {@link com.gouwsf.primenumbers.exception.TooManyRequestsException} if the stream is
+     * not admitted in time - before anything has been written.
+     */
+    CompletableFuture<AdmittedStream<PrimeSequence>> streamPrimesAsync(int limit, AlgorithmType algo);
+
+    /**
+     * Admits a stream of the primes in {@code [from, to]} for {@code long} bounds, like
+     * {@link #streamPrimesAsync}. Ranges this large are never materialised as a whole.
+     *
+     * @throws IllegalArgumentException if {@code from > to}, {@code to} is beyond the supported bound
+     *         or the range is wider than allowed - before a future is returned
+     */
+    CompletableFuture<AdmittedStream<long[]>> streamPrimesInRangeAsync(long from, long to);
 }
@@ -0,0 +1,275 @@
+package com.gouwsf.primenumbers.service.impl;
+
+import com.gouwsf.primenumbers.algorithms.PrimesGenerator;
+import com.gouwsf.primenumbers.exception.TooManyRequestsException;
+import com.gouwsf.primenumbers.model.AlgorithmType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Cost-aware admission gate for expensive prime computations.
+ * <p>
+ * Every request is priced up front by {@link #estimate(PrimesGenerator, long, long)} - CPU time from the
+ * work {@link CostModel} attributes to the range and algorithm, heap from the number of primes it will hold
+ * plus the generator's sieve buffer. Counts, primality batches and streams have estimators of their own
+ * ({@link #estimateCount}, {@link #estimatePrimality}, {@link #estimateStream}). Admitted requests
+ * hold their cost against two budgets until they finish: heap (a fraction of {@code -Xmx}) and CPU
+ * (core-seconds of work the executor may have in flight). A request that does not fit is queued, for at
+ * most {@code config.admission.max-wait-millis}, until earlier requests release their cost, and is then
+ * rejected with a {@link TooManyRequestsException} carrying an estimate of when to retry. Queued requests
+ * hold no thread.
+ * <p>
+ * Small requests bypass the gate entirely, so they keep flowing however loaded the server is. A single
+ * request larger than a whole budget is still admitted once nothing else is in flight - otherwise it
+ * could never run.
+ */
+@Slf4j
+@Component
+public class AdmissionControl {
+
+    /** Cost of a computation: estimated single-core CPU time and peak heap it retains. */
+    public record RequestCost(long cpuNanos, long heapBytes) {}
+
+    /** A held admission; closing it releases the cost. */
+    public interface Permit extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private static final Permit UNTRACKED = () -> { };
+
+    /** Each prime is held twice while a concurrent result is merged: once in its leaf and once in the output. */
+    private static final int HEAP_BYTES_PER_PRIME = 2 * Integer.BYTES;
+    /** A count holds Lucy's two tables of {@code sqrt(limit)} entries: an {@code int} and a {@code long} each. */
+    private static final int HEAP_BYTES_PER_COUNT_ENTRY = Integer.BYTES + Long.BYTES;
+    /** Rough single-core cost of one step of Lucy's prime count, in nanoseconds. */
+    private static final double NANOS_PER_COUNT_STEP = 1.0;
+    /** Each tested number is held as a {@code long}, its flag, and the flag's slot in the response list. */
+    private static final int HEAP_BYTES_PER_TESTED_NUMBER = Long.BYTES + 1 + 8;
+    /** Requests retaining at most this much heap, and within the small CPU threshold, bypass the gate. */
+    public static final long SMALL_HEAP_BYTES = 1L << 20;
+
+    private final long heapBudgetBytes;
+    private final long cpuBudgetNanos;
+    private final long smallCpuNanos;
+    private final long maxWaitNanos;
+    private final int parallelism;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    // guarded by lock
+    private final Deque<Waiter> waiters = new ArrayDeque<>();
+    private long heapInFlight;
+    private long cpuInFlight;
+    private int admitted;
+
+    @Autowired
+    public AdmissionControl(ForkJoinPool executor,
+                            @Value("${config.admission.heap-budget-fraction:0.5}") double heapBudgetFraction,
+                            @Value("${config.admission.cpu-budget-seconds:2}") double cpuBudgetSeconds,
+                            @Value("${config.admission.small-request-millis:20}") long smallRequestMillis,
+                            @Value("${config.admission.max-wait-millis:2000}") long maxWaitMillis) {
+        this((long) (Runtime.getRuntime().maxMemory() * heapBudgetFraction),
+                (long) (cpuBudgetSeconds * executor.getParallelism() * 1e9),
+                TimeUnit.MILLISECONDS.toNanos(smallRequestMillis),
+                TimeUnit.MILLISECONDS.toNanos(maxWaitMillis),
+                executor.getParallelism());
+    }
+
+    /**
+     * Gate with explicit budgets.
+     *
+     * @param smallCpuNanos requests at or below this CPU estimate (and {@link #SMALL_HEAP_BYTES}) bypass the gate
+     * @param parallelism executor threads draining the CPU budget, used for {@code Retry-After}
+     */
+    public AdmissionControl(long heapBudgetBytes, long cpuBudgetNanos, long smallCpuNanos, long maxWaitNanos, int parallelism) {
+        this.heapBudgetBytes = heapBudgetBytes;
+        this.cpuBudgetNanos = cpuBudgetNanos;
+        this.smallCpuNanos = smallCpuNanos;
+        this.maxWaitNanos = maxWaitNanos;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * Estimates the cost of computing every prime in {@code (fromExclusive, toInclusive]} with {@code generator},
+     * using the uncalibrated single-core rates of {@link CostModel} so budgets stay stable under load.
+     * The sieve buffer is priced as if the range were sieved in one call; concurrent leaves never hold more.
+     */
+    public static RequestCost estimate(PrimesGenerator generator, long fromExclusive, long toInclusive) {
+        if (toInclusive <= Math.max(fromExclusive, 1)) return new RequestCost(0, 0);
+
+        AlgorithmType algo = generator.getType();
+        double cpu = CostModel.work(algo, fromExclusive, toInclusive) * CostModel.defaultNanosPerUnit(algo);
+        double primes = CostModel.estimatePrimeCount(fromExclusive, toInclusive);
+        long heap = (long) (primes * HEAP_BYTES_PER_PRIME) + generator.sieveBufferBytes(fromExclusive, toInclusive);
+        return new RequestCost((long) Math.min(cpu, Long.MAX_VALUE), heap);
+    }
+
+    /**
+     * Estimates the cost of counting the primes ≤ {@code limit}: {@code limit^(3/4)} steps of Lucy's algorithm
+     * and its two tables of {@code sqrt(limit)} entries. Nothing is generated, so no primes are held.
+     */
+    public static RequestCost estimateCount(long limit) {
+        if (limit < 2) return new RequestCost(0, 0);
+
+        double cpu = PrimeCountServiceImpl.work(limit) * NANOS_PER_COUNT_STEP;
+        long heap = ((long) Math.sqrt((double) limit) + 1) * HEAP_BYTES_PER_COUNT_ENTRY;
+        return new RequestCost((long) cpu, heap);
+    }
+
+    /**
+     * Estimates the cost of testing {@code numbers} numbers for primality: each is weighed like the
+     * {@link PrimalityServiceImpl#WORK_PER_NUMBER} numbers the scheduler charges for it, sieved at the
+     * segmented sieve's rate, and retains its value and its flag until the response is written.
+     */
+    public static RequestCost estimatePrimality(int numbers) {
+        double cpu = (double) numbers * PrimalityServiceImpl.WORK_PER_NUMBER
+                * CostModel.defaultNanosPerUnit(AlgorithmType.SEGMENTED);
+        return new RequestCost((long) cpu, (long) numbers * HEAP_BYTES_PER_TESTED_NUMBER);
+    }
+
+    /**
+     * Estimates the cost a stream of {@code (fromExclusive, toInclusive]} holds at any one time. A stream never
+     * has more than {@code windowWidth} numbers in flight and releases each segment once it is written, so it
+     * is priced as its first window - the densest in primes - rather than as the whole range.
+     */
+    public static RequestCost estimateStream(PrimesGenerator generator, long fromExclusive, long toInclusive,
+                                             long windowWidth) {
+        return estimate(generator, fromExclusive, Math.min(toInclusive, fromExclusive + windowWidth));
+    }
+
+    /**
+     * Admits a request of the given cost. No thread waits for admission: a request that does not fit yet
+     * is queued, and the returned future completes on the thread that releases enough budget for it.
+     *
+     * @return a future of the permit to close once the computation has finished; it fails with a
+     *         {@link TooManyRequestsException} if the request still does not fit after the maximum wait
+     */
+    public CompletableFuture<Permit> admit(RequestCost cost) {
+        if (cost.cpuNanos() <= smallCpuNanos && cost.heapBytes() <= SMALL_HEAP_BYTES) {
+            return CompletableFuture.completedFuture(UNTRACKED);
+        }
+
+        Waiter waiter;
+        lock.lock();
+        try {
+            if (fits(cost)) {
+                take(cost);
+                return CompletableFuture.completedFuture(new HeldPermit(cost));
+            }
+            if (maxWaitNanos <= 0) {
+                return CompletableFuture.failedFuture(reject(cost));
+            }
+            waiter = new Waiter(cost, new CompletableFuture<>());
+            waiters.addLast(waiter);
+        } finally {
+            lock.unlock();
+        }
+        CompletableFuture.delayedExecutor(maxWaitNanos, TimeUnit.NANOSECONDS).execute(() -> expire(waiter));
+        return waiter.permit();
+    }
+
+    /** Number of requests currently holding budget. */
+    public int inFlight() {
+        lock.lock();
+        try {
+            return admitted;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean fits(RequestCost cost) {
+        return admitted == 0
+                || (heapInFlight + cost.heapBytes() <= heapBudgetBytes && cpuInFlight + cost.cpuNanos() <= cpuBudgetNanos);
+    }
+
+    /** Time for the executor to drain the CPU already in flight, rounded up to whole seconds. */
+    private long retryAfterSeconds() {
+        long drainNanos = cpuInFlight / parallelism;
+        return Math.max(1, (drainNanos + 999_999_999) / 1_000_000_000);
+    }
+
+    /** Takes budget for an admitted request. Caller holds the lock. */
+    private void take(RequestCost cost) {
+        heapInFlight += cost.heapBytes();
+        cpuInFlight += cost.cpuNanos();
+        admitted++;
+    }
+
+    /** Builds the rejection of a request that did not fit in time. Caller holds the lock. */
+    private TooManyRequestsException reject(RequestCost cost) {
+        long retryAfter = retryAfterSeconds();
+        log.warn("Rejecting request costing {} ms CPU / {} bytes heap, retry after {} s",
+                cost.cpuNanos() / 1_000_000, cost.heapBytes(), retryAfter);
+        return new TooManyRequestsException("Server is busy with expensive requests", retryAfter);
+    }
+
+    /** Rejects a waiter whose maximum wait ran out, unless it has been admitted in the meantime. */
+    private void expire(Waiter waiter) {
+        TooManyRequestsException rejection;
+        lock.lock();
+        try {
+            if (!waiters.remove(waiter)) return;
+            rejection = reject(waiter.cost());
+        } finally {
+            lock.unlock();
+        }
+        waiter.permit().completeExceptionally(rejection);
+    }
+
+    private void release(RequestCost cost) {
+        List<Waiter> admittedWaiters = new ArrayList<>();
+        lock.lock();
+        try {
+            heapInFlight -= cost.heapBytes();
+            cpuInFlight -= cost.cpuNanos();
+            admitted--;
+            // first fit, in arrival order - a waiter that still does not fit keeps its place
+            for (var it = waiters.iterator(); it.hasNext(); ) {
+                var waiter = it.next();
+                if (fits(waiter.cost())) {
+                    it.remove();
+                    take(waiter.cost());
+                    admittedWaiters.add(waiter);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        // completed outside the lock: each waiter's computation starts on this thread
+        for (var waiter : admittedWaiters) {
+            waiter.permit().complete(new HeldPermit(waiter.cost()));
+        }
+    }
+
+    /** A request queued for admission, completed with its permit or rejected once its wait runs out. */
+    private record Waiter(RequestCost cost, CompletableFuture<Permit> permit) {}
+
+    private final class HeldPermit implements Permit {
+
+        private final RequestCost cost;
+        private boolean closed;
+
+        private HeldPermit(RequestCost cost) {
+            this.cost = cost;
+        }
+
+        @Override
+        public void close() {
+            if (closed) return;
+            closed = true;
+            release(cost);
+        }
+    }
+}
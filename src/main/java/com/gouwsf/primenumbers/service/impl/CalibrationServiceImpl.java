@@ -0,0 +1,50 @@
+package com.gouwsf.primenumbers.service.impl;
+
+import com.gouwsf.primenumbers.model.AlgorithmCalibration;
+import com.gouwsf.primenumbers.model.CalibrationResponse;
+import com.gouwsf.primenumbers.model.CalibrationSample;
+import com.gouwsf.primenumbers.service.CalibrationService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+/**
+ * Default implementation of {@link CalibrationService}.
+ * <p>
+ * Reports a snapshot of the {@link CostModel}: the fits are read at call time, so the response reflects
+ * every live timing folded in since startup.
+ */
+@Service
+@RequiredArgsConstructor
+public class CalibrationServiceImpl implements CalibrationService {
+
+    private final CostModel costModel;
+
+    @Override
+    public CalibrationResponse getCalibration() {
+        return new CalibrationResponse.Builder()
+                .parallelism(costModel.getParallelism())
+                .algorithms(costModel.curves().stream().map(CalibrationServiceImpl::toAlgorithmCalibration).toList())
+                .build();
+    }
+
+    private static AlgorithmCalibration toAlgorithmCalibration(CostModel.Curve curve) {
+        return new AlgorithmCalibration.Builder()
+                .algorithm(curve.algorithm())
+                .parallelThreshold(curve.parallelThreshold())
+                .sequentialNanosPerUnit(curve.sequential().nanosPerUnit())
+                .sequentialOverheadNanos(curve.sequential().overheadNanos())
+                .parallelNanosPerUnit(curve.parallel().nanosPerUnit())
+                .parallelOverheadNanos(curve.parallel().overheadNanos())
+                .observations(curve.observations())
+                .samples(curve.samples().stream().map(CalibrationServiceImpl::toCalibrationSample).toList())
+                .build();
+    }
+
+    private static CalibrationSample toCalibrationSample(CostModel.Sample sample) {
+        return new CalibrationSample.Builder()
+                .limit(sample.limit())
+                .sequentialNanos(sample.sequentialNanos())
+                .parallelNanos(sample.parallelNanos() < 0 ? null : sample.parallelNanos())
+                .build();
+    }
+}
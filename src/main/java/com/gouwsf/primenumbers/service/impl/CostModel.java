@@ -0,0 +1,317 @@
+package com.gouwsf.primenumbers.service.impl;
+
+import com.gouwsf.primenumbers.algorithms.PrimesGenerator;
+import com.gouwsf.primenumbers.model.AlgorithmType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Run-time model of how long each algorithm takes, used to resolve {@link AlgorithmType#AUTO} and to decide
+ * when a computation is worth splitting across the executor.
+ * <p>
+ * A computation's time is modelled as {@code nanosPerUnit × work(range) + overheadNanos}, with one {@link Fit}
+ * per algorithm and execution mode: work is the width of the range for the sieves and the number of trial
+ * divisions for {@code NAIVE}, and the overhead is mostly what the parallel path pays for base primes,
+ * scheduling and the merge. The fits start from rough single-core rates. Once the application is ready,
+ * every generator is timed in the background at a series of limits in both modes and each mode is fitted to that curve by least squares; after that the
+ * durations observed in production refine the rates as an exponentially weighted moving average - so the
+ * model tracks the machine, core count and container it actually runs on.
+ * <p>
+ * A computation runs in parallel where that mode's estimate beats the sequential one. The smallest such limit
+ * is the algorithm's break-even point, reported with the measured curve by {@link #curves()}; setting
+ * {@code config.cost-model.parallel-threshold} pins it for every algorithm instead.
+ */
+@Slf4j
+@Component
+public class CostModel {
+
+    /** The algorithm and execution mode expected to be fastest. */
+    public record Choice(AlgorithmType algorithm, boolean parallel) {}
+
+    /** Time model of one algorithm in one execution mode. */
+    public record Fit(double nanosPerUnit, double overheadNanos) {
+        double estimate(double work) {
+            return nanosPerUnit * work + overheadNanos;
+        }
+    }
+
+    /** Best time to compute every prime ≤ {@code limit} in each mode; {@code parallelNanos} is -1 if not measured. */
+    public record Sample(int limit, long sequentialNanos, long parallelNanos) {}
+
+    /** What the model currently knows about one algorithm. */
+    public record Curve(AlgorithmType algorithm, int parallelThreshold, Fit sequential, Fit parallel,
+                        long observations, List<Sample> samples) {}
+
+    /** Break-even point of an algorithm that is never faster in parallel. */
+    public static final int NEVER = Integer.MAX_VALUE;
+    /** Limits timed at startup - doubling, so the fit sees both the overhead and the slope. */
+    static final int[] CALIBRATION_LIMITS = {1 << 14, 1 << 15, 1 << 16, 1 << 17, 1 << 18, 1 << 19, 1 << 20};
+    /** Weight of a new observation in the moving average. */
+    static final double SMOOTHING = 0.2;
+    /** Observations shorter than this are dominated by timer and JIT noise and ignored. */
+    private static final long MIN_OBSERVED_NANOS = 200_000;
+    private static final double DEFAULT_PARALLEL_OVERHEAD_NANOS = 1_000_000;
+
+    private final Map<AlgorithmType, PrimesGenerator> generators = new EnumMap<>(AlgorithmType.class);
+    private final PrimesExecutorService primesExecutorService;
+    private final int parallelism;
+    private final boolean calibrateOnStartup;
+    private final int pinnedParallelThreshold;
+
+    // indexed by [algorithm ordinal * 2 + (parallel ? 1 : 0)]
+    private final AtomicReferenceArray<Fit> fits = new AtomicReferenceArray<>(AlgorithmType.values().length * 2);
+    private final AtomicLongArray observations = new AtomicLongArray(AlgorithmType.values().length);
+    private volatile Map<AlgorithmType, List<Sample>> samples = Map.of();
+
+    @Autowired
+    public CostModel(List<PrimesGenerator> algorithms, PrimesExecutorService primesExecutorService, ForkJoinPool executor,
+                     @Value("${config.cost-model.calibrate:true}") boolean calibrateOnStartup,
+                     @Value("${config.cost-model.parallel-threshold:0}") int pinnedParallelThreshold) {
+        algorithms.forEach(generator -> generators.put(generator.getType(), generator));
+        this.primesExecutorService = primesExecutorService;
+        this.parallelism = Math.max(1, executor.getParallelism());
+        this.calibrateOnStartup = calibrateOnStartup;
+        this.pinnedParallelThreshold = pinnedParallelThreshold;
+        for (AlgorithmType algo : generators.keySet()) {
+            fits.set(index(algo, false), new Fit(defaultNanosPerUnit(algo), 0));
+            fits.set(index(algo, true), new Fit(defaultNanosPerUnit(algo) / parallelism, DEFAULT_PARALLEL_OVERHEAD_NANOS));
+        }
+    }
+
+    /**
+     * Rough single-core cost of one unit of {@link #work} - nanoseconds per number sieved, or per trial
+     * division for {@code NAIVE}.
+     *
+     * @throws IllegalArgumentException for {@code AUTO}, which is not an algorithm of its own
+     */
+    public static double defaultNanosPerUnit(AlgorithmType algo) {
+        return switch (algo) {
+            case WHEEL -> 1.5;
+            case SEGMENTED -> 2.0;
+            case ERATOS -> 4.0;
+            case ATKIN -> 6.0;
+            case NAIVE -> 1.0;
+            case AUTO -> throw new IllegalArgumentException("AUTO must be resolved to a concrete algorithm first");
+        };
+    }
+
+    /**
+     * Units of work for computing every prime in {@code (fromExclusive, toInclusive]} with {@code algo}:
+     * the width of the range for the sieves; for {@code NAIVE} one per candidate plus one trial division
+     * per prime and base prime below {@code sqrt(toInclusive)}. An empty or inverted range is no work.
+     */
+    public static double work(AlgorithmType algo, long fromExclusive, long toInclusive) {
+        long width = Math.max(0, toInclusive - Math.max(fromExclusive, 1));
+        if (algo != AlgorithmType.NAIVE || width == 0) return width;
+        return width + estimatePrimeCount(fromExclusive, toInclusive)
+                * estimatePrimeCount(0, (long) Math.sqrt(toInclusive));
+    }
+
+    /** Slight over-estimate of the primes in {@code (fromExclusive, toInclusive]}, from the prime number theorem. */
+    public static double estimatePrimeCount(long fromExclusive, long toInclusive) {
+        if (toInclusive < 2 || toInclusive <= fromExclusive) return 0;
+        double logTo = Math.log(Math.max(toInclusive, 3));
+        return fromExclusive < 1_000
+                ? 1.26 * toInclusive / logTo
+                : 1.2 * (toInclusive - fromExclusive) / Math.log(fromExclusive);
+    }
+
+    /**
+     * Estimated nanoseconds for {@code algo} to compute every prime in {@code (fromExclusive, toInclusive]}.
+     */
+    public double estimateNanos(AlgorithmType algo, long fromExclusive, long toInclusive, boolean parallel) {
+        return fits.get(index(algo, parallel)).estimate(work(algo, fromExclusive, toInclusive));
+    }
+
+    /**
+     * Whether {@code algo} is expected to compute {@code (fromExclusive, toInclusive]} faster by splitting it
+     * across the executor. A range that fits in a single leaf never is.
+     */
+    public boolean shouldParallelize(AlgorithmType algo, long fromExclusive, long toInclusive) {
+        long width = toInclusive - fromExclusive;
+        if (pinnedParallelThreshold > 0) return width > pinnedParallelThreshold;
+        if (width <= 2L * PrimesExecutorService.MIN_LEAF_WIDTH) return false;
+        return estimateNanos(algo, fromExclusive, toInclusive, true) < estimateNanos(algo, fromExclusive, toInclusive, false);
+    }
+
+    /**
+     * The limit above which {@code algo} is computed in parallel, or {@link #NEVER}.
+     */
+    public int parallelThreshold(AlgorithmType algo) {
+        if (pinnedParallelThreshold > 0) return pinnedParallelThreshold;
+        if (!shouldParallelize(algo, 0, Integer.MAX_VALUE)) return NEVER;
+        // the sequential and parallel estimates cross at most once, so the first winning limit can be bisected
+        int low = 2 * PrimesExecutorService.MIN_LEAF_WIDTH;
+        int high = Integer.MAX_VALUE;
+        while (low < high) {
+            int mid = (int) (((long) low + high) >>> 1);
+            if (shouldParallelize(algo, 0, mid)) high = mid;
+            else low = mid + 1;
+        }
+        return low - 1;
+    }
+
+    /**
+     * Picks the algorithm, in the execution mode {@link #shouldParallelize} gives it, expected to compute
+     * every prime in {@code (fromExclusive, toInclusive]} fastest.
+     */
+    public Choice choose(long fromExclusive, long toInclusive) {
+        Choice best = null;
+        double bestNanos = Double.MAX_VALUE;
+        for (AlgorithmType algo : generators.keySet()) {
+            boolean parallel = shouldParallelize(algo, fromExclusive, toInclusive);
+            double nanos = estimateNanos(algo, fromExclusive, toInclusive, parallel);
+            if (nanos < bestNanos) {
+                best = new Choice(algo, parallel);
+                bestNanos = nanos;
+            }
+        }
+        if (best == null) throw new IllegalStateException("no prime generators registered");
+        return best;
+    }
+
+    /**
+     * Feeds a measured duration back into the rate of the mode that produced it.
+     *
+     * @param nanos wall-clock time it took {@code algo} to compute every prime in {@code (fromExclusive, toInclusive]}
+     */
+    public void observe(AlgorithmType algo, long fromExclusive, long toInclusive, boolean parallel, long nanos) {
+        if (nanos < MIN_OBSERVED_NANOS || !generators.containsKey(algo)) return;
+        double work = work(algo, fromExclusive, toInclusive);
+        if (work <= 0) return;
+
+        fits.getAndUpdate(index(algo, parallel), fit -> {
+            double variable = nanos - fit.overheadNanos();
+            if (variable <= 0) return fit;
+            double sample = variable / work;
+            return new Fit(fit.nanosPerUnit() + SMOOTHING * (sample - fit.nanosPerUnit()), fit.overheadNanos());
+        });
+        observations.incrementAndGet(algo.ordinal());
+    }
+
+    /**
+     * Current fits, break-even point and startup samples of every algorithm.
+     */
+    public List<Curve> curves() {
+        Map<AlgorithmType, List<Sample>> measured = samples;
+        List<Curve> curves = new ArrayList<>(generators.size());
+        for (AlgorithmType algo : generators.keySet()) {
+            curves.add(new Curve(algo, parallelThreshold(algo), fits.get(index(algo, false)), fits.get(index(algo, true)),
+                    observations.get(algo.ordinal()), measured.getOrDefault(algo, List.of())));
+        }
+        return curves;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Calibrates once the application is ready, on a background thread of its own, so startup and test
+     * contexts do not wait for it. Until it finishes, the model answers from the default rates.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    void calibrateInBackground() {
+        if (!calibrateOnStartup) return;
+        var calibration = new Thread(() -> {
+            try {
+                calibrate();
+            } catch (RuntimeException e) {
+                log.warn("Cost model calibration failed, keeping the current rates", e);
+            }
+        }, "cost-model-calibration");
+        calibration.setDaemon(true);
+        calibration.start();
+    }
+
+    /**
+     * Times every generator at each of {@link #CALIBRATION_LIMITS} - sequentially and, with more than one
+     * worker, through {@link PrimesExecutorService#computeAsync} - and fits both modes to the curve. With a
+     * single worker the parallel path can only add overhead, so it is modelled as such.
+     */
+    public void calibrate() {
+        long start = System.nanoTime();
+        int largest = CALIBRATION_LIMITS[CALIBRATION_LIMITS.length - 1];
+        Map<AlgorithmType, List<Sample>> measured = new EnumMap<>(AlgorithmType.class);
+
+        for (var entry : generators.entrySet()) {
+            AlgorithmType algo = entry.getKey();
+            PrimesGenerator generator = entry.getValue();
+            generator.determinePrimes(largest); // warm-up
+
+            List<Sample> curve = new ArrayList<>(CALIBRATION_LIMITS.length);
+            for (int limit : CALIBRATION_LIMITS) {
+                long sequential = bestOf(3, () -> generator.determinePrimes(limit));
+                long parallel = parallelism > 1 ? bestOf(3, () -> primesExecutorService.computeAsync(limit, generator)) : -1;
+                curve.add(new Sample(limit, sequential, parallel));
+            }
+            measured.put(algo, List.copyOf(curve));
+
+            Fit sequential = fit(algo, curve, false);
+            fits.set(index(algo, false), sequential);
+            fits.set(index(algo, true), parallelism > 1 ? fit(algo, curve, true)
+                    : new Fit(sequential.nanosPerUnit(), sequential.overheadNanos() + DEFAULT_PARALLEL_OVERHEAD_NANOS));
+        }
+        samples = measured;
+        log.info("Cost model calibrated in {} ms on {} worker(s): {}",
+                (System.nanoTime() - start) / 1_000_000, parallelism, describe());
+    }
+
+    /** Least-squares line through one mode's samples; a line through the origin if the slope comes out flat. */
+    static Fit fit(AlgorithmType algo, List<Sample> curve, boolean parallel) {
+        int n = curve.size();
+        double sumX = 0, sumY = 0, sumXX = 0, sumXY = 0, lastX = 0, lastY = 0;
+        for (Sample sample : curve) {
+            lastX = work(algo, 0, sample.limit());
+            lastY = parallel ? sample.parallelNanos() : sample.sequentialNanos();
+            sumX += lastX;
+            sumY += lastY;
+            sumXX += lastX * lastX;
+            sumXY += lastX * lastY;
+        }
+        double denominator = n * sumXX - sumX * sumX;
+        double slope = denominator == 0 ? 0 : (n * sumXY - sumX * sumY) / denominator;
+        if (slope <= 0) return new Fit(lastY / Math.max(lastX, 1), 0);
+        return new Fit(slope, Math.max(0, (sumY - slope * sumX) / n));
+    }
+
+    private String describe() {
+        StringBuilder out = new StringBuilder();
+        for (Curve curve : curves()) {
+            out.append(String.format("%s=%.2f/%.2f ns per unit, parallel above %s; ", curve.algorithm(),
+                    curve.sequential().nanosPerUnit(), curve.parallel().nanosPerUnit(),
+                    curve.parallelThreshold() == NEVER ? "never" : curve.parallelThreshold()));
+        }
+        return out.toString();
+    }
+
+    double rate(AlgorithmType algo, boolean parallel) {
+        return fits.get(index(algo, parallel)).nanosPerUnit();
+    }
+
+    private static int index(AlgorithmType algo, boolean parallel) {
+        return algo.ordinal() * 2 + (parallel ? 1 : 0);
+    }
+
+    private static long bestOf(int runs, Runnable task) {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < runs; i++) {
+            long start = System.nanoTime();
+            task.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+}
@@ -0,0 +1,117 @@
+package com.gouwsf.primenumbers.service.impl;
+
+import com.gouwsf.primenumbers.algorithms.PrimeSequence;
+import com.gouwsf.primenumbers.algorithms.impl.MillerRabin;
+import com.gouwsf.primenumbers.model.PrimalityResponse;
+import com.gouwsf.primenumbers.service.PrimalityService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Default implementation of {@link PrimalityService}.
+ * <p>
+ * Before testing, the current contents of the shared {@link PrimeStore} are taken once; numbers
+ * they cover are answered by binary search, everything else by {@link MillerRabin}.
+ * Batches larger than {@link #CHUNK_SIZE} are split into chunks tested concurrently as one job of the
+ * {@link SizeAwareScheduler}, so a large batch takes its turn for cores with the leaves of prime requests.
+ * Every batch, even a single chunk, is tested there: the calling thread only validates it. A batch is
+ * admitted through {@link AdmissionControl} before its chunks are scheduled and holds its permit until the
+ * last one is done.
+ */
+@Service
+@RequiredArgsConstructor
+public class PrimalityServiceImpl implements PrimalityService {
+
+    /** Numbers tested per task - large enough that scheduling overhead stays negligible. */
+    static final int CHUNK_SIZE = 8_192;
+    /** Scheduler work of testing one number - a Miller-Rabin test costs about as much as sieving this many numbers. */
+    static final long WORK_PER_NUMBER = 1_000;
+
+    private final MillerRabin millerRabin;
+    private final SizeAwareScheduler scheduler;
+    private final PrimeStore primeStore;
+    private final AdmissionControl admissionControl;
+
+    @Override
+    public CompletableFuture<PrimalityResponse> testPrimalityAsync(List<Long> numbers) {
+        long start = System.nanoTime();
+
+        final long[] values = new long[numbers.size()];
+        for (int i = 0; i < values.length; i++) {
+            Long number = numbers.get(i);
+            if (number == null) throw new IllegalArgumentException("numbers must not contain null");
+            values[i] = number;
+        }
+
+        return admissionControl.admit(AdmissionControl.estimatePrimality(values.length))
+                .thenCompose(permit -> test(values, start).whenComplete((response, failure) -> permit.close()));
+    }
+
+    /** Tests {@code values} as one scheduler job; completed by the thread that finishes the last chunk. */
+    private CompletableFuture<PrimalityResponse> test(long[] values, long start) {
+        final PrimeSequence cached = primeStore.snapshot();
+        final boolean[] results = new boolean[values.length];
+        final int chunks = (values.length + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        final int[] cacheHits = new int[chunks];
+
+        var job = scheduler.open(values.length * WORK_PER_NUMBER);
+        CompletableFuture<?>[] futures = new CompletableFuture[chunks];
+        try {
+            for (int c = 0; c < chunks; c++) {
+                final int chunk = c;
+                final int from = c * CHUNK_SIZE;
+                final int to = Math.min(values.length, from + CHUNK_SIZE);
+                futures[c] = job.submit((to - from) * WORK_PER_NUMBER,
+                        () -> cacheHits[chunk] = testChunk(values, from, to, cached, results));
+            }
+        } catch (RuntimeException | Error e) {
+            job.close();
+            throw e;
+        }
+        return CompletableFuture.allOf(futures)
+                .whenComplete((done, failure) -> job.close())
+                .thenApply(done -> toResponse(results, cacheHits, start));
+    }
+
+    private static PrimalityResponse toResponse(boolean[] results, int[] cacheHits, long start) {
+        List<Boolean> flags = new ArrayList<>(results.length);
+        int primes = 0;
+        for (boolean prime : results) {
+            flags.add(prime);
+            if (prime) primes++;
+        }
+        int hits = 0;
+        for (int h : cacheHits) hits += h;
+
+        long end = System.nanoTime();
+        return new PrimalityResponse.Builder()
+                .results(flags)
+                .numberOfPrimes(primes)
+                .cacheHits(hits)
+                .algorithmUsed(MillerRabin.ALGORITHM_NAME)
+                .durationMillis((end - start) / 1_000_000)
+                .build();
+    }
+
+    /**
+     * Tests {@code values[from, to)} into {@code results} and returns how many were answered from {@code cached}.
+     */
+    private int testChunk(long[] values, int from, int to, PrimeSequence cached, boolean[] results) {
+        final long covered = cached.isEmpty() ? 0 : cached.getInt(cached.size() - 1);
+        int hits = 0;
+        for (int i = from; i < to; i++) {
+            final long n = values[i];
+            if (n >= 2 && n <= covered) {
+                results[i] = cached.binarySearch((int) n) >= 0;
+                hits++;
+            } else {
+                results[i] = millerRabin.isPrime(n);
+            }
+        }
+        return hits;
+    }
+}
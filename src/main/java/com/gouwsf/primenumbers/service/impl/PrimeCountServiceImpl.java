@@ -0,0 +1,68 @@
+package com.gouwsf.primenumbers.service.impl;
+
+import com.gouwsf.primenumbers.algorithms.impl.LucyPrimeCounter;
+import com.gouwsf.primenumbers.model.PrimeCountResponse;
+import com.gouwsf.primenumbers.service.PrimeCountService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Default implementation of {@link PrimeCountService}.
+ * <p>
+ * Counts are computed with {@link LucyPrimeCounter} rather than by generating the primes, so
+ * limits far beyond the list endpoints' cap can be answered from a few MB of memory. A count is admitted
+ * through {@link AdmissionControl} and runs as a one-task job of the {@link SizeAwareScheduler}, so it
+ * neither holds the request thread nor takes a core outside the scheduler's slots. Counts are cached per
+ * limit; the cache holds the completed result, so a cached count needs no admission.
+ */
+@Service
+@RequiredArgsConstructor
+public class PrimeCountServiceImpl implements PrimeCountService {
+
+    private final LucyPrimeCounter primeCounter;
+    private final SizeAwareScheduler scheduler;
+    private final AdmissionControl admissionControl;
+
+    @Override
+    @Cacheable(cacheNames = "primeCountByLimit", key = "#limit")
+    public CompletableFuture<PrimeCountResponse> countPrimesAsync(long limit) {
+        return admissionControl.admit(AdmissionControl.estimateCount(limit)).thenCompose(permit -> {
+            long work = work(limit);
+            var job = scheduler.open(work);
+            CompletableFuture<PrimeCountResponse> result;
+            try {
+                result = job.submit(work, () -> {
+                    long start = System.nanoTime();
+                    long count = primeCounter.countPrimes(limit);
+                    long end = System.nanoTime();
+
+                    return new PrimeCountResponse.Builder()
+                            .limit(limit)
+                            .numberOfPrimes(count)
+                            .algorithmUsed(LucyPrimeCounter.ALGORITHM_NAME)
+                            .durationMillis((end - start) / 1_000_000)
+                            .build();
+                });
+            } catch (RuntimeException | Error e) {
+                job.close();
+                permit.close();
+                throw e;
+            }
+            return result.whenComplete((response, failure) -> {
+                job.close();
+                permit.close();
+            });
+        });
+    }
+
+    /**
+     * Scheduler work of counting to {@code limit}, in numbers: Lucy's algorithm takes about {@code limit^(3/4)}
+     * steps, which costs roughly as much as sieving that many numbers.
+     */
+    static long work(long limit) {
+        return limit < 2 ? 0 : (long) Math.pow(limit, 0.75);
+    }
+}
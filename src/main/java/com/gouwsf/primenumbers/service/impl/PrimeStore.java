@@ -0,0 +1,306 @@
+package com.gouwsf.primenumbers.service.impl;
+
+import com.gouwsf.primenumbers.algorithms.PrimeSequence;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Single, algorithm-agnostic table of every prime from 2 up to a growing high-water mark.
+ * <p>
+ * Every algorithm produces the same primes, so one table serves all of them. A limit at or below
+ * the high-water mark is answered by a binary search and a prefix slice of the table - no copy, no
+ * recomputation. A limit above it extends the table by sieving only {@code (highWater, limit]}.
+ * Memory therefore grows with the largest limit served rather than with the number of distinct limits.
+ * <p>
+ * Reads are lock-free: the table and its high-water mark are published together through a volatile
+ * snapshot. Extensions are serialised, which also coalesces concurrent misses: a request waiting for
+ * an extension that covers its limit is answered by slicing, and a larger one only sieves the rest.
+ * Primes are only ever appended past the published size, so slices handed out earlier stay valid.
+ * <p>
+ * When {@code config.prime-store.file} is set the table is persisted: each extension is appended to
+ * the file, and the table is served from a read-only memory mapping of it rather than from the heap.
+ * On startup an existing file is mapped straight away, so a restarted node answers every limit up to
+ * the previous high-water mark without sieving. The file is a {@value #HEADER_BYTES}-byte header
+ * (magic, version, high-water mark, prime count) followed by the primes as big-endian {@code int}s.
+ * The primes are forced to disk before the header that counts them is written and forced in turn, so a
+ * crash mid-append leaves the previous header, and the partial append is ignored on the next load.
+ * The file is held under an exclusive lock while open; a second process (or store) pointed at the same
+ * file does not share it and runs in memory only.
+ * <p>
+ * The table only grows up to {@code config.prime-store.max-limit}; limits above it are not served from here.
+ */
+@Slf4j
+@Component
+public class PrimeStore {
+
+    /** Default for the largest limit kept in the table - about 8.1 million primes, ~33 MB. */
+    public static final int MAX_LIMIT = 150_000_000;
+
+    static final int MAGIC = 0x50524D53; // "PRMS"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 16;
+    private static final int WRITE_CHUNK_BYTES = 64 * 1024;
+
+    /** Sieves the primes in {@code (fromExclusive, toInclusive]}. */
+    @FunctionalInterface
+    public interface RangeSieve {
+        PrimeSequence primesIn(int fromExclusive, int toInclusive);
+    }
+
+    /** Starts sieving the primes in {@code (fromExclusive, toInclusive]}; the future completes with them. */
+    @FunctionalInterface
+    public interface AsyncRangeSieve {
+        CompletableFuture<PrimeSequence> primesIn(int fromExclusive, int toInclusive);
+    }
+
+    private record Snapshot(PrimeSequence primes, int highWater) {}
+
+    private final int maxLimit;
+
+    private volatile Snapshot snapshot = new Snapshot(PrimeSequence.empty(), 1);
+
+    // guarded by this - the latest extension; the next one starts from whatever it leaves behind
+    private CompletableFuture<Snapshot> extending = CompletableFuture.completedFuture(null);
+
+    // guarded by this - only touched while extending
+    private FileChannel file;
+    private int[] buffer = new int[0];
+    private int bufferSize;
+
+    /** In-memory table up to {@link #MAX_LIMIT}, never persisted. */
+    public PrimeStore() {
+        this(null, MAX_LIMIT);
+    }
+
+    /**
+     * Table persisted to {@code file}, or in-memory only when {@code file} is blank.
+     * An existing, valid file is mapped immediately.
+     *
+     * @param maxLimit largest limit the table grows to; {@code 0} keeps it empty
+     */
+    @Autowired
+    public PrimeStore(@Value("${config.prime-store.file:}") String file,
+                      @Value("${config.prime-store.max-limit:150000000}") int maxLimit) {
+        this.maxLimit = Math.max(0, maxLimit);
+        if (file != null && !file.isBlank()) {
+            open(Path.of(file));
+        }
+    }
+
+    /**
+     * Returns every prime ≤ {@code limit}, extending the table with {@code sieve} first if needed.
+     *
+     * @param limit upper bound (inclusive), at most {@link #maxLimit()}
+     * @param sieve sieves the missing range when {@code limit} is above the high-water mark
+     * @throws IllegalArgumentException if {@code limit} exceeds {@link #maxLimit()}
+     */
+    public PrimeSequence primesUpTo(int limit, RangeSieve sieve) {
+        try {
+            return primesUpToAsync(limit, (from, to) -> CompletableFuture.completedFuture(sieve.primesIn(from, to))).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            if (e.getCause() instanceof Error cause) throw cause;
+            throw e;
+        }
+    }
+
+    /**
+     * Non-blocking form of {@link #primesUpTo}: a limit within the table completes at once, a higher one once
+     * the table has been extended to it. Extensions still run one after another - each starts when the previous
+     * one is done, without a thread waiting for it - so concurrent misses are coalesced as before.
+     *
+     * @param limit upper bound (inclusive), at most {@link #maxLimit()}
+     * @param sieve starts sieving the missing range when {@code limit} is above the high-water mark
+     * @throws IllegalArgumentException if {@code limit} exceeds {@link #maxLimit()}
+     */
+    public CompletableFuture<PrimeSequence> primesUpToAsync(int limit, AsyncRangeSieve sieve) {
+        if (limit > maxLimit) {
+            throw new IllegalArgumentException("limit must not exceed " + maxLimit);
+        }
+        Snapshot current = snapshot;
+        if (limit <= current.highWater()) {
+            return CompletableFuture.completedFuture(current.primes().upTo(limit));
+        }
+        CompletableFuture<Snapshot> extended;
+        synchronized (this) {
+            // a failed extension leaves the table as it was, so the next one starts from the published snapshot
+            extended = extending.handle((previous, failure) -> snapshot)
+                    .thenCompose(latest -> limit <= latest.highWater() // another request got here first
+                            ? CompletableFuture.completedFuture(latest)
+                            : sieve.primesIn(latest.highWater(), limit).thenApply(added -> append(latest, added, limit)));
+            extending = extended;
+        }
+        return extended.thenApply(table -> table.primes().upTo(limit));
+    }
+
+    /**
+     * Returns every prime currently in the table, without extending it.
+     */
+    public PrimeSequence snapshot() {
+        return snapshot.primes();
+    }
+
+    /**
+     * Returns the largest limit the table currently answers without sieving.
+     */
+    public int highWater() {
+        return snapshot.highWater();
+    }
+
+    /**
+     * Returns the largest limit the table may grow to.
+     */
+    public int maxLimit() {
+        return maxLimit;
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (file == null) return;
+        try {
+            file.close();
+        } catch (IOException e) {
+            log.warn("Failed to close prime store file", e);
+        }
+        file = null;
+    }
+
+    private synchronized Snapshot append(Snapshot current, PrimeSequence added, int limit) {
+        PrimeSequence primes = file != null
+                ? appendToFile(current.primes(), added, limit)
+                : appendToHeap(current.primes(), added);
+
+        Snapshot extended = new Snapshot(primes, limit);
+        snapshot = extended;
+        return extended;
+    }
+
+    private PrimeSequence appendToHeap(PrimeSequence current, PrimeSequence added) {
+        int size = current.size();
+        int needed = size + added.size();
+        if (bufferSize != size) {
+            // the table was file-backed until now - bring it onto the heap once
+            buffer = new int[needed];
+            current.copyTo(buffer, 0);
+        } else if (needed > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(needed, buffer.length + (buffer.length >> 1)));
+        }
+        added.copyTo(buffer, size);
+        bufferSize = needed;
+        return PrimeSequence.wrap(buffer, needed);
+    }
+
+    private PrimeSequence appendToFile(PrimeSequence current, PrimeSequence added, int highWater) {
+        int count = current.size() + added.size();
+        try {
+            // stream the new primes out in small chunks rather than building one large heap buffer
+            ByteBuffer chunk = ByteBuffer.allocate(WRITE_CHUNK_BYTES);
+            long position = HEADER_BYTES + (long) current.size() * Integer.BYTES;
+            for (int i = 0; i < added.size(); i++) {
+                chunk.putInt(added.getInt(i));
+                if (!chunk.hasRemaining()) {
+                    position = writeFully(chunk.flip(), position);
+                    chunk.clear();
+                }
+            }
+            writeFully(chunk.flip(), position);
+            // the primes must be durable before a header that counts them can be
+            file.force(false);
+            writeFully(header(highWater, count), 0);
+            file.force(false);
+            return map(count);
+        } catch (IOException e) {
+            log.warn("Prime store file failed, continuing in memory only", e);
+            close();
+            return appendToHeap(current, added);
+        }
+    }
+
+    private void open(Path path) {
+        try {
+            if (path.getParent() != null) Files.createDirectories(path.getParent());
+            file = FileChannel.open(path, READ, WRITE, CREATE);
+            if (!lock(file)) {
+                log.warn("Prime store file {} is in use by another process, continuing in memory only", path);
+                close();
+                return;
+            }
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            if (file.read(header, 0) == HEADER_BYTES && isValid(header.flip())) {
+                int highWater = header.getInt(8);
+                int count = header.getInt(12);
+                snapshot = new Snapshot(map(count), highWater);
+                log.info("Mapped {} primes up to {} from {}", count, highWater, path);
+            } else {
+                file.truncate(0);
+                writeFully(header(1, 0), 0);
+            }
+        } catch (IOException e) {
+            log.warn("Cannot use prime store file {}, continuing in memory only", path, e);
+            close();
+        }
+    }
+
+    /** Takes an exclusive lock on the whole file, held until the channel is closed. */
+    private static boolean lock(FileChannel channel) throws IOException {
+        try {
+            FileLock lock = channel.tryLock();
+            return lock != null;
+        } catch (OverlappingFileLockException e) {
+            // another store in this JVM holds it
+            return false;
+        }
+    }
+
+    private boolean isValid(ByteBuffer header) throws IOException {
+        int highWater = header.getInt(8);
+        int count = header.getInt(12);
+        return header.getInt(0) == MAGIC
+                && header.getInt(4) == VERSION
+                && highWater >= 1 && highWater <= Math.max(1, maxLimit)
+                && count >= 0 && count <= highWater
+                && file.size() >= HEADER_BYTES + (long) count * Integer.BYTES;
+    }
+
+    private PrimeSequence map(int count) throws IOException {
+        if (count == 0) return PrimeSequence.empty();
+        return PrimeSequence.wrap(file.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES, (long) count * Integer.BYTES)
+                .asIntBuffer());
+    }
+
+    private static ByteBuffer header(int highWater, int count) {
+        return ByteBuffer.allocate(HEADER_BYTES)
+                .putInt(MAGIC)
+                .putInt(VERSION)
+                .putInt(highWater)
+                .putInt(count)
+                .flip();
+    }
+
+    /** Writes all of {@code bytes} at {@code position} and returns the position just past them. */
+    private long writeFully(ByteBuffer bytes, long position) throws IOException {
+        while (bytes.hasRemaining()) {
+            position += file.write(bytes, position);
+        }
+        return position;
+    }
+}
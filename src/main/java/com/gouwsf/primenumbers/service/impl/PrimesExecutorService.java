@@ -1,74 +1,278 @@
 package com.gouwsf.primenumbers.service.impl;
 
+import com.gouwsf.primenumbers.algorithms.PrimeSequence;
 import com.gouwsf.primenumbers.algorithms.PrimesGenerator;
+import com.gouwsf.primenumbers.algorithms.impl.LongSegmentedSieve;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
+/**
+ * Runs prime generators concurrently on the shared {@link ForkJoinPool}.
+ * <p>
+ * {@link #computeAsync} (or {@link #submit}, without blocking the caller) cuts the range into leaves sized
+ * from the per-core cache and the pool's parallelism; idle workers pick up the next leaf, so uneven ranges
+ * still balance across cores.
+ * Leaf results are merged with a prefix sum of their counts into one preallocated array, each leaf
+ * copying into its own slot in parallel - also as scheduler tasks. {@link #computeOrdered} streams fixed-width segments in
+ * order instead. Leaves and segments of all requests go through the {@link SizeAwareScheduler}, so a
+ * small request is not stuck behind every leaf of a large one.
+ * <p>
+ * Leaves are cut up front rather than split recursively with fork-join tasks: a forked half would be
+ * pushed onto a worker's deque and stolen from there, outside the scheduler's one-task-per-core slots and
+ * its shortest-remaining-work order. The scheduler's shared queue gives the same balancing - a core that
+ * frees up takes the next leaf.
+ */
 @Service
 @RequiredArgsConstructor
 public class PrimesExecutorService {
 
-    private static final int MAX_SEGMENTS = 10;
-    private final ExecutorService executor;
+    /** Smallest leaf worth a task of its own - below this, task overhead outweighs the sieving. */
+    static final int MIN_LEAF_WIDTH = 1 << 15;
+    /** Width of each segment when streaming - keeps a segment's result around 1 MB. */
+    private static final int STREAM_SEGMENT_SIZE = 1 << 22;
+    private final ForkJoinPool executor;
+    private final SizeAwareScheduler scheduler;
+
+    /** Per-core cache budget for one leaf's sieve, in bytes - scaled by each generator's bytes per number. */
+    @Value("${config.executor.cache-bytes:1048576}")
+    private int cacheBytes = 1 << 20;
 
 
     /**
-     * Asynchronously computes all primes ≤ limit using at most MAX_SEGMENTS segments.
+     * Computes all primes ≤ limit concurrently.
      * Start with basePrimes up to square root of limit.
      *
-     * @param limit upper bound limit - inclusivea
+     * @param limit upper bound limit - inclusive
      * @param generator chosen primes generator (based on per implementation basis)
      */
-    public List<Integer> computeAsync(int limit, PrimesGenerator generator) {
-        if (limit < 2) return List.of();
+    public PrimeSequence computeAsync(int limit, PrimesGenerator generator) {
+        return computeAsync(1, limit, generator);
+    }
 
-        // Compute base primes - only need to go to sqrt(limit)
-        int root = (int) Math.floor(Math.sqrt(limit));
+    /**
+     * Computes all primes in (fromExclusive, toInclusive] concurrently, splitting the range
+     * into cache-sized leaves. Only base primes up to the square root of toInclusive are computed up
+     * front; nothing below the range is sieved.
+     *
+     * @param fromExclusive lower bound - exclusive
+     * @param toInclusive upper bound - inclusive
+     * @param generator chosen primes generator (based on per implementation basis)
+     */
+    public PrimeSequence computeAsync(int fromExclusive, int toInclusive, PrimesGenerator generator) {
+        return join(submit(fromExclusive, toInclusive, generator));
+    }
+
+    /**
+     * Non-blocking form of {@link #computeAsync(int, int, PrimesGenerator)}: computes the base primes on the
+     * calling thread, schedules the leaves and returns at once. The merge runs on the pool once the last leaf
+     * is done, and the returned future completes with the merged primes - no thread waits in between.
+     *
+     * @param fromExclusive lower bound - exclusive
+     * @param toInclusive upper bound - inclusive
+     * @param generator chosen primes generator (based on per implementation basis)
+     */
+    public CompletableFuture<PrimeSequence> submit(int fromExclusive, int toInclusive, PrimesGenerator generator) {
+        final int low = Math.max(fromExclusive + 1, 2);
+        if (toInclusive < low) return CompletableFuture.completedFuture(PrimeSequence.empty());
+
+        var trace = RequestTrace.current();
+        // Compute base primes - only need to go to sqrt(toInclusive)
+        long basePrimesStart = System.nanoTime();
+        int root = (int) Math.floor(Math.sqrt(toInclusive));
         var basePrimes = generator.determinePrimes(root);
+        if (trace != null) trace.addBasePrimes(System.nanoTime() - basePrimesStart);
 
-        // build segments
-        List<Segment> segments = buildSegments(2, limit, MAX_SEGMENTS);
-
-        // wrap generator function inside completable future
-        CompletableFuture<List<Integer>>[] futures = new CompletableFuture[segments.size()];
-        int i = 0;
-        for (Segment segment: segments) {
-//            var tmp = generator.determinePrimes(segment.low() - 1, segment.hi(), basePrimes);
-            futures[i] = CompletableFuture.supplyAsync(
-                    () -> generator.determinePrimes(segment.low() - 1, segment.hi(), basePrimes),
-                    executor
-            );
-            i++;
+        long width = (long) toInclusive - low + 1;
+        int leafWidth = leafWidth(width, executor.getParallelism(), generator.sieveBytesPerNumber());
+        int leaves = (int) ((width + leafWidth - 1) / leafWidth);
+
+        // phase 1: sieve every leaf, scheduled against the leaves of every other request
+        var job = scheduler.open(width);
+        CompletableFuture<PrimeSequence>[] sieved = newFutures(leaves);
+        try {
+            for (int i = 0; i < leaves; i++) {
+                long leafLow = low + (long) i * leafWidth;
+                int leafHigh = (int) Math.min(leafLow + leafWidth - 1, toInclusive);
+                sieved[i] = job.submit(leafHigh - leafLow + 1,
+                        () -> generator.determinePrimes((int) leafLow - 1, leafHigh, basePrimes));
+            }
+        } catch (RuntimeException | Error e) {
+            job.close();
+            throw e;
+        }
+
+        // phase 2: prefix-sum the counts, then copy every leaf into its slot of one exact-size array
+        return CompletableFuture.allOf(sieved)
+                .whenComplete((done, failure) -> job.close())
+                .thenCompose(done -> merge(sieved, trace));
+    }
+
+    /**
+     * Merges the sieved leaves in order. The copies run as a scheduler job of their own, one task per leaf
+     * sized by the primes it copies, so a large merge waits for free slots like any leaf instead of taking
+     * pool threads that other requests' leaves are queued for.
+     */
+    private CompletableFuture<PrimeSequence> merge(CompletableFuture<PrimeSequence>[] sieved, RequestTrace trace) {
+        long mergeStart = System.nanoTime();
+        int leaves = sieved.length;
+        PrimeSequence[] parts = new PrimeSequence[leaves];
+        int[] offsets = new int[leaves + 1];
+        for (int i = 0; i < leaves; i++) {
+            parts[i] = sieved[i].join();
+            long end = (long) offsets[i] + parts[i].size();
+            if (end > Integer.MAX_VALUE - 8) throw new IllegalArgumentException("too many primes: " + end);
+            offsets[i + 1] = (int) end;
         }
+        int[] out = new int[offsets[leaves]];
 
+        // the merge may run on the request's own thread if every leaf finished early - it is not one of its leaves
+        var job = scheduler.openUntraced(out.length);
+        CompletableFuture<?>[] copied = new CompletableFuture[leaves];
+        try {
+            for (int i = 0; i < leaves; i++) {
+                var part = parts[i];
+                int offset = offsets[i];
+                copied[i] = job.submit(part.size(), () -> {
+                    part.copyTo(out, offset);
+                    return null;
+                });
+            }
+        } catch (RuntimeException | Error e) {
+            job.close();
+            throw e;
+        }
+        return CompletableFuture.allOf(copied)
+                .whenComplete((done, failure) -> job.close())
+                .thenApply(done -> {
+                    if (trace != null) trace.addMerge(System.nanoTime() - mergeStart);
+                    return PrimeSequence.wrap(out, out.length);
+                });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static CompletableFuture<PrimeSequence>[] newFutures(int size) {
+        return new CompletableFuture[size];
+    }
 
-        return Stream.of(futures)
-                .map(CompletableFuture::join)
-                .flatMap(List::stream)
-                .collect(Collectors.toList());
+    /**
+     * Leaf width for a range: one leaf per worker when its sieve fits the cache budget, otherwise as many
+     * cache-sized leaves as needed - never narrower than {@link #MIN_LEAF_WIDTH}. A generator without a
+     * sieve ({@code bytesPerNumber} 0) is only split by parallelism.
+     */
+    int leafWidth(long width, int parallelism, double bytesPerNumber) {
+        long perWorker = (width + parallelism - 1) / parallelism;
+        long cacheWidth = bytesPerNumber > 0 ? (long) (cacheBytes / bytesPerNumber) : Integer.MAX_VALUE;
+        return (int) Math.max(MIN_LEAF_WIDTH, Math.min(perWorker, cacheWidth));
+    }
+
+    /**
+     * Computes all primes ≤ limit segment by segment and hands each segment's primes to {@code sink}
+     * in ascending order, as soon as that segment and every segment before it are done.
+     * <p>
+     * At most one segment per available core is in flight at a time, so peak heap is bounded by
+     * the segment size rather than by the limit. {@code sink} is called on the caller's thread.
+     *
+     * @param limit upper bound limit - inclusive
+     * @param generator chosen primes generator (based on per implementation basis)
+     * @param sink receives each segment's primes, in order
+     */
+    public void computeOrdered(int limit, PrimesGenerator generator, Consumer<PrimeSequence> sink) {
+        if (limit < 2) return;
+
+        int root = (int) Math.floor(Math.sqrt(limit));
+        var basePrimes = generator.determinePrimes(root);
+
+        int segmentCount = (int) ((limit - 1L + STREAM_SEGMENT_SIZE - 1) / STREAM_SEGMENT_SIZE);
+        runOrdered(buildSegments(2, limit, segmentCount),
+                segment -> generator.determinePrimes((int) segment.low() - 1, (int) segment.hi(), basePrimes),
+                sink);
+    }
+
+    /**
+     * {@code long}-addressed counterpart of {@link #computeOrdered(int, PrimesGenerator, Consumer)} for
+     * ranges beyond {@code Integer.MAX_VALUE}: computes the primes in {@code (fromExclusive, toInclusive]}
+     * segment by segment and hands each segment's primes to {@code sink} in ascending order.
+     *
+     * @param fromExclusive lower bound - exclusive
+     * @param toInclusive upper bound - inclusive
+     * @param sieve long-addressed sieve used for every segment
+     * @param sink receives each segment's primes, in order
+     */
+    public void computeOrdered(long fromExclusive, long toInclusive, LongSegmentedSieve sieve, Consumer<long[]> sink) {
+        final long low = Math.max(fromExclusive + 1, 2);
+        if (toInclusive < low) return;
+
+        var basePrimes = sieve.determineBasePrimes(toInclusive);
+
+        int segmentCount = (int) ((toInclusive - low + STREAM_SEGMENT_SIZE) / STREAM_SEGMENT_SIZE);
+        runOrdered(buildSegments(low, toInclusive, segmentCount),
+                segment -> sieve.determinePrimes(segment.low() - 1, segment.hi(), basePrimes),
+                sink);
+    }
+
+    /** Numbers a stream has in flight at most: one segment per available core. */
+    public long streamWindowWidth() {
+        return (long) Math.max(1, executor.getParallelism()) * STREAM_SEGMENT_SIZE;
+    }
+
+    /**
+     * Runs {@code task} for every segment on the executor and hands the results to {@code sink} in segment order.
+     * At most one segment per available core is in flight at a time.
+     */
+    private <T> void runOrdered(List<Segment> segments, Function<Segment, T> task, Consumer<T> sink) {
+        int window = Math.max(1, executor.getParallelism());
+        long work = segments.get(segments.size() - 1).hi() - segments.get(0).low() + 1;
+
+        Deque<CompletableFuture<T>> inFlight = new ArrayDeque<>(window);
+        int next = 0;
+        // closing the job drops queued segments if the sink failed (e.g. client went away)
+        try (var job = scheduler.open(work)) {
+            while (next < segments.size() || !inFlight.isEmpty()) {
+                while (next < segments.size() && inFlight.size() < window) {
+                    Segment segment = segments.get(next++);
+                    inFlight.addLast(job.submit(segment.hi() - segment.low() + 1, () -> task.apply(segment)));
+                }
+                sink.accept(join(inFlight.removeFirst()));
+            }
+        }
+    }
+
+    /** Waits for a scheduled task, rethrowing its failure as if it had run on the caller's thread. */
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            if (e.getCause() instanceof Error cause) throw cause;
+            throw e;
+        }
     }
 
     /**
      * Helper method used to build segments
      */
-    private static List<Segment> buildSegments(int start, int end, int maxSegments) {
+    private static List<Segment> buildSegments(long start, long end, int maxSegments) {
         List<Segment> out = new ArrayList<>(maxSegments);
         long total = (long) end - start + 1;
         int segments = (int) Math.min(maxSegments, Math.max(1, total));
         long baseSize = total / segments;
         long remainder = total % segments;
 
-        int low = start;
+        long low = start;
         for (int i = 0; i < segments; i++) {
             long size = baseSize + (i < remainder ? 1 : 0);
-            int high = (int) (low + size - 1);
+            long high = low + size - 1;
             out.add(new Segment(low, high));
             low = high + 1;
         }
@@ -76,5 +280,5 @@ public class PrimesExecutorService {
     }
 
     /** Helper record for low, high range*/
-    private record Segment(int low, int hi) {}
+    private record Segment(long low, long hi) {}
 }
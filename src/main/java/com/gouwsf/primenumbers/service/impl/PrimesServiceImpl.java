@@ -1,16 +1,28 @@
 package com.gouwsf.primenumbers.service.impl;
 
+import com.gouwsf.primenumbers.algorithms.PrimeSequence;
 import com.gouwsf.primenumbers.algorithms.PrimesGenerator;
+import com.gouwsf.primenumbers.algorithms.impl.LongSegmentedSieve;
 import com.gouwsf.primenumbers.model.AlgorithmType;
+import com.gouwsf.primenumbers.model.PrimeNumberDiagnostics;
 import com.gouwsf.primenumbers.model.PrimeNumberResponse;
+import com.gouwsf.primenumbers.model.SegmentTiming;
+import com.gouwsf.primenumbers.service.AdmittedStream;
 import com.gouwsf.primenumbers.service.PrimesService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.LongConsumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 
@@ -24,54 +36,333 @@ import java.util.stream.Collectors;
  * <p>
  * Each call to {@link #generatePrimes(int, AlgorithmType)} is timed and
  * returns a {@link PrimeNumberResponse} containing the generated primes,
- * the algorithm used, and the execution duration in nanoseconds.
+ * the algorithm used, and the execution duration in milliseconds. Large limits are
+ * answered from the shared {@link PrimeStore}, which only sieves what it does not hold yet; a limit it
+ * already holds is reported with {@code algorithmUsed} {@value #PRIME_STORE_ALGORITHM}.
+ * Concurrent requests for the same or a smaller limit by the same algorithm share one in-flight
+ * computation (see {@link SingleFlightPrimes}). The time the request's leaves spent queued behind other
+ * requests in the {@link SizeAwareScheduler} is reported as {@code queueWaitMillis}.
+ * <p>
+ * Materialised results are computed asynchronously ({@link #generatePrimesAsync}): the calling thread only
+ * asks for admission, the pipeline starts once the request is admitted, and the response is completed by
+ * whichever pool thread finishes the last leaf. A sequential plan is no exception - it runs as a one-task
+ * job of the scheduler, never on the caller. The request's trace and queue-wait sink travel with its
+ * scheduler jobs, not with a thread.
+ * <p>
+ * {@link AlgorithmType#AUTO} is resolved per request by the {@link CostModel} to the generator and execution
+ * mode expected to be fastest; every directly computed result's duration is fed back into the model.
+ * <p>
+ * Every request is admitted through {@link AdmissionControl} first. Materialised results are priced by
+ * the part of them that actually has to be sieved, so limits already in the {@link PrimeStore} cost nothing;
+ * streams by the window of segments they hold at once, and they keep their admission until written.
  */
 @Service
 public class PrimesServiceImpl implements PrimesService {
 
+    /** Widest range served by {@link #generatePrimesInRange} - matches the cap on {@code limit}. */
+    static final int MAX_RANGE_WIDTH = 250_000_000;
+    /** Widest range served by {@link #streamPrimesInRangeAsync} - bounds a single request to a few minutes of sieving. */
+    static final long MAX_LONG_RANGE_WIDTH = 10_000_000_000L;
+    /**
+     * Limits at or below this are always computed by the requested algorithm, so per-algorithm
+     * timings stay meaningful; larger limits are served from the shared {@link PrimeStore}.
+     */
+    static final int PRIME_STORE_MIN_LIMIT = 1_000_000;
+    /** {@code algorithmUsed} of a response served entirely from the {@link PrimeStore}, without sieving. */
+    static final String PRIME_STORE_ALGORITHM = "STORE";
+
     private Map<AlgorithmType, PrimesGenerator> primeGenerators;
     private final PrimesExecutorService primesExecutorService;
-
-    @Value("${config.multi-thread-limit-start:750_000}")
-    private int multiThreadStart;
+    private final LongSegmentedSieve longSegmentedSieve;
+    private final PrimeStore primeStore;
+    private final SingleFlightPrimes singleFlightPrimes;
+    private final AdmissionControl admissionControl;
+    private final CostModel costModel;
+    private final SizeAwareScheduler scheduler;
+    /** {@code primes.compute} timers per algorithm, for the sequential and the parallel mode. */
+    private final Map<AlgorithmType, Timer> sequentialTimers = new EnumMap<>(AlgorithmType.class);
+    private final Map<AlgorithmType, Timer> parallelTimers = new EnumMap<>(AlgorithmType.class);
 
     @Autowired
-    public PrimesServiceImpl(List<PrimesGenerator> algorithms, PrimesExecutorService primesExecutorService) {
+    public PrimesServiceImpl(List<PrimesGenerator> algorithms, PrimesExecutorService primesExecutorService,
+                             LongSegmentedSieve longSegmentedSieve, PrimeStore primeStore,
+                             SingleFlightPrimes singleFlightPrimes, AdmissionControl admissionControl,
+                             CostModel costModel, SizeAwareScheduler scheduler, MeterRegistry meterRegistry) {
         this.primeGenerators = algorithms.stream()
                 .collect(Collectors.toMap(
                         PrimesGenerator::getType,
                         alg -> alg));
         this.primesExecutorService = primesExecutorService;
+        this.longSegmentedSieve = longSegmentedSieve;
+        this.primeStore = primeStore;
+        this.singleFlightPrimes = singleFlightPrimes;
+        this.admissionControl = admissionControl;
+        this.costModel = costModel;
+        this.scheduler = scheduler;
+        for (AlgorithmType algo : primeGenerators.keySet()) {
+            sequentialTimers.put(algo, computeTimer(algo, "sequential", meterRegistry));
+            parallelTimers.put(algo, computeTimer(algo, "parallel", meterRegistry));
+        }
+    }
+
+    private static Timer computeTimer(AlgorithmType algo, String mode, MeterRegistry meterRegistry) {
+        return Timer.builder("primes.compute")
+                .description("Time to compute a list of primes, excluding admission and serialization")
+                .tag("algorithm", algo.name())
+                .tag("mode", mode)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    @Override
+    public PrimeNumberResponse generatePrimes(int limit, AlgorithmType algo, boolean diagnostics) {
+        return await(generatePrimesAsync(limit, algo, diagnostics));
+    }
+
+    @Override
+    public CompletableFuture<PrimeNumberResponse> generatePrimesAsync(int limit, AlgorithmType algo, boolean diagnostics) {
+        if (limit > PRIME_STORE_MIN_LIMIT && limit <= primeStore.maxLimit()) {
+            int highWater = primeStore.highWater();
+            if (limit <= highWater) {
+                // no algorithm runs for a prefix of the table, so none is reported
+                return timedResponseWrapper(PRIME_STORE_ALGORITHM, new AdmissionControl.RequestCost(0, 0), diagnostics,
+                        // the table only grows, so it still holds every prime up to highWater
+                        binding -> CompletableFuture.completedFuture(primeStore.snapshot().upTo(limit)),
+                        nanos -> { });
+            }
+            // only the part above the store's high-water mark is sieved and newly retained
+            var plan = plan(algo, highWater, limit);
+            var cost = AdmissionControl.estimate(plan.generator(), highWater, limit);
+            return timedResponseWrapper(plan.generator().getType().name(), cost, diagnostics,
+                    binding -> primeStore.primesUpToAsync(limit, (from, to) -> binding.run(() -> {
+                        long start = System.nanoTime();
+                        return primesInRange(from, to, plan.generator(), plan.parallel())
+                                .whenComplete((primes, failure) -> {
+                                    if (failure == null) {
+                                        observe(plan.generator().getType(), from, to, plan.parallel(), System.nanoTime() - start);
+                                    }
+                                });
+                    })),
+                    nanos -> { });
+        }
+
+        var plan = plan(algo, 0, limit);
+        var generator = plan.generator();
+        return timedResponseWrapper(generator.getType().name(), AdmissionControl.estimate(generator, 0, limit),
+                diagnostics,
+                binding -> plan.parallel()
+                        ? singleFlightPrimes.primesUpToAsync(generator.getType(), limit,
+                                l -> primesExecutorService.submit(1, l, generator))
+                        : runSequential(limit, () -> generator.determinePrimes(limit)),
+                nanos -> observe(generator.getType(), 0, limit, plan.parallel(), nanos));
+    }
+
+    @Override
+    public PrimeNumberResponse generatePrimesInRange(int from, int to, AlgorithmType algo, boolean diagnostics) {
+        return await(generatePrimesInRangeAsync(from, to, algo, diagnostics));
+    }
+
+    @Override
+    public CompletableFuture<PrimeNumberResponse> generatePrimesInRangeAsync(int from, int to, AlgorithmType algo,
+                                                                            boolean diagnostics) {
+        if (from > to) {
+            throw new IllegalArgumentException("from must not be greater than to");
+        }
+        if ((long) to - from + 1 > MAX_RANGE_WIDTH) {
+            throw new IllegalArgumentException("range must not span more than " + MAX_RANGE_WIDTH + " numbers");
+        }
+
+        var plan = plan(algo, from - 1, to);
+        var generator = plan.generator();
+        return timedResponseWrapper(generator.getType().name(), AdmissionControl.estimate(generator, from - 1L, to),
+                diagnostics,
+                binding -> primesInRange(from - 1, to, generator, plan.parallel()),
+                nanos -> observe(generator.getType(), from - 1, to, plan.parallel(), nanos));
+    }
+
+    @Override
+    public CompletableFuture<AdmittedStream<PrimeSequence>> streamPrimesAsync(int limit, AlgorithmType algo) {
+        var plan = plan(algo, 0, limit);
+        var generator = plan.generator();
+        // a sequential stream holds its whole result at once, a concurrent one only its window of segments
+        var cost = plan.parallel()
+                ? AdmissionControl.estimateStream(generator, 0, limit, primesExecutorService.streamWindowWidth())
+                : AdmissionControl.estimate(generator, 0, limit);
+        return admissionControl.admit(cost).thenApply(permit -> sink -> {
+            try (permit) {
+                if (plan.parallel()) {
+                    primesExecutorService.computeOrdered(limit, generator, sink);
+                } else {
+                    sink.accept(generator.determinePrimes(limit));
+                }
+            }
+        });
     }
 
     @Override
-    @Cacheable( // caching per key as we want duration and algo type as well
-            cacheNames = "primesByAlgoAndLimit",
-            key = "T(java.lang.String).format('%s:%d', #algo.name(), #limit)",
-            condition = "#limit > 1000000 && #limit < 150000000" //1_000_000 && #limit < 150_000_000"
-    )
-    public PrimeNumberResponse generatePrimes(int limit, AlgorithmType algo) {
-        return timedResponseWrapper(primeGenerators.get(algo), limit);
-    }
-
-    private PrimeNumberResponse timedResponseWrapper(PrimesGenerator generator, int limit) {
-        long start, end;
-        List<Integer> result;
-        start = System.nanoTime();
+    public CompletableFuture<AdmittedStream<long[]>> streamPrimesInRangeAsync(long from, long to) {
+        validateLongRange(from, to);
+        // the long-addressed sieve uses the segmented sieve's window and keeps a long per prime, so it is priced alike
+        var cost = AdmissionControl.estimateStream(primeGenerators.get(AlgorithmType.SEGMENTED), from - 1, to,
+                primesExecutorService.streamWindowWidth());
+        return admissionControl.admit(cost).thenApply(permit -> sink -> {
+            try (permit) {
+                primesExecutorService.computeOrdered(from - 1, to, longSegmentedSieve, sink);
+            }
+        });
+    }
+
+    private static void validateLongRange(long from, long to) {
+        if (from > to) {
+            throw new IllegalArgumentException("from must not be greater than to");
+        }
+        if (to > LongSegmentedSieve.MAX_LIMIT) {
+            throw new IllegalArgumentException("to must not exceed " + LongSegmentedSieve.MAX_LIMIT);
+        }
+        if (to - from + 1 > MAX_LONG_RANGE_WIDTH) {
+            throw new IllegalArgumentException("range must not span more than " + MAX_LONG_RANGE_WIDTH + " numbers");
+        }
+    }
+
+    /**
+     * Resolves the generator and execution mode for {@code (fromExclusive, toInclusive]}: {@code AUTO} asks the
+     * {@link CostModel}, a named algorithm runs concurrently once the range is past its measured break-even point.
+     */
+    private Plan plan(AlgorithmType algo, long fromExclusive, long toInclusive) {
+        if (algo == AlgorithmType.AUTO) {
+            var choice = costModel.choose(fromExclusive, toInclusive);
+            return new Plan(primeGenerators.get(choice.algorithm()), choice.parallel());
+        }
+        return new Plan(primeGenerators.get(algo), costModel.shouldParallelize(algo, fromExclusive, toInclusive));
+    }
+
+    /**
+     * Records one computation of {@code (fromExclusive, toInclusive]} in the cost model and in the
+     * {@code primes.compute} timer, tagged by algorithm and execution mode.
+     */
+    private void observe(AlgorithmType algo, long fromExclusive, long toInclusive, boolean parallel, long nanos) {
+        costModel.observe(algo, fromExclusive, toInclusive, parallel, nanos);
+        (parallel ? parallelTimers : sequentialTimers).get(algo).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /** Generator and execution mode chosen for one request. */
+    private record Plan(PrimesGenerator generator, boolean parallel) {}
+
+    /**
+     * Sieves {@code (fromExclusive, toInclusive]} with {@code generator}: concurrently on the pool when
+     * {@code parallel}, otherwise as a single task. Either way only the base primes are computed on the
+     * calling thread.
+     */
+    private CompletableFuture<PrimeSequence> primesInRange(int fromExclusive, int toInclusive, PrimesGenerator generator,
+                                                           boolean parallel) {
+        if (parallel) {
+            return primesExecutorService.submit(fromExclusive, toInclusive, generator);
+        }
+        var trace = RequestTrace.current();
+        long start = System.nanoTime();
+        var basePrimes = generator.determinePrimes((int) Math.sqrt(toInclusive));
+        if (trace != null) trace.addBasePrimes(System.nanoTime() - start);
+        return runSequential((long) toInclusive - fromExclusive,
+                () -> generator.determinePrimes(fromExclusive, toInclusive, basePrimes));
+    }
+
+    /**
+     * Runs a sequential computation of {@code work} numbers as a one-task job of the {@link SizeAwareScheduler}:
+     * it waits for a core in turn with the leaves of every other request, and is a single segment of the
+     * request's trace. The job is closed - reporting its queue wait - before the returned future completes.
+     */
+    private <T> CompletableFuture<T> runSequential(long work, Supplier<T> computation) {
+        var job = scheduler.open(work);
+        CompletableFuture<T> result;
         try {
-            if (limit > multiThreadStart) {
-                result = primesExecutorService.computeAsync(limit, generator);
-            } else {
-                result = generator.determinePrimes(limit);
+            result = job.submit(work, computation);
+        } catch (RuntimeException | Error e) {
+            job.close();
+            throw e;
+        }
+        return result.whenComplete((value, failure) -> job.close());
+    }
+
+    /**
+     * Admits the request, starts {@code computation} and returns a future of the timed response. Neither
+     * admission nor the computation holds the calling thread: the computation starts on whichever thread
+     * admits the request, and the admission permit is released when it completes. A rejection fails the
+     * returned future.
+     */
+    private CompletableFuture<PrimeNumberResponse> timedResponseWrapper(
+            String algorithmUsed, AdmissionControl.RequestCost cost, boolean diagnostics,
+            Function<Binding, CompletableFuture<PrimeSequence>> computation, LongConsumer durationNanos) {
+        var binding = new Binding(diagnostics ? new RequestTrace() : null, new long[1]);
+        long requested = System.nanoTime();
+        return admissionControl.admit(cost).thenCompose(permit -> {
+            // time spent waiting for admission is not part of the algorithm's duration
+            long start = System.nanoTime();
+            CompletableFuture<PrimeSequence> result;
+            try {
+                result = binding.run(() -> computation.apply(binding));
+            } catch (RuntimeException | Error e) {
+                permit.close();
+                throw e;
             }
-        } finally {
-            end = System.nanoTime();
+            return result
+                    .whenComplete((primes, failure) -> permit.close())
+                    .thenApply(primes -> {
+                        long end = System.nanoTime();
+                        durationNanos.accept(end - start);
+                        var response = new PrimeNumberResponse.Builder()
+                                .primes(primes)
+                                .algorithmUsed(algorithmUsed)
+                                .durationMillis((end - start) / 1_000_000)
+                                .queueWaitMillis(binding.queueWait()[0] / 1_000_000)
+                                .numberOfPrimes(primes.size())
+                                .build();
+                        if (binding.trace() != null) {
+                            response.setDiagnostics(toDiagnostics(binding.trace(), start - requested, end - start,
+                                    System.nanoTime() - end));
+                        }
+                        return response;
+                    });
+        });
+    }
+
+    /**
+     * What a request's computation reports into - its trace and its queue wait - so that parts of it started
+     * later, on other threads, can be bound to the same request.
+     */
+    private record Binding(RequestTrace trace, long[] queueWait) {
+
+        <T> T run(Supplier<T> computation) {
+            return RequestTrace.run(trace, () -> SizeAwareScheduler.recordQueueWait(queueWait, computation));
         }
-        return new PrimeNumberResponse.Builder()
-                .primes(result)
-                .algorithmUsed(generator.getType().name())
-                .durationMillis((end - start)/ 1_000_000)
-                .numberOfPrimes(result.size())
+    }
+
+    /** Waits for a response future, rethrowing its failure as if the computation had run on the caller's thread. */
+    private static PrimeNumberResponse await(CompletableFuture<PrimeNumberResponse> response) {
+        try {
+            return response.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            if (e.getCause() instanceof Error cause) throw cause;
+            throw e;
+        }
+    }
+
+    private static PrimeNumberDiagnostics toDiagnostics(RequestTrace trace, long admissionWaitNanos, long computeNanos,
+                                                        long responseBuildNanos) {
+        return new PrimeNumberDiagnostics.Builder()
+                .cacheHit(trace.cacheHit())
+                .admissionWaitNanos(admissionWaitNanos)
+                .computeNanos(computeNanos)
+                .basePrimesNanos(trace.basePrimesNanos())
+                .mergeNanos(trace.mergeNanos())
+                .responseBuildNanos(responseBuildNanos)
+                .segments(trace.segments().stream()
+                        .map(segment -> new SegmentTiming.Builder()
+                                .numbers(segment.numbers())
+                                .queueWaitNanos(segment.queueWaitNanos())
+                                .computeNanos(segment.computeNanos())
+                                .build())
+                        .toList())
                 .build();
     }
 
@@ -0,0 +1,75 @@
+package com.gouwsf.primenumbers.service.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Phase timings of one request, collected only when the client asks for diagnostics.
+ * <p>
+ * The trace is bound to the requesting thread while its computation runs ({@link #run}). Code on that
+ * thread finds it through {@link #current()}; scheduler jobs opened there carry it to their tasks on the
+ * pool, which record their queue wait and compute time as {@link Segment}s. Without a trace every
+ * instrumentation point is a single {@code null} check.
+ */
+public final class RequestTrace {
+
+    /** One leaf or stream segment: numbers sieved, time queued in the scheduler and time computing. */
+    public record Segment(long numbers, long queueWaitNanos, long computeNanos) {}
+
+    private static final ThreadLocal<RequestTrace> CURRENT = new ThreadLocal<>();
+
+    private final List<Segment> segments = new ArrayList<>();
+    private long basePrimesNanos;
+    private long mergeNanos;
+
+    /**
+     * Runs {@code computation} with {@code trace} bound to the current thread; a {@code null} trace runs it untraced.
+     */
+    public static <T> T run(RequestTrace trace, Supplier<T> computation) {
+        if (trace == null) return computation.get();
+        RequestTrace previous = CURRENT.get();
+        CURRENT.set(trace);
+        try {
+            return computation.get();
+        } finally {
+            if (previous != null) CURRENT.set(previous);
+            else CURRENT.remove();
+        }
+    }
+
+    /** The trace bound to the current thread, or {@code null} if the request is not traced. */
+    public static RequestTrace current() {
+        return CURRENT.get();
+    }
+
+    public void addBasePrimes(long nanos) {
+        basePrimesNanos += nanos;
+    }
+
+    public void addMerge(long nanos) {
+        mergeNanos += nanos;
+    }
+
+    /** Records a segment this request sieved; called from pool threads. */
+    public synchronized void addSegment(long numbers, long queueWaitNanos, long computeNanos) {
+        segments.add(new Segment(numbers, queueWaitNanos, computeNanos));
+    }
+
+    /** True if nothing was sieved for this request - the primes came from the prime table or another request's computation. */
+    public synchronized boolean cacheHit() {
+        return segments.isEmpty();
+    }
+
+    public long basePrimesNanos() {
+        return basePrimesNanos;
+    }
+
+    public long mergeNanos() {
+        return mergeNanos;
+    }
+
+    public synchronized List<Segment> segments() {
+        return List.copyOf(segments);
+    }
+}
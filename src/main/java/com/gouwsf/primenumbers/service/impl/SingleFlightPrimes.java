@@ -0,0 +1,105 @@
+package com.gouwsf.primenumbers.service.impl;
+
+import com.gouwsf.primenumbers.algorithms.PrimeSequence;
+import com.gouwsf.primenumbers.model.AlgorithmType;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntFunction;
+
+/**
+ * Coalesces concurrent computations of "all primes ≤ limit" by the same algorithm.
+ * <p>
+ * The first request for a limit computes it; requests for the same algorithm and limit that arrive while
+ * it is running wait for that result instead of starting their own. A request for a smaller limit waits on
+ * any larger computation by its algorithm already in flight and takes a prefix slice of it. Requests for
+ * different algorithms never share, so each response reports the algorithm and duration of the run it
+ * actually waited for. Results are not kept once the computation finishes - long-lived reuse is
+ * {@link PrimeStore}'s job.
+ */
+@Component
+public class SingleFlightPrimes {
+
+    /** One computation in flight. */
+    private record Key(AlgorithmType algorithm, int limit) {}
+
+    private final Map<Key, CompletableFuture<PrimeSequence>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Returns every prime ≤ {@code limit}, sharing an in-flight computation by {@code algorithm} when one
+     * covers {@code limit}.
+     *
+     * @param algorithm algorithm {@code compute} runs
+     * @param limit upper bound (inclusive)
+     * @param compute computes every prime ≤ its argument; only called when nothing in flight covers {@code limit}
+     */
+    public PrimeSequence primesUpTo(AlgorithmType algorithm, int limit, IntFunction<PrimeSequence> compute) {
+        return await(primesUpToAsync(algorithm, limit, l -> CompletableFuture.completedFuture(compute.apply(l))));
+    }
+
+    /**
+     * Non-blocking form of {@link #primesUpTo}: the returned future completes with every prime ≤ {@code limit}
+     * once the computation this request started or joined is done.
+     *
+     * @param algorithm algorithm {@code compute} runs
+     * @param limit upper bound (inclusive)
+     * @param compute starts computing every prime ≤ its argument; only called when nothing in flight covers {@code limit}
+     */
+    public CompletableFuture<PrimeSequence> primesUpToAsync(AlgorithmType algorithm, int limit,
+                                                            IntFunction<CompletableFuture<PrimeSequence>> compute) {
+        CompletableFuture<PrimeSequence> covering = findCovering(algorithm, limit);
+        if (covering != null) {
+            return covering.thenApply(primes -> primes.upTo(limit));
+        }
+
+        Key key = new Key(algorithm, limit);
+        CompletableFuture<PrimeSequence> mine = new CompletableFuture<>();
+        CompletableFuture<PrimeSequence> existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            return existing;
+        }
+        try {
+            compute.apply(limit).whenComplete((primes, failure) -> {
+                if (failure != null) mine.completeExceptionally(unwrap(failure));
+                else mine.complete(primes);
+                inFlight.remove(key, mine);
+            });
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            inFlight.remove(key, mine);
+        }
+        return mine;
+    }
+
+    private CompletableFuture<PrimeSequence> findCovering(AlgorithmType algorithm, int limit) {
+        CompletableFuture<PrimeSequence> best = null;
+        int bestLimit = Integer.MAX_VALUE;
+        for (Map.Entry<Key, CompletableFuture<PrimeSequence>> entry : inFlight.entrySet()) {
+            if (entry.getKey().algorithm() != algorithm) continue;
+            int candidate = entry.getKey().limit();
+            if (candidate >= limit && candidate < bestLimit) {
+                best = entry.getValue();
+                bestLimit = candidate;
+            }
+        }
+        return best;
+    }
+
+    private static Throwable unwrap(Throwable failure) {
+        return failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+    }
+
+    private static PrimeSequence await(CompletableFuture<PrimeSequence> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            // surface the leader's failure as if this request had run it
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            if (e.getCause() instanceof Error cause) throw cause;
+            throw e;
+        }
+    }
+}
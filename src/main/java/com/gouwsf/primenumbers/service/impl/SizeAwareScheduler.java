@@ -0,0 +1,250 @@
+package com.gouwsf.primenumbers.service.impl;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Shortest-remaining-work scheduler, with aging, in front of the shared {@link ForkJoinPool}.
+ * <p>
+ * Each request opens a {@link Job} and submits its leaves or segments to it. At most one task per pool
+ * thread runs at a time; every other task waits here, and whenever a thread frees up the next task is
+ * taken from the job with the lowest key {@code arrival + remainingWork / agingRate}. A small request
+ * that arrives while a large one is running is therefore served next, instead of queuing behind all of
+ * the large request's leaves. The large job does not starve: every job's key is fixed at most
+ * {@code work / agingRate} after its arrival, and every later arrival's key is at least its own arrival
+ * time, so once that much time has passed nothing new can overtake it. The key only changes when a job
+ * starts a task, which keeps the priority queue ordered without re-sorting.
+ * <p>
+ * The time from a job's opening until its first task starts is its queue wait. It is reported through
+ * {@link #recordQueueWait(long[], Supplier)} to whoever opened the job, when it is closed.
+ * <p>
+ * Queued and running tasks are published as the {@code primes.scheduler.tasks} gauge and every task's run
+ * time as the {@code primes.scheduler.task} timer.
+ */
+@Component
+public class SizeAwareScheduler {
+
+    private static final ThreadLocal<long[]> QUEUE_WAIT = new ThreadLocal<>();
+
+    private final ForkJoinPool executor;
+    /** Numbers of remaining work a job is credited per nanosecond it has been waiting. */
+    private final double agingNumbersPerNano;
+    private final int slots;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    // guarded by lock
+    private final PriorityQueue<Job> ready = new PriorityQueue<>(
+            Comparator.comparingDouble((Job job) -> job.key).thenComparingLong(job -> job.sequence));
+    private volatile int running;
+    private volatile int queued;
+    private long sequence;
+
+    private final Timer taskTimer;
+
+    public SizeAwareScheduler(ForkJoinPool executor,
+                              @Value("${config.scheduler.aging-numbers-per-milli:1000000}") long agingNumbersPerMilli,
+                              MeterRegistry meterRegistry) {
+        this.executor = executor;
+        this.agingNumbersPerNano = Math.max(1, agingNumbersPerMilli) / 1e6;
+        this.slots = Math.max(1, executor.getParallelism());
+        this.taskTimer = Timer.builder("primes.scheduler.task")
+                .description("Run time of one leaf or stream segment")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        Gauge.builder("primes.scheduler.tasks", this, SizeAwareScheduler::queuedTasks)
+                .description("Tasks waiting for a free pool thread")
+                .tag("state", "queued")
+                .register(meterRegistry);
+        Gauge.builder("primes.scheduler.tasks", this, SizeAwareScheduler::runningTasks)
+                .description("Tasks running on the pool")
+                .tag("state", "running")
+                .register(meterRegistry);
+    }
+
+    /** Tasks submitted but not yet started. */
+    public int queuedTasks() {
+        return queued;
+    }
+
+    /** Tasks currently running on the pool - at most its parallelism. */
+    public int runningTasks() {
+        return running;
+    }
+
+    /**
+     * Runs {@code computation} on the current thread so that every job it opens adds its queue wait to
+     * {@code sink[0]} when closed - also jobs that are still running after {@code computation} has returned.
+     */
+    public static <T> T recordQueueWait(long[] sink, Supplier<T> computation) {
+        long[] previous = QUEUE_WAIT.get();
+        QUEUE_WAIT.set(sink);
+        try {
+            return computation.get();
+        } finally {
+            if (previous != null) QUEUE_WAIT.set(previous);
+            else QUEUE_WAIT.remove();
+        }
+    }
+
+    /**
+     * Opens a job for one request.
+     *
+     * @param totalWork numbers the request will sieve across all of its tasks
+     */
+    public Job open(long totalWork) {
+        return new Job(totalWork, QUEUE_WAIT.get(), RequestTrace.current());
+    }
+
+    /**
+     * Opens a job whose tasks are neither traced as segments nor counted as queue wait, whichever thread opens
+     * it - for work that is not sieving, such as merging a request's leaves, and is timed as a whole.
+     *
+     * @param totalWork work of all of the job's tasks, in the same units as sieved numbers
+     */
+    public Job openUntraced(long totalWork) {
+        return new Job(totalWork, null, null);
+    }
+
+    private void enqueue(Job job, Task<?> task) {
+        lock.lock();
+        try {
+            boolean idle = job.pending.isEmpty();
+            job.pending.addLast(task);
+            queued++;
+            if (idle) {
+                job.key = job.arrival + job.remainingWork / agingNumbersPerNano;
+                job.sequence = sequence++;
+                ready.add(job);
+            }
+            dispatch();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Starts tasks from the highest-priority jobs while there are free slots. Called with the lock held. */
+    private void dispatch() {
+        while (running < slots && !ready.isEmpty()) {
+            Job job = ready.poll();
+            Task<?> task = job.pending.pollFirst();
+            queued--;
+            job.remainingWork = Math.max(0, job.remainingWork - task.work);
+            job.started();
+            if (!job.pending.isEmpty()) {
+                job.key = job.arrival + job.remainingWork / agingNumbersPerNano;
+                ready.add(job);
+            }
+            running++;
+            executor.execute(() -> {
+                try {
+                    taskTimer.record(task);
+                } finally {
+                    finished();
+                }
+            });
+        }
+    }
+
+    private void finished() {
+        lock.lock();
+        try {
+            running--;
+            dispatch();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** The tasks of one request, scheduled by its remaining work. Close it once every task has been joined. */
+    public final class Job implements AutoCloseable {
+
+        private final long arrival = System.nanoTime();
+        private final long[] waitSink;
+        private final RequestTrace trace;
+        // guarded by the scheduler's lock
+        private final Deque<Task<?>> pending = new ArrayDeque<>();
+        private long remainingWork;
+        private double key;
+        private long sequence;
+        private long firstStart = -1;
+
+        private Job(long totalWork, long[] waitSink, RequestTrace trace) {
+            this.remainingWork = Math.max(0, totalWork);
+            this.waitSink = waitSink;
+            this.trace = trace;
+        }
+
+        /**
+         * Queues {@code task}, which sieves {@code work} numbers, and returns its result once it has run.
+         */
+        public <T> CompletableFuture<T> submit(long work, Supplier<T> task) {
+            var queued = new Task<>(work, task, trace);
+            enqueue(this, queued);
+            return queued.result;
+        }
+
+        private void started() {
+            if (firstStart < 0) firstStart = System.nanoTime();
+        }
+
+        /** Drops tasks that have not started yet and reports the queue wait. */
+        @Override
+        public void close() {
+            long wait;
+            lock.lock();
+            try {
+                pending.forEach(task -> task.result.cancel(false));
+                queued -= pending.size();
+                pending.clear();
+                ready.remove(this);
+                wait = (firstStart < 0 ? System.nanoTime() : firstStart) - arrival;
+            } finally {
+                lock.unlock();
+            }
+            if (waitSink != null) waitSink[0] += wait;
+        }
+    }
+
+    private static final class Task<T> implements Runnable {
+
+        private final long work;
+        private final Supplier<T> supplier;
+        private final RequestTrace trace;
+        private final long submitted = System.nanoTime();
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+
+        private Task(long work, Supplier<T> supplier, RequestTrace trace) {
+            this.work = work;
+            this.supplier = supplier;
+            this.trace = trace;
+        }
+
+        @Override
+        public void run() {
+            if (result.isDone()) return; // cancelled while queued
+            long start = System.nanoTime();
+            T value;
+            try {
+                value = supplier.get();
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+                return;
+            }
+            // recorded before completing, so the request sees every segment once it has joined its tasks
+            if (trace != null) trace.addSegment(work, start - submitted, System.nanoTime() - start);
+            result.complete(value);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.gouwsf.primenumbers.algorithms;
 
 import com.gouwsf.primenumbers.algorithms.impl.AtkinsSieve;
+import com.gouwsf.primenumbers.algorithms.impl.EratosthenesSieve;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
@@ -58,7 +59,8 @@ class AtkinsSieveParameterizedTest {
                 // a bit larger
                 org.junit.jupiter.params.provider.Arguments.of(30, 10),
                 org.junit.jupiter.params.provider.Arguments.of(1000, 168),
-                org.junit.jupiter.params.provider.Arguments.of(100, 25)
+                org.junit.jupiter.params.provider.Arguments.of(100, 25),
+                org.junit.jupiter.params.provider.Arguments.of(1_000_000, 78_498)
         );
     }
 
@@ -67,7 +69,7 @@ class AtkinsSieveParameterizedTest {
     @DisplayName("extendSegment finds primes in (L,R]")
     @ParameterizedTest(name = "Range ({0},{1}] → {2}")
     @MethodSource("segmentCases")
-    void testDeterminePrimes(int fromExclusive, int toInclusive, List<Integer> base, List<Integer> expectedPrimes) {
+    void testDeterminePrimes(int fromExclusive, int toInclusive, PrimeSequence base, List<Integer> expectedPrimes) {
         var actual = generator.determinePrimes(fromExclusive, toInclusive, base);
         assertEquals(expectedPrimes, actual);
     }
@@ -75,10 +77,32 @@ class AtkinsSieveParameterizedTest {
     static Stream<org.junit.jupiter.params.provider.Arguments> segmentCases() {
         return Stream.of(
                 // (fromExclusive, toInclusive, expected primes in (L,R])
-                org.junit.jupiter.params.provider.Arguments.of(0, 10, List.of(), List.of(2, 3, 5, 7)),
-                org.junit.jupiter.params.provider.Arguments.of(10, 20, List.of(2, 3, 5, 7),List.of(11, 13, 17, 19)),
-                org.junit.jupiter.params.provider.Arguments.of(20, 30, List.of(2, 3, 5, 7), List.of(23, 29)),
-                org.junit.jupiter.params.provider.Arguments.of(30, 40, List.of(2, 3, 5, 7), List.of(31, 37))
+                org.junit.jupiter.params.provider.Arguments.of(0, 10, PrimeSequence.of(), List.of(2, 3, 5, 7)),
+                org.junit.jupiter.params.provider.Arguments.of(10, 20, PrimeSequence.of(2, 3, 5, 7),List.of(11, 13, 17, 19)),
+                org.junit.jupiter.params.provider.Arguments.of(20, 30, PrimeSequence.of(2, 3, 5, 7), List.of(23, 29)),
+                org.junit.jupiter.params.provider.Arguments.of(30, 40, PrimeSequence.of(2, 3, 5, 7), List.of(31, 37)),
+                org.junit.jupiter.params.provider.Arguments.of(1, 12, PrimeSequence.of(2, 3), List.of(2, 3, 5, 7, 11)),
+                org.junit.jupiter.params.provider.Arguments.of(3, 25, PrimeSequence.of(2, 3, 5), List.of(5, 7, 11, 13, 17, 19, 23))
+        );
+    }
+
+    @DisplayName("segmented ranges high up match the monolithic Sieve of Eratosthenes")
+    @ParameterizedTest(name = "Range ({0},{1}]")
+    @MethodSource("highSegments")
+    void testDeterminePrimes_highSegments(int fromExclusive, int toInclusive) {
+        var base = new EratosthenesSieve().determinePrimes((int) Math.sqrt(toInclusive));
+        var expected = new EratosthenesSieve().determinePrimes(toInclusive).stream()
+                .filter(p -> p > fromExclusive)
+                .toList();
+
+        assertEquals(expected, generator.determinePrimes(fromExclusive, toInclusive, base));
+    }
+
+    static Stream<org.junit.jupiter.params.provider.Arguments> highSegments() {
+        return Stream.of(
+                org.junit.jupiter.params.provider.Arguments.of(999_000, 1_000_000),
+                org.junit.jupiter.params.provider.Arguments.of(4_000_000, 4_250_000),
+                org.junit.jupiter.params.provider.Arguments.of(9_999_900, 10_000_000)
         );
     }
 }
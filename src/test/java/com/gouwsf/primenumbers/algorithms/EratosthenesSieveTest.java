@@ -4,6 +4,7 @@ import com.gouwsf.primenumbers.algorithms.impl.EratosthenesSieve;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.CsvSource;
 import org.junit.jupiter.params.provider.MethodSource;
 
 import java.util.List;
@@ -59,7 +60,12 @@ class EratosthenesSieveTest {
                 // a bit larger
                 org.junit.jupiter.params.provider.Arguments.of(30, 10),
                 org.junit.jupiter.params.provider.Arguments.of(1000, 168),
-                org.junit.jupiter.params.provider.Arguments.of(100, 25)
+                org.junit.jupiter.params.provider.Arguments.of(100, 25),
+                // around 64-bit word boundaries of the odd-only sieve
+                org.junit.jupiter.params.provider.Arguments.of(127, 31),
+                org.junit.jupiter.params.provider.Arguments.of(128, 31),
+                org.junit.jupiter.params.provider.Arguments.of(131, 32),
+                org.junit.jupiter.params.provider.Arguments.of(1_000_000, 78_498)
         );
     }
 
@@ -67,7 +73,7 @@ class EratosthenesSieveTest {
     @DisplayName("extendSegment finds primes in (L,R]")
     @ParameterizedTest(name = "Range ({0},{1}] should yield {2}")
     @MethodSource("segmentCases")
-    void testDeterminePrimes(int fromExclusive, int toInclusive, List<Integer> base, List<Integer> expectedPrimes) {
+    void testDeterminePrimes(int fromExclusive, int toInclusive, PrimeSequence base, List<Integer> expectedPrimes) {
         var actual = generator.determinePrimes(fromExclusive, toInclusive, base);
         assertEquals(expectedPrimes, actual);
     }
@@ -75,10 +81,17 @@ class EratosthenesSieveTest {
     static Stream<org.junit.jupiter.params.provider.Arguments> segmentCases() {
         return Stream.of(
                 // (fromExclusive, toInclusive, expected primes in (L,R])
-                org.junit.jupiter.params.provider.Arguments.of(0, 10, List.of(), List.of(2, 3, 5, 7)),
-                org.junit.jupiter.params.provider.Arguments.of(10, 20, List.of(2, 3, 5, 7),List.of(11, 13, 17, 19)),
-                org.junit.jupiter.params.provider.Arguments.of(20, 30, List.of(2, 3, 5, 7), List.of(23, 29)),
-                org.junit.jupiter.params.provider.Arguments.of(30, 40, List.of(2, 3, 5, 7), List.of(31, 37))
+                org.junit.jupiter.params.provider.Arguments.of(0, 10, PrimeSequence.of(), List.of(2, 3, 5, 7)),
+                org.junit.jupiter.params.provider.Arguments.of(10, 20, PrimeSequence.of(2, 3, 5, 7),List.of(11, 13, 17, 19)),
+                org.junit.jupiter.params.provider.Arguments.of(20, 30, PrimeSequence.of(2, 3, 5, 7), List.of(23, 29)),
+                org.junit.jupiter.params.provider.Arguments.of(30, 40, PrimeSequence.of(2, 3, 5, 7), List.of(31, 37))
         );
     }
-}
\ No newline at end of file
+
+    @DisplayName("sieveBufferBytes prices a range the way determinePrimes sieves it")
+    @ParameterizedTest(name = "({0},{1}] -> {2} bytes")
+    @CsvSource({"0, 1600, 100", "-1, 1600, 1601", "10, 1610, 1600"})
+    void sieveBufferBytes_matchesTheSieveUsed(long fromExclusive, long toInclusive, long expectedBytes) {
+        assertEquals(expectedBytes, generator.sieveBufferBytes(fromExclusive, toInclusive));
+    }
+}
@@ -0,0 +1,63 @@
+package com.gouwsf.primenumbers.algorithms;
+
+import com.gouwsf.primenumbers.algorithms.impl.LongSegmentedSieve;
+import com.gouwsf.primenumbers.algorithms.impl.SegmentedSieve;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongSegmentedSieveTest {
+
+    SegmentedSieve segmentedSieve = new SegmentedSieve();
+    LongSegmentedSieve sieve = new LongSegmentedSieve(segmentedSieve);
+
+    @ParameterizedTest(name = "({0}, {1}] matches SegmentedSieve")
+    @CsvSource({"1, 2", "1, 100", "0, 1000000", "999, 1000", "1000000, 1100000", "2147000000, 2147483647"})
+    @DisplayName("agrees with the int-addressed sieve wherever both apply")
+    void matchesSegmentedSieve_inIntRange(long fromExclusive, long toInclusive) {
+        var base = segmentedSieve.determinePrimes((int) Math.sqrt(toInclusive));
+        var expected = segmentedSieve.determinePrimes((int) fromExclusive, (int) toInclusive, base);
+
+        assertArrayEquals(expected.intStream().asLongStream().toArray(),
+                sieve.determinePrimes(fromExclusive, toInclusive, sieve.determineBasePrimes(toInclusive)));
+    }
+
+    @Test
+    @DisplayName("finds primes straddling 2^32")
+    void acrossTwoToThe32() {
+        long from = (1L << 32) - 10;
+        long to = (1L << 32) + 100;
+
+        assertArrayEquals(new long[]{4294967291L, 4294967311L, 4294967357L, 4294967371L, 4294967377L, 4294967387L, 4294967389L},
+                sieve.determinePrimes(from - 1, to, sieve.determineBasePrimes(to)));
+    }
+
+    @Test
+    @DisplayName("finds the primes just below the supported upper bound")
+    void atMaxLimit() {
+        long to = LongSegmentedSieve.MAX_LIMIT;
+
+        assertArrayEquals(new long[]{999_999_999_999_809L, 999_999_999_999_827L, 999_999_999_999_877L,
+                        999_999_999_999_883L, 999_999_999_999_947L, 999_999_999_999_989L},
+                sieve.determinePrimes(to - 201, to, sieve.determineBasePrimes(to)));
+    }
+
+    @Test
+    @DisplayName("counts primes in a window spanning several cache windows")
+    void countAcrossWindows() {
+        long from = 1_000_000_000_000L;
+        long to = from + 99_999;
+
+        assertEquals(3_614, sieve.determinePrimes(from - 1, to, sieve.determineBasePrimes(to)).length);
+    }
+
+    @Test
+    void rejectsUpperBoundBeyondMaxLimit() {
+        long to = LongSegmentedSieve.MAX_LIMIT + 1;
+        assertThrows(IllegalArgumentException.class, () -> sieve.determineBasePrimes(to));
+        assertThrows(IllegalArgumentException.class, () -> sieve.determinePrimes(to - 10, to, PrimeSequence.of(2, 3)));
+    }
+}
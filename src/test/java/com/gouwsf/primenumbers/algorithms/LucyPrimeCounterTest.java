@@ -0,0 +1,51 @@
+package com.gouwsf.primenumbers.algorithms;
+
+import com.gouwsf.primenumbers.algorithms.impl.EratosthenesSieve;
+import com.gouwsf.primenumbers.algorithms.impl.LucyPrimeCounter;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LucyPrimeCounterTest {
+
+    LucyPrimeCounter counter = new LucyPrimeCounter();
+
+    @ParameterizedTest(name = "π({0}) = {1}")
+    @MethodSource("knownCounts")
+    @DisplayName("countPrimes matches known values of π(x)")
+    void countPrimes_knownValues(long x, long expected) {
+        assertEquals(expected, counter.countPrimes(x));
+    }
+
+    static Stream<Arguments> knownCounts() {
+        return Stream.of(
+                Arguments.of(0L, 0L),
+                Arguments.of(1L, 0L),
+                Arguments.of(2L, 1L),
+                Arguments.of(3L, 2L),
+                Arguments.of(4L, 2L),
+                Arguments.of(10L, 4L),
+                Arguments.of(100L, 25L),
+                Arguments.of(1_000_000L, 78_498L),
+                Arguments.of(1_000_000_000L, 50_847_534L),
+                Arguments.of(10_000_000_000L, 455_052_511L)
+        );
+    }
+
+    @Test
+    @DisplayName("countPrimes agrees with the sieve for every x up to 2000")
+    void countPrimes_matchesSieve() {
+        var primes = new EratosthenesSieve().determinePrimes(2000);
+        int index = 0;
+        for (int x = 0; x <= 2000; x++) {
+            while (index < primes.size() && primes.getInt(index) <= x) index++;
+            assertEquals(index, counter.countPrimes(x), "π(" + x + ")");
+        }
+    }
+}
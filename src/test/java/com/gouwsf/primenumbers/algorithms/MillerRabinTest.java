@@ -0,0 +1,79 @@
+package com.gouwsf.primenumbers.algorithms;
+
+import com.gouwsf.primenumbers.algorithms.impl.EratosthenesSieve;
+import com.gouwsf.primenumbers.algorithms.impl.MillerRabin;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.math.BigInteger;
+import java.util.Random;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MillerRabinTest {
+
+    MillerRabin millerRabin = new MillerRabin();
+
+    @ParameterizedTest(name = "isPrime({0}) = {1}")
+    @CsvSource({
+            "-7, false",
+            "0, false",
+            "1, false",
+            "2, true",
+            "3481, false",             // 59² - first number trial division can't settle
+            "3491, true",
+            "561, false",              // Carmichael number
+            "3215031751, false",       // strong pseudoprime to bases 2, 3, 5 and 7
+            "4294967291, true",        // largest prime < 2^32
+            "4294967297, false",       // 2^32 + 1 = 641 * 6700417
+            "4759123141, false",       // strong pseudoprime to bases 2, 7 and 61
+            "2305843009213693951, true", // 2^61 - 1
+            "3825123056546413051, false", // strong pseudoprime to every prime base up to 23
+            "9223372036854775783, true", // largest prime < 2^63
+            "9223372036854775807, false" // Long.MAX_VALUE = 7² * 73 * ...
+    })
+    @DisplayName("isPrime handles edge cases and known strong pseudoprimes")
+    void isPrime_knownValues(long n, boolean expected) {
+        assertEquals(expected, millerRabin.isPrime(n));
+    }
+
+    @Test
+    @DisplayName("isPrime agrees with the sieve for every n up to 1,000,000")
+    void isPrime_matchesSieve() {
+        var primes = new EratosthenesSieve().determinePrimes(1_000_000);
+        int index = 0;
+        for (int n = 0; n <= 1_000_000; n++) {
+            boolean expected = index < primes.size() && primes.getInt(index) == n;
+            if (expected) index++;
+            assertEquals(expected, millerRabin.isPrime(n), "isPrime(" + n + ")");
+        }
+    }
+
+    @Test
+    @DisplayName("isPrime agrees with BigInteger for random 64-bit odd numbers")
+    void isPrime_matchesBigInteger() {
+        var random = new SplittableRandom(42);
+        for (int i = 0; i < 20_000; i++) {
+            long n = random.nextLong(1L << 32, Long.MAX_VALUE) | 1;
+            assertEquals(BigInteger.valueOf(n).isProbablePrime(64), millerRabin.isPrime(n), "isPrime(" + n + ")");
+        }
+    }
+
+    @Test
+    @DisplayName("isPrime accepts random primes and rejects products of two of them")
+    void isPrime_primesAndSemiprimes() {
+        var random = new Random(7);
+        for (int bits = 33; bits <= 63; bits++) {
+            long p = BigInteger.probablePrime(bits, random).longValueExact();
+            assertEquals(true, millerRabin.isPrime(p), "isPrime(" + p + ")");
+        }
+        for (int i = 0; i < 1_000; i++) {
+            long p = BigInteger.probablePrime(31, random).longValueExact();
+            long q = BigInteger.probablePrime(31, random).longValueExact();
+            assertEquals(false, millerRabin.isPrime(p * q), "isPrime(" + p + " * " + q + ")");
+        }
+    }
+}
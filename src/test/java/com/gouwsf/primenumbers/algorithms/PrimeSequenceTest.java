@@ -0,0 +1,108 @@
+package com.gouwsf.primenumbers.algorithms;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrimeSequenceTest {
+
+    @Test
+    @DisplayName("behaves as an ascending List<Integer>")
+    void listView() {
+        var primes = PrimeSequence.of(2, 3, 5, 7, 11);
+
+        assertEquals(5, primes.size());
+        assertEquals(7, primes.getInt(3));
+        assertEquals(List.of(2, 3, 5, 7, 11), primes);
+        assertEquals(primes, List.of(2, 3, 5, 7, 11));
+        assertEquals(List.of(2, 3, 5, 7, 11).hashCode(), primes.hashCode());
+        assertThrows(IndexOutOfBoundsException.class, () -> primes.getInt(5));
+    }
+
+    @Test
+    @DisplayName("slices are views sharing the same values")
+    void slice() {
+        var primes = PrimeSequence.of(2, 3, 5, 7, 11, 13);
+        var slice = primes.slice(1, 4);
+
+        assertEquals(List.of(3, 5, 7), slice);
+        assertEquals(List.of(5), slice.slice(1, 2));
+        assertSame(PrimeSequence.empty(), primes.slice(2, 2));
+        assertSame(primes, primes.slice(0, primes.size()));
+        assertArrayEquals(new int[]{3, 5, 7}, slice.toIntArray());
+        assertEquals(15, slice.intStream().sum());
+        assertThrows(IndexOutOfBoundsException.class, () -> primes.slice(4, 7));
+    }
+
+    @Test
+    @DisplayName("binarySearch on a slice reports slice-relative indices")
+    void binarySearch() {
+        var slice = PrimeSequence.of(2, 3, 5, 7, 11, 13).slice(2, 5);
+
+        assertEquals(0, slice.binarySearch(5));
+        assertEquals(2, slice.binarySearch(11));
+        assertEquals(-1, slice.binarySearch(3));
+        assertEquals(-2, slice.binarySearch(6));
+        assertEquals(-4, slice.binarySearch(13));
+    }
+
+    @Test
+    @DisplayName("upTo returns the prefix of primes not above the limit")
+    void upTo() {
+        var primes = PrimeSequence.of(2, 3, 5, 7, 11, 13);
+
+        assertEquals(List.of(2, 3, 5, 7), primes.upTo(7));
+        assertEquals(List.of(2, 3, 5, 7), primes.upTo(10));
+        assertSame(PrimeSequence.empty(), primes.upTo(1));
+        assertSame(primes, primes.upTo(100));
+    }
+
+    @Test
+    @DisplayName("a buffer-backed sequence behaves like an array-backed one")
+    void wrapBuffer() {
+        var buffer = ByteBuffer.allocateDirect(6 * Integer.BYTES).asIntBuffer().put(new int[]{2, 3, 5, 7, 11, 13}).flip();
+        var mapped = PrimeSequence.wrap(buffer);
+        var slice = mapped.slice(1, 5);
+
+        assertEquals(PrimeSequence.of(2, 3, 5, 7, 11, 13), mapped);
+        assertEquals(List.of(3, 5, 7, 11), slice);
+        assertEquals(PrimeSequence.of(3, 5, 7, 11).hashCode(), slice.hashCode());
+        assertEquals(2, slice.binarySearch(7));
+        assertEquals(-3, slice.binarySearch(6));
+        assertEquals(List.of(2, 3, 5, 7), mapped.upTo(10));
+        assertArrayEquals(new int[]{3, 5, 7, 11}, slice.toIntArray());
+        assertEquals(26, slice.intStream().sum());
+        assertEquals(List.of(2, 3, 5, 7, 11, 13, 3, 5, 7, 11), PrimeSequence.concat(List.of(mapped, slice)));
+    }
+
+    @Test
+    @DisplayName("concat preserves order across parts")
+    void concat() {
+        var joined = PrimeSequence.concat(List.of(
+                PrimeSequence.of(2, 3),
+                PrimeSequence.empty(),
+                PrimeSequence.of(2, 3, 5, 7, 11).slice(2, 5)));
+
+        assertEquals(List.of(2, 3, 5, 7, 11), joined);
+
+        var collected = new ArrayList<Integer>();
+        joined.forEachInt(collected::add);
+        assertEquals(joined, collected);
+    }
+
+    @Test
+    @DisplayName("builder grows past its initial capacity")
+    void builder() {
+        var builder = PrimeSequence.builder(1);
+        for (int i = 0; i < 100; i++) builder.add(i);
+
+        var built = builder.build();
+        assertEquals(100, built.size());
+        assertEquals(99, built.getInt(99));
+    }
+}
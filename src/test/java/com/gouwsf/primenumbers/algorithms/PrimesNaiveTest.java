@@ -66,7 +66,7 @@ class PrimesNaiveTest {
     @DisplayName("extendSegment finds primes in (L,R]")
     @ParameterizedTest(name = "Range ({0},{1}] should yield {2}")
     @MethodSource("segmentCases")
-    void testDeterminePrimes(int fromExclusive, int toInclusive, List<Integer> base, List<Integer> expectedPrimes) {
+    void testDeterminePrimes(int fromExclusive, int toInclusive, PrimeSequence base, List<Integer> expectedPrimes) {
         var actual = generator.determinePrimes(fromExclusive, toInclusive, base);
         assertEquals(expectedPrimes, actual);
     }
@@ -74,10 +74,10 @@ class PrimesNaiveTest {
     static Stream<org.junit.jupiter.params.provider.Arguments> segmentCases() {
         return Stream.of(
                 // (fromExclusive, toInclusive, expected primes in (L,R])
-                org.junit.jupiter.params.provider.Arguments.of(0, 10, List.of(), List.of(2, 3, 5, 7)),
-                org.junit.jupiter.params.provider.Arguments.of(10, 20, List.of(2, 3, 5, 7),List.of(11, 13, 17, 19)),
-                org.junit.jupiter.params.provider.Arguments.of(20, 30, List.of(2, 3, 5, 7), List.of(23, 29)),
-                org.junit.jupiter.params.provider.Arguments.of(30, 40, List.of(2, 3, 5, 7), List.of(31, 37))
+                org.junit.jupiter.params.provider.Arguments.of(0, 10, PrimeSequence.of(), List.of(2, 3, 5, 7)),
+                org.junit.jupiter.params.provider.Arguments.of(10, 20, PrimeSequence.of(2, 3, 5, 7),List.of(11, 13, 17, 19)),
+                org.junit.jupiter.params.provider.Arguments.of(20, 30, PrimeSequence.of(2, 3, 5, 7), List.of(23, 29)),
+                org.junit.jupiter.params.provider.Arguments.of(30, 40, PrimeSequence.of(2, 3, 5, 7), List.of(31, 37))
         );
     }
 
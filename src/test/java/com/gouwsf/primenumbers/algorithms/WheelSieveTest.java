@@ -0,0 +1,96 @@
+package com.gouwsf.primenumbers.algorithms;
+
+import com.gouwsf.primenumbers.algorithms.impl.EratosthenesSieve;
+import com.gouwsf.primenumbers.algorithms.impl.WheelSieve;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class WheelSieveTest {
+
+    WheelSieve generator = new WheelSieve();
+
+    @ParameterizedTest(name = "n={0}")
+    @MethodSource("cases")
+    @DisplayName("determinePrimes returns primes up to n (inclusive)")
+    void determinePrimes_returnsExpected(int n, List<Integer> expected) {
+        assertEquals(expected, generator.determinePrimes(n));
+    }
+
+    static Stream<Arguments> cases() {
+        return Stream.of(
+                Arguments.of(0, List.of()),
+                Arguments.of(1, List.of()),
+                Arguments.of(2, List.of(2)),
+                Arguments.of(3, List.of(2, 3)),
+                Arguments.of(4, List.of(2, 3)),
+                Arguments.of(9, List.of(2, 3, 5, 7)),
+                Arguments.of(30, List.of(2, 3, 5, 7, 11, 13, 17, 19, 23, 29)),
+                Arguments.of(100, List.of(
+                        2, 3, 5, 7, 11, 13, 17, 19, 23, 29,
+                        31, 37, 41, 43, 47, 53, 59, 61, 67, 71,
+                        73, 79, 83, 89, 97
+                ))
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("expectedNumberOfPrimes")
+    void determinesPrimes_forVariousLimits_expectedNumberOfPrimes(int limit, int expectedNumPrimes) {
+        List<Integer> actual = generator.determinePrimes(limit);
+        assertEquals(expectedNumPrimes, actual.size(),
+                () -> "Unexpected number primes for limit=" + limit + ",expected=" + expectedNumPrimes + ", got=" + actual.size());
+    }
+
+    static Stream<Arguments> expectedNumberOfPrimes() {
+        return Stream.of(
+                Arguments.of(1000, 168),
+                // spans several windows of 30-integer blocks
+                Arguments.of(1_000_000, 78_498),
+                Arguments.of(10_000_000, 664_579)
+        );
+    }
+
+    /** Extend Segment Test Cases */
+    @DisplayName("extendSegment finds primes in (L,R]")
+    @ParameterizedTest(name = "Range ({0},{1}] should yield {2}")
+    @MethodSource("segmentCases")
+    void testDeterminePrimes(int fromExclusive, int toInclusive, PrimeSequence base, List<Integer> expectedPrimes) {
+        var actual = generator.determinePrimes(fromExclusive, toInclusive, base);
+        assertEquals(expectedPrimes, actual);
+    }
+
+    static Stream<Arguments> segmentCases() {
+        return Stream.of(
+                // (fromExclusive, toInclusive, expected primes in (L,R])
+                Arguments.of(0, 10, PrimeSequence.of(), List.of(2, 3, 5, 7)),
+                Arguments.of(10, 20, PrimeSequence.of(2, 3, 5, 7), List.of(11, 13, 17, 19)),
+                Arguments.of(20, 30, PrimeSequence.of(2, 3, 5, 7), List.of(23, 29)),
+                Arguments.of(30, 40, PrimeSequence.of(2, 3, 5, 7), List.of(31, 37)),
+                Arguments.of(40, 40, PrimeSequence.of(2, 3, 5, 7), List.of()),
+                Arguments.of(1, 7, PrimeSequence.of(), List.of(2, 3, 5, 7)),
+                Arguments.of(4, 60, PrimeSequence.of(2, 3, 5, 7), List.of(5, 7, 11, 13, 17, 19, 23, 29, 31, 37, 41, 43, 47, 53, 59))
+        );
+    }
+
+    @Test
+    @DisplayName("wheel ranges across window boundaries match the monolithic sieve")
+    void determinePrimes_rangeMatchesEratosthenes() {
+        int from = 1_234_567;
+        int to = from + 3 * 30 * 32 * 1024 + 17;
+        var base = generator.determinePrimes((int) Math.sqrt(to));
+
+        var expected = new EratosthenesSieve().determinePrimes(to).stream()
+                .filter(p -> p > from)
+                .toList();
+
+        assertEquals(expected, generator.determinePrimes(from, to, base));
+    }
+}
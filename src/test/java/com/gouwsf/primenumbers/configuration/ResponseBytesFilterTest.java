@@ -0,0 +1,46 @@
+package com.gouwsf.primenumbers.configuration;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ResponseBytesFilterTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ResponseBytesFilter filter = new ResponseBytesFilter(registry);
+
+    @Test
+    void bodies_recordedPerEndpointAndContentType() throws Exception {
+        perform("application/json;charset=UTF-8", "[2,3,5,7]");
+        perform("application/json", "[2,3]");
+        perform("application/xml", "<primes/>");
+
+        var json = registry.get("primes.response.bytes")
+                .tag("uri", "/primeNumbers").tag("contentType", "application/json").summary();
+        assertEquals(2, json.count());
+        assertEquals(14, json.totalAmount());
+        assertEquals(2, registry.find("primes.response.bytes").summaries().size());
+    }
+
+    private void perform(String contentType, String body) throws Exception {
+        var request = new MockHttpServletRequest("GET", "/primeNumbers");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/primeNumbers");
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+                resp.setContentType(contentType);
+                resp.getOutputStream().write(body.getBytes());
+            }
+        }));
+    }
+}
@@ -0,0 +1,93 @@
+package com.gouwsf.primenumbers.controller;
+
+import com.gouwsf.primenumbers.algorithms.PrimeSequence;
+import com.gouwsf.primenumbers.algorithms.impl.SegmentedSieve;
+import com.gouwsf.primenumbers.model.PrimeNumberResponse;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.mock.http.MockHttpInputMessage;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.io.EOFException;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrimeGapsHttpMessageConverterTest {
+
+    private final PrimeGapsHttpMessageConverter converter = new PrimeGapsHttpMessageConverter();
+
+    @ParameterizedTest(name = "limit={0} round-trips")
+    @ValueSource(ints = {2, 3, 30, 1_000, 1_000_000})
+    void roundTrip(int limit) throws Exception {
+        var primes = new SegmentedSieve().determinePrimes(limit);
+        var response = new PrimeNumberResponse.Builder()
+                .primes(primes)
+                .numberOfPrimes(primes.size())
+                .durationMillis(7L)
+                .queueWaitMillis(300L)
+                .algorithmUsed("SEGMENTED")
+                .build();
+
+        var decoded = read(write(response));
+
+        assertEquals(primes, decoded.getPrimes());
+        assertEquals(primes.size(), decoded.getNumberOfPrimes());
+        assertEquals(7L, decoded.getDurationMillis());
+        assertEquals(300L, decoded.getQueueWaitMillis());
+        assertEquals("SEGMENTED", decoded.getAlgorithmUsed());
+    }
+
+    @Test
+    void write_onePerPrimeBelowAMillion() throws Exception {
+        var primes = new SegmentedSieve().determinePrimes(1_000_000);
+        var response = new PrimeNumberResponse.Builder().primes(primes).build();
+
+        byte[] bytes = write(response);
+
+        // header, counters (78,498 needs three bytes), empty algorithm; every gap below 1e6 is at most 114, so one byte per prime
+        assertEquals(3 + 5 + 1 + 78_498, bytes.length);
+    }
+
+    @Test
+    void write_boxedListMatchesPrimeSequence() throws Exception {
+        var boxed = new PrimeNumberResponse.Builder().primes(List.of(2, 3, 5, 7, 11)).build();
+        var sequence = new PrimeNumberResponse.Builder().primes(PrimeSequence.of(2, 3, 5, 7, 11)).build();
+
+        assertArrayEquals(write(sequence), write(boxed));
+    }
+
+    @Test
+    void write_emptyResponse() throws Exception {
+        var decoded = read(write(new PrimeNumberResponse.Builder().primes(List.of()).build()));
+
+        assertEquals(List.of(), decoded.getPrimes());
+        assertNull(decoded.getAlgorithmUsed());
+    }
+
+    @Test
+    void read_rejectsForeignPayload() {
+        assertThrows(HttpMessageNotReadableException.class, () -> read(new byte[]{'{', '"', 1}));
+        assertThrows(HttpMessageNotReadableException.class, () -> read(new byte[]{'P', 'G', 2}));
+    }
+
+    @Test
+    void read_rejectsTruncatedPayload() throws Exception {
+        byte[] bytes = write(new PrimeNumberResponse.Builder().primes(PrimeSequence.of(2, 3, 5)).build());
+
+        assertThrows(EOFException.class, () -> read(Arrays.copyOf(bytes, bytes.length - 1)));
+    }
+
+    private byte[] write(PrimeNumberResponse response) throws Exception {
+        var output = new MockHttpOutputMessage();
+        converter.write(response, PrimeGapsHttpMessageConverter.MEDIA_TYPE, output);
+        return output.getBodyAsBytes();
+    }
+
+    private PrimeNumberResponse read(byte[] bytes) throws Exception {
+        return converter.read(PrimeNumberResponse.class, new MockHttpInputMessage(bytes));
+    }
+}
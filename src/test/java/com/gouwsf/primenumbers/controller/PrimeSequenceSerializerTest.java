@@ -0,0 +1,95 @@
+package com.gouwsf.primenumbers.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+import com.gouwsf.primenumbers.algorithms.PrimeSequence;
+import com.gouwsf.primenumbers.algorithms.impl.SegmentedSieve;
+import com.gouwsf.primenumbers.model.PrimeNumberResponse;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrimeSequenceSerializerTest {
+
+    private final SimpleModule module = new SimpleModule()
+            .addSerializer(PrimeSequence.class, new PrimeSequenceSerializer());
+
+    @ParameterizedTest(name = "JSON for limit={0} matches Jackson's list output")
+    @ValueSource(ints = {2, 30, 10_000, 1_000_000})
+    void json_matchesDefault(int limit) throws Exception {
+        var primes = new SegmentedSieve().determinePrimes(limit);
+
+        var mapper = new ObjectMapper().registerModule(module);
+        String expected = new ObjectMapper().writeValueAsString(response(new ArrayList<>(primes)));
+
+        // a Writer target takes the raw char path, an OutputStream target the direct byte path
+        assertEquals(expected, mapper.writeValueAsString(response(primes)));
+        assertEquals(expected, new String(mapper.writeValueAsBytes(response(primes)), StandardCharsets.UTF_8));
+    }
+
+    @ParameterizedTest(name = "XML for limit={0} matches Jackson's wrapped list output")
+    @ValueSource(ints = {2, 30, 10_000, 1_000_000})
+    void xml_matchesDefault(int limit) throws Exception {
+        var primes = new SegmentedSieve().determinePrimes(limit);
+
+        assertEquals(new XmlMapper().writeValueAsString(response(new ArrayList<>(primes))),
+                new XmlMapper().registerModule(module).writeValueAsString(response(primes)));
+    }
+
+    @Test
+    void emptySequence() throws Exception {
+        var empty = PrimeSequence.of();
+
+        assertEquals(new ObjectMapper().writeValueAsString(response(List.of())),
+                new ObjectMapper().registerModule(module).writeValueAsString(response(empty)));
+        assertEquals(new XmlMapper().writeValueAsString(response(List.of())),
+                new XmlMapper().registerModule(module).writeValueAsString(response(empty)));
+    }
+
+    @Test
+    void prettyPrinted_fallsBackToJacksonLayout() throws Exception {
+        var primes = PrimeSequence.of(2, 3, 5, 7, 11);
+
+        assertEquals(new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValueAsString(response(List.of(2, 3, 5, 7, 11))),
+                new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).registerModule(module).writeValueAsString(response(primes)));
+    }
+
+    @Test
+    void rootValueAndTreeConversion() throws Exception {
+        var mapper = new ObjectMapper().registerModule(module);
+        var primes = PrimeSequence.of(2, 3, 5, 7, 11);
+
+        assertEquals("[2,3,5,7,11]", mapper.writeValueAsString(primes));
+        assertEquals(List.of(2, 3, 5, 7, 11), mapper.convertValue(primes, List.class));
+    }
+
+    @ParameterizedTest(name = "putInt({0})")
+    @ValueSource(ints = {0, 7, 10, 99, 100, 101, 9_999, 10_000, 999_999_999, 1_000_000_000, Integer.MAX_VALUE})
+    void putInt_matchesToString(int value) {
+        char[] chars = new char[12];
+        byte[] bytes = new byte[12];
+
+        int charEnd = PrimeSequenceSerializer.putInt(chars, 1, value);
+        int byteEnd = PrimeSequenceSerializer.putInt(bytes, 1, value);
+
+        assertEquals(Integer.toString(value), new String(chars, 1, charEnd - 1));
+        assertEquals(Integer.toString(value), new String(bytes, 1, byteEnd - 1, StandardCharsets.US_ASCII));
+    }
+
+    private static PrimeNumberResponse response(List<Integer> primes) {
+        return new PrimeNumberResponse.Builder()
+                .primes(primes)
+                .numberOfPrimes(primes.size())
+                .durationMillis(3L)
+                .algorithmUsed("SEGMENTED")
+                .build();
+    }
+}
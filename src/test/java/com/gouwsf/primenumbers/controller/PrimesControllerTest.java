@@ -1,7 +1,19 @@
 package com.gouwsf.primenumbers.controller;
 
+import com.gouwsf.primenumbers.algorithms.PrimeSequence;
+import com.gouwsf.primenumbers.exception.ExceptionHandlers;
+import com.gouwsf.primenumbers.exception.TooManyRequestsException;
+import com.gouwsf.primenumbers.model.AlgorithmCalibration;
 import com.gouwsf.primenumbers.model.AlgorithmType;
+import com.gouwsf.primenumbers.model.CalibrationResponse;
+import com.gouwsf.primenumbers.model.PrimalityResponse;
+import com.gouwsf.primenumbers.model.PrimeCountResponse;
+import com.gouwsf.primenumbers.model.PrimeNumberDiagnostics;
 import com.gouwsf.primenumbers.model.PrimeNumberResponse;
+import com.gouwsf.primenumbers.service.AdmittedStream;
+import com.gouwsf.primenumbers.service.CalibrationService;
+import com.gouwsf.primenumbers.service.PrimalityService;
+import com.gouwsf.primenumbers.service.PrimeCountService;
 import com.gouwsf.primenumbers.service.PrimesService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -12,12 +24,22 @@ import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.mock.http.MockHttpInputMessage;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 import static org.springframework.test.web.servlet.setup.MockMvcBuilders.standaloneSetup;
 
@@ -28,11 +50,14 @@ class PrimesControllerTest {
     private PrimesController controller;
     private MockMvc mockMvc;
     @Mock private PrimesService primesService;
+    @Mock private PrimeCountService primeCountService;
+    @Mock private PrimalityService primalityService;
+    @Mock private CalibrationService calibrationService;
 
     @BeforeEach
     void setup() {
-        controller = new PrimesController(primesService);
-        mockMvc =  standaloneSetup(controller).build();
+        controller = new PrimesController(primesService, primeCountService, primalityService, calibrationService);
+        mockMvc =  standaloneSetup(controller).setControllerAdvice(ExceptionHandlers.globalExceptionHandler()).build();
     }
 
     @ParameterizedTest(name = "GET /primeNumbers?limit=30&algo={0} -> 200")
@@ -45,10 +70,10 @@ class PrimesControllerTest {
                 .durationMillis(1234L)
                 .build();
 
-        Mockito.when(primesService.generatePrimes(eq(limit), eq(algo)))
-                .thenReturn(body);
+        Mockito.when(primesService.generatePrimesAsync(eq(limit), eq(algo), eq(false)))
+                .thenReturn(CompletableFuture.completedFuture(body));
 
-        mockMvc.perform(get("/primeNumbers")
+        performAsync(get("/primeNumbers")
                         .param("limit", String.valueOf(limit))
                         .param("algo", algo.name())
                         .accept(MediaType.APPLICATION_JSON))
@@ -58,7 +83,7 @@ class PrimesControllerTest {
                 .andExpect(jsonPath("$.primes.length()").value(10))
                 .andExpect(jsonPath("$.durationMillis").value(1234));
 
-        Mockito.verify(primesService).generatePrimes(eq(limit), eq(algo));
+        Mockito.verify(primesService).generatePrimesAsync(eq(limit), eq(algo), eq(false));
         Mockito.verifyNoMoreInteractions(primesService);
     }
 
@@ -81,4 +106,293 @@ class PrimesControllerTest {
 
         Mockito.verifyNoMoreInteractions(primesService);
     }
+
+    @Test
+    void getPrimeNumbers_diagnostics_passedThroughAndRendered() throws Exception {
+        var body = new PrimeNumberResponse.Builder()
+                .primes(List.of(2, 3, 5, 7))
+                .diagnostics(new PrimeNumberDiagnostics.Builder()
+                        .cacheHit(true)
+                        .computeNanos(12_345L)
+                        .segments(List.of())
+                        .build())
+                .build();
+        Mockito.when(primesService.generatePrimesAsync(10, AlgorithmType.WHEEL, true))
+                .thenReturn(CompletableFuture.completedFuture(body));
+
+        performAsync(get("/primeNumbers")
+                        .param("limit", "10")
+                        .param("algo", AlgorithmType.WHEEL.name())
+                        .param("diagnostics", "true")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.diagnostics.cacheHit").value(true))
+                .andExpect(jsonPath("$.diagnostics.computeNanos").value(12_345));
+    }
+
+    @Test
+    void getPrimeNumbers_primeGaps_negotiatedByAcceptHeader() throws Exception {
+        var body = new PrimeNumberResponse.Builder()
+                .primes(PrimeSequence.of(2, 3, 5, 7, 11, 13, 17, 19, 23, 29))
+                .numberOfPrimes(10)
+                .durationMillis(1L)
+                .algorithmUsed("WHEEL")
+                .build();
+        Mockito.when(primesService.generatePrimesAsync(30, AlgorithmType.AUTO, false))
+                .thenReturn(CompletableFuture.completedFuture(body));
+        var converter = new PrimeGapsHttpMessageConverter();
+        mockMvc = standaloneSetup(controller).setMessageConverters(converter).build();
+
+        MvcResult result = performAsync(get("/primeNumbers")
+                        .param("limit", "30")
+                        .accept(PrimeGapsHttpMessageConverter.MEDIA_TYPE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(PrimeGapsHttpMessageConverter.MEDIA_TYPE))
+                .andReturn();
+
+        byte[] bytes = result.getResponse().getContentAsByteArray();
+        // 3 header bytes, 3 counters, "WHEEL" with its length, then one byte per prime
+        assertEquals(3 + 3 + 6 + 10, bytes.length);
+        var decoded = converter.read(PrimeNumberResponse.class, new MockHttpInputMessage(bytes));
+        assertEquals(body.getPrimes(), decoded.getPrimes());
+        assertEquals("WHEEL", decoded.getAlgorithmUsed());
+    }
+
+    @Test
+    void getPrimeNumbersInRange_invalid_withPrimeGapsAccept_answersJsonError() throws Exception {
+        Mockito.when(primesService.generatePrimesInRangeAsync(10, 5, AlgorithmType.AUTO, false))
+                .thenThrow(new IllegalArgumentException("from must not be greater than to"));
+        mockMvc = standaloneSetup(controller)
+                .setMessageConverters(new PrimeGapsHttpMessageConverter(), new MappingJackson2HttpMessageConverter())
+                .setControllerAdvice(ExceptionHandlers.globalExceptionHandler())
+                .build();
+
+        mockMvc.perform(get("/primeNumbers/range")
+                        .param("from", "10")
+                        .param("to", "5")
+                        .accept(PrimeGapsHttpMessageConverter.MEDIA_TYPE))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.status").value(400));
+    }
+
+    @Test
+    void getPrimeNumbersInRange_invalid_withXmlAccept_answersXmlError() throws Exception {
+        Mockito.when(primesService.generatePrimesInRangeAsync(10, 5, AlgorithmType.AUTO, false))
+                .thenThrow(new IllegalArgumentException("from must not be greater than to"));
+
+        mockMvc.perform(get("/primeNumbers/range")
+                        .param("from", "10")
+                        .param("to", "5")
+                        .accept(MediaType.APPLICATION_XML))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_XML))
+                .andExpect(xpath("//status").string("400"));
+    }
+
+    @Test
+    void getPrimeNumbers_rejected_withPrimeGapsAccept_answersJsonError() throws Exception {
+        Mockito.when(primesService.generatePrimesAsync(30, AlgorithmType.AUTO, false))
+                .thenReturn(CompletableFuture.failedFuture(new TooManyRequestsException("busy", 2)));
+        mockMvc = standaloneSetup(controller)
+                .setMessageConverters(new PrimeGapsHttpMessageConverter(), new MappingJackson2HttpMessageConverter())
+                .setControllerAdvice(ExceptionHandlers.globalExceptionHandler())
+                .build();
+
+        performAsync(get("/primeNumbers")
+                        .param("limit", "30")
+                        .accept(PrimeGapsHttpMessageConverter.MEDIA_TYPE))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "2"))
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.status").value(429));
+    }
+
+    @Test
+    void getPrimeNumbersInRange_ok() throws Exception {
+        var body = new PrimeNumberResponse.Builder()
+                .primes(List.of(101, 103, 107, 109))
+                .numberOfPrimes(4)
+                .build();
+        Mockito.when(primesService.generatePrimesInRangeAsync(100, 110, AlgorithmType.WHEEL, false))
+                .thenReturn(CompletableFuture.completedFuture(body));
+
+        performAsync(get("/primeNumbers/range")
+                        .param("from", "100")
+                        .param("to", "110")
+                        .param("algo", AlgorithmType.WHEEL.name())
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.primes[0]").value(101))
+                .andExpect(jsonPath("$.numberOfPrimes").value(4));
+    }
+
+    @Test
+    void getPrimeNumbers_asyncFailure_dispatchedAsTheServiceException() throws Exception {
+        var failure = new IllegalArgumentException("bad range");
+        Mockito.when(primesService.generatePrimesAsync(30, AlgorithmType.AUTO, false))
+                .thenReturn(CompletableFuture.failedFuture(failure));
+
+        MvcResult result = mockMvc.perform(get("/primeNumbers")
+                        .param("limit", "30")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // the exception handlers see the service's own exception, not a CompletionException
+        assertSame(failure, result.getAsyncResult());
+    }
+
+    @Test
+    void countPrimeNumbers_ok_beyondListCap() throws Exception {
+        long limit = 1_000_000_000_000L;
+        var body = new PrimeCountResponse.Builder()
+                .limit(limit)
+                .numberOfPrimes(37_607_912_018L)
+                .algorithmUsed("LUCY")
+                .build();
+        Mockito.when(primeCountService.countPrimesAsync(limit)).thenReturn(CompletableFuture.completedFuture(body));
+
+        performAsync(get("/primeNumbers/count")
+                        .param("limit", String.valueOf(limit))
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.numberOfPrimes").value(37_607_912_018L))
+                .andExpect(jsonPath("$.algorithmUsed").value("LUCY"));
+
+        Mockito.verifyNoInteractions(primesService);
+    }
+
+    @Test
+    void testPrimality_ok_resultsInRequestOrder() throws Exception {
+        var body = new PrimalityResponse.Builder()
+                .results(List.of(false, true, true))
+                .numberOfPrimes(2)
+                .cacheHits(0)
+                .algorithmUsed("MILLER_RABIN")
+                .build();
+        Mockito.when(primalityService.testPrimalityAsync(List.of(91L, 97L, 9_223_372_036_854_775_783L)))
+                .thenReturn(CompletableFuture.completedFuture(body));
+
+        performAsync(post("/primeNumbers/primality")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"numbers\":[91,97,9223372036854775783]}")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.results[0]").value(false))
+                .andExpect(jsonPath("$.results[2]").value(true))
+                .andExpect(jsonPath("$.numberOfPrimes").value(2));
+    }
+
+    @Test
+    void testPrimality_badRequest_onEmptyBatch() throws Exception {
+        mockMvc.perform(post("/primeNumbers/primality")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"numbers\":[]}")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+
+        Mockito.verifyNoInteractions(primalityService);
+    }
+
+    @Test
+    void streamPrimeNumbers_writesOneJsonArrayPerChunk() throws Exception {
+        int limit = 30;
+        AdmittedStream<PrimeSequence> stream = sink -> {
+            sink.accept(PrimeSequence.of(2, 3, 5, 7, 11, 13));
+            sink.accept(PrimeSequence.empty());
+            sink.accept(PrimeSequence.of(17, 19, 23, 29));
+        };
+        Mockito.when(primesService.streamPrimesAsync(limit, AlgorithmType.AUTO))
+                .thenReturn(CompletableFuture.completedFuture(stream));
+
+        MvcResult result = performAsync(get("/primeNumbers/stream")
+                        .param("limit", String.valueOf(limit))
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string("[2,3,5,7,11,13]\n[17,19,23,29]\n"));
+    }
+
+    @Test
+    void streamPrimeNumbersInRange_writesLongPrimesBeyondIntMax() throws Exception {
+        long from = 999_999_999_999_800L;
+        long to = 1_000_000_000_000_000L;
+        AdmittedStream<long[]> stream = sink -> {
+            sink.accept(new long[]{999_999_999_999_809L, 999_999_999_999_827L});
+            sink.accept(new long[0]);
+            sink.accept(new long[]{999_999_999_999_989L});
+        };
+        Mockito.when(primesService.streamPrimesInRangeAsync(from, to))
+                .thenReturn(CompletableFuture.completedFuture(stream));
+
+        MvcResult result = performAsync(get("/primeNumbers/stream/range")
+                        .param("from", String.valueOf(from))
+                        .param("to", String.valueOf(to))
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().string("[999999999999809,999999999999827]\n[999999999999989]\n"));
+    }
+
+    @Test
+    void streamPrimeNumbersInRange_invalidRange_rejectedBeforeStreaming() throws Exception {
+        Mockito.when(primesService.streamPrimesInRangeAsync(10L, 5L))
+                .thenThrow(new IllegalArgumentException("from must not be greater than to"));
+
+        mockMvc.perform(get("/primeNumbers/stream/range")
+                        .param("from", "10")
+                        .param("to", "5")
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncNotStarted())
+                .andExpect(status().isBadRequest())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.status").value(400));
+    }
+
+    @Test
+    void streamPrimeNumbers_rejected_answersJsonErrorInsteadOfAStream() throws Exception {
+        Mockito.when(primesService.streamPrimesAsync(30, AlgorithmType.AUTO))
+                .thenReturn(CompletableFuture.failedFuture(new TooManyRequestsException("busy", 2)));
+
+        performAsync(get("/primeNumbers/stream")
+                        .param("limit", "30")
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "2"))
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.status").value(429));
+    }
+
+    @Test
+    void getCalibration_ok() throws Exception {
+        var wheel = new AlgorithmCalibration.Builder()
+                .algorithm(AlgorithmType.WHEEL)
+                .parallelThreshold(1_200_000)
+                .sequentialNanosPerUnit(1.4)
+                .build();
+        Mockito.when(calibrationService.getCalibration())
+                .thenReturn(new CalibrationResponse.Builder().parallelism(8).algorithms(List.of(wheel)).build());
+
+        performAsync(get("/primeNumbers/calibration").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.parallelism").value(8))
+                .andExpect(jsonPath("$.algorithms[0].algorithm").value("WHEEL"))
+                .andExpect(jsonPath("$.algorithms[0].parallelThreshold").value(1_200_000));
+    }
+
+    /** Performs a request whose handler returns a future, and dispatches its result once it has completed. */
+    private ResultActions performAsync(MockHttpServletRequestBuilder builder) throws Exception {
+        MvcResult started = mockMvc.perform(builder)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(started));
+    }
 }
@@ -0,0 +1,264 @@
+package com.gouwsf.primenumbers.controller;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class ResponseCacheFilterTest {
+
+    private final ConcurrentMapCache cache = new ConcurrentMapCache("primeResponses");
+    private final ResponseCacheFilter filter = new ResponseCacheFilter(cache, 1 << 20);
+    private final AtomicInteger renders = new AtomicInteger();
+    private String body = "{\"primes\":[2,3,5,7]}";
+    private int status = 200;
+
+    @Test
+    void repeatedRequest_servedFromCache() throws Exception {
+        var first = perform(request("30", "application/json", null));
+        var second = perform(request("30", "application/json", null));
+
+        assertEquals(1, renders.get());
+        assertEquals("MISS", first.getHeader(ResponseCacheFilter.CACHE_HEADER));
+        assertEquals("HIT", second.getHeader(ResponseCacheFilter.CACHE_HEADER));
+        assertEquals(body, second.getContentAsString());
+        assertEquals("application/json", second.getContentType());
+        assertEquals(body.length(), second.getContentLength());
+    }
+
+    @Test
+    void acceptHeaderAndEncoding_areSeparateEntries() throws Exception {
+        perform(request("30", "application/json", null));
+        perform(request("30", "application/xml", null));
+        perform(request("30", "application/json", "gzip"));
+        perform(request("100", "application/json", null));
+
+        assertEquals(4, renders.get());
+    }
+
+    @Test
+    void largeBody_storedGzippedForClientsThatAcceptIt() throws Exception {
+        body = "[" + "2,".repeat(5_000) + "3]";
+
+        var miss = perform(request("1000", "application/json", "gzip, deflate"));
+        var hit = perform(request("1000", "application/json", "gzip, deflate"));
+
+        for (MockHttpServletResponse response : new MockHttpServletResponse[]{miss, hit}) {
+            assertEquals("gzip", response.getHeader(HttpHeaders.CONTENT_ENCODING));
+            assertTrue(response.getContentAsByteArray().length < body.length() / 10);
+            assertEquals(body, gunzip(response.getContentAsByteArray()));
+        }
+        assertEquals(1, renders.get());
+        var entry = cache.get(cache.getNativeCache().keySet().iterator().next(), ResponseCacheFilter.CachedResponse.class);
+        assertEquals(64 + hit.getContentAsByteArray().length, entry.weight());
+    }
+
+    @Test
+    void smallBody_notCompressed() throws Exception {
+        var response = perform(request("30", "application/json", "gzip"));
+
+        assertNull(response.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(body, response.getContentAsString());
+    }
+
+    @Test
+    void diagnosticsAndErrors_notCached() throws Exception {
+        var traced = request("30", "application/json", null);
+        traced.setParameter("diagnostics", "true");
+        perform(traced);
+        perform(traced);
+        status = 429;
+        perform(request("100", "application/json", null));
+        var error = perform(request("100", "application/json", null));
+
+        assertEquals(4, renders.get());
+        assertEquals(429, error.getStatus());
+        assertEquals(body, error.getContentAsString());
+        assertTrue(cache.getNativeCache().isEmpty());
+    }
+
+    @Test
+    void bodyOverLimit_streamsThroughUncached() throws Exception {
+        var small = new ResponseCacheFilter(cache, 100);
+        body = "x".repeat(1_000);
+
+        var response = new MockHttpServletResponse();
+        small.doFilter(request("1000", "application/json", null), response, new MockFilterChain(servlet()));
+
+        assertEquals(body, response.getContentAsString());
+        assertNull(response.getHeader(ResponseCacheFilter.CACHE_HEADER));
+        assertTrue(cache.getNativeCache().isEmpty());
+    }
+
+    @Test
+    void limit_appliesToTheStoredCompressedSize() throws Exception {
+        var small = new ResponseCacheFilter(cache, 1_000);
+        body = "[" + "2,".repeat(5_000) + "3]";
+
+        var plain = new MockHttpServletResponse();
+        small.doFilter(request("1000", "application/json", null), plain, new MockFilterChain(servlet()));
+        var gzipped = new MockHttpServletResponse();
+        small.doFilter(request("1000", "application/json", "gzip"), gzipped, new MockFilterChain(servlet()));
+
+        assertNull(plain.getHeader(ResponseCacheFilter.CACHE_HEADER));
+        assertEquals(body, plain.getContentAsString());
+        assertEquals("MISS", gzipped.getHeader(ResponseCacheFilter.CACHE_HEADER));
+        assertEquals(body, gunzip(gzipped.getContentAsByteArray()));
+        assertEquals(1, cache.getNativeCache().size());
+    }
+
+    @Test
+    void compressedBodyOverLimit_streamsThroughGzipped() throws Exception {
+        var small = new ResponseCacheFilter(cache, 3_000);
+        var random = new Random(7);
+        var sb = new StringBuilder();
+        while (sb.length() < 200_000) sb.append(random.nextInt()).append(',');
+        body = sb.toString();
+
+        var response = new MockHttpServletResponse();
+        small.doFilter(request("1000", "application/json", "gzip"), response, new MockFilterChain(servlet()));
+
+        assertNull(response.getHeader(ResponseCacheFilter.CACHE_HEADER));
+        assertEquals("gzip", response.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(body, gunzip(response.getContentAsByteArray()));
+        assertTrue(cache.getNativeCache().isEmpty());
+    }
+
+    @Test
+    void writeListener_overflowsToTheRealStream() throws Exception {
+        var registered = new AtomicReference<WriteListener>();
+        var real = new HttpServletResponseWrapper(new MockHttpServletResponse()) {
+            @Override
+            public ServletOutputStream getOutputStream() {
+                return new ServletOutputStream() {
+                    @Override
+                    public boolean isReady() {
+                        return false;
+                    }
+
+                    @Override
+                    public void setWriteListener(WriteListener listener) {
+                        registered.set(listener);
+                    }
+
+                    @Override
+                    public void write(int b) {
+                    }
+                };
+            }
+        };
+        var listener = mock(WriteListener.class);
+        var chain = new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+                resp.getOutputStream().setWriteListener(listener);
+                assertFalse(resp.getOutputStream().isReady());
+            }
+        });
+
+        filter.doFilter(request("30", "application/json", null), real, chain);
+
+        assertSame(listener, registered.get());
+        assertTrue(cache.getNativeCache().isEmpty());
+    }
+
+    @Test
+    void writerAndReset_storeOnlyTheFinalBody() throws Exception {
+        var response = new MockHttpServletResponse();
+        filter.doFilter(request("30", "application/json", "gzip"), response, new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+                resp.setContentType("application/json");
+                resp.setCharacterEncoding("UTF-8");
+                // an error handler discards what a failed render had buffered, compressed or not
+                resp.getWriter().write("x".repeat(ResponseCacheFilter.GZIP_MIN_BYTES));
+                resp.resetBuffer();
+                resp.getWriter().write(body);
+                resp.flushBuffer();
+            }
+        }));
+
+        assertEquals("MISS", response.getHeader(ResponseCacheFilter.CACHE_HEADER));
+        assertEquals(body, response.getContentAsString());
+        assertEquals(body, perform(request("30", "application/json", "gzip")).getContentAsString());
+    }
+
+    @Test
+    void flushAfterOverflow_reachesTheRealResponse() throws Exception {
+        var small = new ResponseCacheFilter(cache, 10);
+        var response = new MockHttpServletResponse();
+        small.doFilter(request("30", "application/json", null), response, new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+                resp.setContentType("application/json");
+                resp.getOutputStream().write(body.getBytes());
+                resp.getOutputStream().flush();
+                assertTrue(resp.isCommitted());
+            }
+        }));
+
+        assertNull(response.getHeader(ResponseCacheFilter.CACHE_HEADER));
+        assertEquals(body, response.getContentAsString());
+        assertTrue(cache.getNativeCache().isEmpty());
+    }
+
+    @ParameterizedTest(name = "Accept-Encoding: \"{0}\" -> gzip {1}")
+    @CsvSource(delimiter = '|', value = {
+            "gzip|true", "gzip, deflate, br|true", "deflate;q=1.0, GZIP;q=0.5|true",
+            "gzip;q=0|false", "gzip;q=0.000|false", "deflate|false", "''|false"})
+    void acceptsGzip(String acceptEncoding, boolean expected) {
+        assertEquals(expected, ResponseCacheFilter.acceptsGzip(acceptEncoding));
+    }
+
+    private MockHttpServletResponse perform(MockHttpServletRequest request) throws Exception {
+        var response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain(servlet()));
+        return response;
+    }
+
+    private HttpServlet servlet() {
+        return new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+                renders.incrementAndGet();
+                resp.setStatus(status);
+                resp.setContentType("application/json");
+                resp.getOutputStream().write(body.getBytes());
+            }
+        };
+    }
+
+    private static MockHttpServletRequest request(String limit, String accept, String acceptEncoding) {
+        var request = new MockHttpServletRequest("GET", "/primeNumbers");
+        request.setParameter("limit", limit);
+        request.addHeader(HttpHeaders.ACCEPT, accept);
+        if (acceptEncoding != null) request.addHeader(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        return request;
+    }
+
+    private static String gunzip(byte[] bytes) throws IOException {
+        try (var in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            return new String(in.readAllBytes());
+        }
+    }
+}
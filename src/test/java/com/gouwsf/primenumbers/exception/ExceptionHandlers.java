@@ -0,0 +1,15 @@
+package com.gouwsf.primenumbers.exception;
+
+/**
+ * Gives controller tests in other packages the package-private {@link GlobalExceptionHandler}, for
+ * {@code MockMvc} standalone setups that have no application context to pick it up from.
+ */
+public final class ExceptionHandlers {
+
+    private ExceptionHandlers() {
+    }
+
+    public static Object globalExceptionHandler() {
+        return new GlobalExceptionHandler();
+    }
+}
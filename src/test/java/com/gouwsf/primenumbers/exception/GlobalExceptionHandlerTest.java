@@ -70,6 +70,20 @@ class GlobalExceptionHandlerTest {
             .isEqualTo("Illegal argument during prime number generation");
     }
 
+    @Test
+    @DisplayName("TooManyRequestsException -> 429 with Retry-After header")
+    void tooManyRequests() {
+        var ex = new TooManyRequestsException("busy", 3);
+
+        ResponseEntity<Object> response = handler.handleTooManyRequests(ex);
+
+        assertThat(response.getStatusCodeValue()).isEqualTo(429);
+        assertThat(response.getHeaders().getFirst("Retry-After")).isEqualTo("3");
+        var body = (ErrorResponse) response.getBody();
+        assertThat(body.getError()).isEqualTo("Too Many Requests");
+        assertThat(body.getTitle()).isEqualTo("Too many requests");
+    }
+
     @Test
     void whenRequiredTypeIsEnum_usesEnumMessage_andReturnsBadRequest() throws NoSuchMethodException {
         var method = DummyController.class.getDeclaredMethod("endpoint", DummyEnum.class, Integer.class);
@@ -1,6 +1,8 @@
 package com.gouwsf.primenumbers.integration;
 
+import com.gouwsf.primenumbers.controller.PrimeGapsHttpMessageConverter;
 import com.gouwsf.primenumbers.model.AlgorithmType;
+import com.gouwsf.primenumbers.model.PrimeNumberResponse;
 import io.restassured.RestAssured;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
@@ -8,14 +10,23 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.server.LocalServerPort;
 import org.springframework.http.MediaType;
+import org.springframework.mock.http.MockHttpInputMessage;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
 
 import static io.restassured.RestAssured.given;
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureObservability(tracing = false)
 class PrimesControllerIT {
 
     @LocalServerPort int port;
@@ -65,6 +76,219 @@ class PrimesControllerIT {
             .body("PrimeNumberResponse.primes.primes[0]", anyOf(equalTo("2"), equalTo("3")));
     }
 
+    @Test
+    @DisplayName("Prime gaps: /primeNumbers?limit=1000000 -> compact binary that decodes to every prime")
+    void primeNumbers_primeGaps_decodes() throws Exception {
+        byte[] body = given()
+                .accept(PrimeGapsHttpMessageConverter.MEDIA_TYPE_VALUE)
+                .queryParam("limit", 1_000_000)
+            .when()
+                .get("/primeNumbers")
+            .then()
+                .statusCode(200)
+                .contentType(PrimeGapsHttpMessageConverter.MEDIA_TYPE_VALUE)
+                .extract().asByteArray();
+
+        PrimeNumberResponse decoded = new PrimeGapsHttpMessageConverter()
+                .read(PrimeNumberResponse.class, new MockHttpInputMessage(body));
+        assertEquals(78_498, decoded.getPrimes().size());
+        assertEquals(2, decoded.getPrimes().get(0));
+        assertEquals(999_983, decoded.getPrimes().get(78_497));
+        // about one byte per prime, against roughly seven in JSON
+        assertTrue(body.length < 80_000, "payload was " + body.length + " bytes");
+    }
+
+    @ParameterizedTest(name = "Prime gaps: {0} -> 400 as JSON, not 406/500")
+    @ValueSource(strings = {"/primeNumbers/range?from=10&to=5", "/primeNumbers?limit=-1"})
+    void primeGapsAccept_invalidRequest_answersJsonError(String uri) {
+        given()
+                .accept(PrimeGapsHttpMessageConverter.MEDIA_TYPE_VALUE)
+            .when()
+                .get(uri)
+            .then()
+                .statusCode(400)
+                .contentType(MediaType.APPLICATION_JSON_VALUE)
+                .body("status", equalTo(400));
+    }
+
+    @Test
+    @DisplayName("XML: an invalid range -> 400 negotiated as XML")
+    void xmlAccept_invalidRequest_answersXmlError() {
+        given()
+                .accept(MediaType.APPLICATION_XML_VALUE)
+            .when()
+                .get("/primeNumbers/range?from=10&to=5")
+            .then()
+                .statusCode(400)
+                .contentType(startsWith(MediaType.APPLICATION_XML_VALUE))
+                .body("ErrorResponse.status", equalTo("400"));
+    }
+
+    @Test
+    @DisplayName("Response cache: a repeated request is replayed gzipped from the serialized response cache")
+    void primeNumbers_repeated_servedFromResponseCache() {
+        String computedDuration = null;
+        for (String expected : new String[]{"MISS", "HIT"}) {
+            String duration = given()
+                    .accept(MediaType.APPLICATION_XML_VALUE)
+                    .header("Accept-Encoding", "gzip")
+                    .queryParam("limit", 200_000)
+                    .queryParam("algo", AlgorithmType.SEGMENTED.name())
+                .when()
+                    .get("/primeNumbers")
+                .then()
+                    .statusCode(200)
+                    .header("X-Cache", expected)
+                    .header("Content-Encoding", "gzip")
+                    .contentType(startsWith(MediaType.APPLICATION_XML_VALUE))
+                    .body("PrimeNumberResponse.numberOfPrimes", equalTo("17984"))
+                    .extract().path("PrimeNumberResponse.durationMillis");
+            // a hit replays the timings of the request that computed the body
+            if (computedDuration != null) assertEquals(computedDuration, duration);
+            computedDuration = duration;
+        }
+        assertTrue(computedDuration != null);
+    }
+
+    @ParameterizedTest(name = "JSON: /primeNumbers/range?from=200000000&to=200000100&algo={0} -> 200")
+    @EnumSource(value = AlgorithmType.class)
+    void primeNumbers_range_allAlgos(AlgorithmType algo) {
+        given()
+                .accept(MediaType.APPLICATION_JSON_VALUE)
+                .queryParam("from", 200_000_000)
+                .queryParam("to", 200_000_100)
+                .queryParam("algo", algo.name())
+            .when()
+                .get("/primeNumbers/range")
+            .then()
+                .statusCode(200)
+                .body("primes", contains(200000033, 200000039, 200000051, 200000069,
+                        200000081, 200000083, 200000089, 200000093))
+                .body("numberOfPrimes", equalTo(8));
+    }
+
+    @Test
+    @DisplayName("Bad request when the range is inverted")
+    void primeNumbers_range_badRequest_onInvertedRange() {
+        given()
+                .accept(MediaType.APPLICATION_JSON_VALUE)
+                .queryParam("from", 100)
+                .queryParam("to", 10)
+            .when()
+                .get("/primeNumbers/range")
+            .then()
+                .statusCode(400);
+    }
+
+    @Test
+    @DisplayName("JSON: /primeNumbers/count?limit=10000000000 -> 200 with pi(10^10)")
+    void primeNumbers_count_beyondIntRange() {
+        given()
+                .accept(MediaType.APPLICATION_JSON_VALUE)
+                .queryParam("limit", 10_000_000_000L)
+            .when()
+                .get("/primeNumbers/count")
+            .then()
+                .statusCode(200)
+                .body("numberOfPrimes", equalTo(455052511))
+                .body("algorithmUsed", equalTo("LUCY"));
+    }
+
+    @Test
+    @DisplayName("JSON: POST /primeNumbers/primality -> 200 with one flag per number, in order")
+    void primeNumbers_primality_batch() {
+        given()
+                .contentType(MediaType.APPLICATION_JSON_VALUE)
+                .accept(MediaType.APPLICATION_JSON_VALUE)
+                .body("{\"numbers\":[1,2,91,97,4759123141,9223372036854775783]}")
+            .when()
+                .post("/primeNumbers/primality")
+            .then()
+                .statusCode(200)
+                .body("results", contains(false, true, false, true, false, true))
+                .body("numberOfPrimes", equalTo(3));
+    }
+
+    @Test
+    @DisplayName("NDJSON: /primeNumbers/stream/range across 2^32 -> 200 with long primes")
+    void primeNumbers_streamRange_beyondIntMax() {
+        given()
+                .accept(MediaType.APPLICATION_NDJSON_VALUE)
+                .queryParam("from", 4_294_967_286L)
+                .queryParam("to", 4_294_967_396L)
+            .when()
+                .get("/primeNumbers/stream/range")
+            .then()
+                .statusCode(200)
+                .body(equalTo("[4294967291,4294967311,4294967357,4294967371,4294967377,4294967387,4294967389]\n"));
+    }
+
+    @Test
+    @DisplayName("NDJSON: /primeNumbers/stream?limit=1000000 -> 200 with every prime, line by line")
+    void primeNumbers_stream_ndjson() {
+        String body = given()
+                .accept(MediaType.APPLICATION_NDJSON_VALUE)
+                .queryParam("limit", 1_000_000)
+                .queryParam("algo", AlgorithmType.SEGMENTED.name())
+            .when()
+                .get("/primeNumbers/stream")
+            .then()
+                .statusCode(200)
+                .contentType(startsWith(MediaType.APPLICATION_NDJSON_VALUE))
+                .extract().asString();
+
+        long count = body.lines()
+                .map(line -> line.substring(1, line.length() - 1))
+                .flatMap(line -> Arrays.stream(line.split(",")))
+                .count();
+        assertEquals(78_498, count);
+    }
+
+    @Test
+    @DisplayName("JSON: /primeNumbers/calibration -> 200 with the background-measured curve of every algorithm")
+    void primeNumbers_calibration() throws InterruptedException {
+        // calibration runs in the background once the application is ready
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+        while (given().accept(MediaType.APPLICATION_JSON_VALUE).get("/primeNumbers/calibration")
+                .jsonPath().getList("algorithms[4].samples").isEmpty() && System.nanoTime() < deadline) {
+            Thread.sleep(100);
+        }
+
+        given()
+                .accept(MediaType.APPLICATION_JSON_VALUE)
+            .when()
+                .get("/primeNumbers/calibration")
+            .then()
+                .statusCode(200)
+                .body("parallelism", greaterThanOrEqualTo(1))
+                .body("algorithms", hasSize(5))
+                .body("algorithms.algorithm", not(hasItem("AUTO")))
+                .body("algorithms[0].samples", hasSize(7))
+                .body("algorithms.parallelThreshold", everyItem(greaterThan(0)));
+    }
+
+    @Test
+    @DisplayName("Prometheus: /actuator/prometheus exposes compute, executor, cache and response size metrics")
+    void actuator_prometheus_exposesPrimeMetrics() {
+        given().queryParam("limit", 100_000).queryParam("algo", AlgorithmType.WHEEL.name())
+                .accept(MediaType.APPLICATION_JSON_VALUE).get("/primeNumbers").then().statusCode(200);
+        given().queryParam("limit", 1_000).accept(MediaType.APPLICATION_JSON_VALUE)
+                .get("/primeNumbers/count").then().statusCode(200);
+
+        given()
+            .when()
+                .get("/actuator/prometheus")
+            .then()
+                .statusCode(200)
+                .body(containsString("primes_compute_seconds_bucket{algorithm=\"WHEEL\""),
+                        containsString("primes_scheduler_tasks{"),
+                        containsString("executor_active{"),
+                        containsString("executor_queued{"),
+                        containsString("cache_gets_total{"),
+                        containsString("cache_eviction_weight_total{"),
+                        containsString("primes_response_bytes_count{"));
+    }
+
     @Test
     @DisplayName("Bad request when limit is invalid (example)")
     void primeNumbers_badRequest_onInvalidLimit() {
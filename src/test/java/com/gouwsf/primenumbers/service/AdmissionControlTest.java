@@ -0,0 +1,207 @@
+package com.gouwsf.primenumbers.service;
+
+import com.gouwsf.primenumbers.algorithms.PrimesGenerator;
+import com.gouwsf.primenumbers.algorithms.impl.AtkinsSieve;
+import com.gouwsf.primenumbers.algorithms.impl.EratosthenesSieve;
+import com.gouwsf.primenumbers.algorithms.impl.PrimesNaive;
+import com.gouwsf.primenumbers.algorithms.impl.SegmentedSieve;
+import com.gouwsf.primenumbers.algorithms.impl.WheelSieve;
+import com.gouwsf.primenumbers.exception.TooManyRequestsException;
+import com.gouwsf.primenumbers.service.impl.AdmissionControl;
+import com.gouwsf.primenumbers.service.impl.AdmissionControl.RequestCost;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdmissionControlTest {
+
+    private static final long SECOND = 1_000_000_000L;
+    private static final long MB = 1L << 20;
+
+    static Stream<PrimesGenerator> generators() {
+        return Stream.of(new PrimesNaive(), new EratosthenesSieve(), new SegmentedSieve(), new WheelSieve(), new AtkinsSieve());
+    }
+
+    @ParameterizedTest
+    @MethodSource("generators")
+    @DisplayName("estimate grows with the limit and prices heap by the number of primes")
+    void estimate_growsWithLimit(PrimesGenerator generator) {
+        var small = AdmissionControl.estimate(generator, 0, 1_000_000);
+        var large = AdmissionControl.estimate(generator, 0, 100_000_000);
+
+        assertTrue(large.cpuNanos() > small.cpuNanos());
+        assertTrue(large.heapBytes() > small.heapBytes());
+        // ~5.76M primes below 1e8, each held twice as an int
+        assertTrue(large.heapBytes() >= 5_761_455L * 2 * Integer.BYTES);
+        assertEquals(new RequestCost(0, 0), AdmissionControl.estimate(generator, 1_000, 1_000));
+    }
+
+    @Test
+    @DisplayName("estimate prices trial division far above a sieve of the same range")
+    void estimate_naiveMostExpensive() {
+        var naive = AdmissionControl.estimate(new PrimesNaive(), 0, 10_000_000);
+        var segmented = AdmissionControl.estimate(new SegmentedSieve(), 0, 10_000_000);
+
+        assertTrue(naive.cpuNanos() > 10 * segmented.cpuNanos());
+        // the same primes, but trial division keeps no sieve
+        assertEquals(segmented.heapBytes() - new SegmentedSieve().sieveBufferBytes(0, 10_000_000), naive.heapBytes());
+    }
+
+    @Test
+    @DisplayName("estimate adds each generator's sieve buffer to the heap of the primes")
+    void estimate_includesSieveBuffer() {
+        long primesOnly = AdmissionControl.estimate(new PrimesNaive(), 0, 100_000_000).heapBytes();
+
+        // a boolean per number
+        assertEquals(primesOnly + 100_000_000, AdmissionControl.estimate(new AtkinsSieve(), 0, 100_000_000).heapBytes());
+        // one bit per odd number from 0, a boolean per number for any other range
+        assertEquals(primesOnly + 100_000_000 / 16,
+                AdmissionControl.estimate(new EratosthenesSieve(), 0, 100_000_000).heapBytes());
+        long rangePrimes = AdmissionControl.estimate(new PrimesNaive(), 50_000_000, 100_000_000).heapBytes();
+        assertEquals(rangePrimes + 50_000_000,
+                AdmissionControl.estimate(new EratosthenesSieve(), 50_000_000, 100_000_000).heapBytes());
+        // one reused 32 KB window, however wide the range
+        assertEquals(primesOnly + 32 * 1024,
+                AdmissionControl.estimate(new SegmentedSieve(), 0, 100_000_000).heapBytes());
+    }
+
+    @Test
+    @DisplayName("a count is priced by Lucy's steps and tables, not by the primes below its limit")
+    void estimateCount_sublinear() {
+        var count = AdmissionControl.estimateCount(1_000_000_000_000L);
+
+        // 10^9 steps, two tables of 10^6 entries
+        assertEquals(1_000_000_000L, count.cpuNanos(), 1_000_000L);
+        assertEquals(12_000_012L, count.heapBytes());
+        assertEquals(new RequestCost(0, 0), AdmissionControl.estimateCount(1));
+    }
+
+    @Test
+    @DisplayName("a primality batch is priced per tested number")
+    void estimatePrimality_linearInBatchSize() {
+        var one = AdmissionControl.estimatePrimality(1);
+
+        assertTrue(one.cpuNanos() > 0 && one.heapBytes() > 0);
+        assertEquals(new RequestCost(1_000 * one.cpuNanos(), 1_000 * one.heapBytes()),
+                AdmissionControl.estimatePrimality(1_000));
+    }
+
+    @Test
+    @DisplayName("a stream is priced by the window it holds at once, not by its whole range")
+    void estimateStream_pricesTheWindow() {
+        var generator = new SegmentedSieve();
+
+        assertEquals(AdmissionControl.estimate(generator, 0, 1L << 24),
+                AdmissionControl.estimateStream(generator, 0, 1_000_000_000, 1L << 24));
+        assertEquals(AdmissionControl.estimate(generator, 0, 1_000),
+                AdmissionControl.estimateStream(generator, 0, 1_000, 1L << 24));
+    }
+
+    @Test
+    @DisplayName("small requests bypass the gate even when the budget is exhausted")
+    void admit_smallRequestsBypass() {
+        var gate = new AdmissionControl(10 * MB, SECOND, 20_000_000, 0, 1);
+        var big = gate.admit(new RequestCost(SECOND, 10 * MB)).join();
+
+        try (var small = gate.admit(new RequestCost(1_000_000, 1_000)).join()) {
+            assertEquals(1, gate.inFlight());
+        }
+        big.close();
+        assertEquals(0, gate.inFlight());
+    }
+
+    @Test
+    @DisplayName("a request that does not fit is rejected with a Retry-After estimate once the wait runs out")
+    void admit_overBudget_rejectedWithRetryAfter() {
+        var gate = new AdmissionControl(100 * MB, 4 * SECOND, 0, TimeUnit.MILLISECONDS.toNanos(20), 2);
+
+        try (var first = gate.admit(new RequestCost(3 * SECOND, 10 * MB)).join()) {
+            var second = gate.admit(new RequestCost(2 * SECOND, 10 * MB));
+            // the caller is not held while the request waits
+            assertFalse(second.isDone());
+
+            var ex = rejection(second);
+            // 3 core-seconds in flight on 2 threads drain in 1.5 s
+            assertEquals(2, ex.getRetryAfterSeconds());
+            assertEquals(1, gate.inFlight());
+        }
+    }
+
+    @Test
+    @DisplayName("heap budget is enforced independently of CPU")
+    void admit_heapBudget() {
+        var gate = new AdmissionControl(64 * MB, Long.MAX_VALUE, 0, 0, 1);
+
+        try (var first = gate.admit(new RequestCost(SECOND, 40 * MB)).join()) {
+            rejection(gate.admit(new RequestCost(SECOND, 40 * MB)));
+            try (var fits = gate.admit(new RequestCost(SECOND, 20 * MB)).join()) {
+                assertEquals(2, gate.inFlight());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("a request larger than the whole budget runs once nothing else is in flight")
+    void admit_oversizedRequestRunsAlone() {
+        var gate = new AdmissionControl(MB, SECOND, 0, 0, 1);
+
+        try (var huge = gate.admit(new RequestCost(100 * SECOND, 100 * MB)).join()) {
+            assertEquals(1, gate.inFlight());
+        }
+    }
+
+    @Test
+    @DisplayName("a waiting request is admitted as soon as budget is released")
+    void admit_waitsForRelease() throws Exception {
+        var gate = new AdmissionControl(100 * MB, SECOND, 0, TimeUnit.SECONDS.toNanos(10), 1);
+        var first = gate.admit(new RequestCost(SECOND, MB)).join();
+
+        var second = gate.admit(new RequestCost(SECOND, MB));
+
+        assertFalse(second.isDone());
+        first.close();
+        first.close(); // closing twice releases once
+
+        // admitted by the release itself, without any thread having waited
+        assertTrue(second.isDone());
+        try (var permit = second.get(5, TimeUnit.SECONDS)) {
+            assertEquals(1, gate.inFlight());
+        }
+        assertEquals(0, gate.inFlight());
+    }
+
+    @Test
+    @DisplayName("waiting requests are admitted in arrival order as budget frees up, skipping those that still do not fit")
+    void admit_releaseAdmitsEveryWaiterThatFits() {
+        var gate = new AdmissionControl(100 * MB, 2 * SECOND, 0, TimeUnit.SECONDS.toNanos(10), 1);
+        var first = gate.admit(new RequestCost(2 * SECOND, MB)).join();
+
+        var a = gate.admit(new RequestCost(SECOND * 3 / 2, MB));
+        var b = gate.admit(new RequestCost(SECOND, MB));
+        var c = gate.admit(new RequestCost(SECOND / 2, MB));
+        first.close();
+
+        // b does not fit next to a, but c does
+        assertTrue(a.isDone());
+        assertFalse(b.isDone());
+        assertTrue(c.isDone());
+        a.join().close();
+        assertTrue(b.isDone());
+        b.join().close();
+        c.join().close();
+        assertEquals(0, gate.inFlight());
+    }
+
+    private static TooManyRequestsException rejection(CompletableFuture<AdmissionControl.Permit> admission) {
+        var ex = assertThrows(ExecutionException.class, () -> admission.get(5, TimeUnit.SECONDS));
+        return assertInstanceOf(TooManyRequestsException.class, ex.getCause());
+    }
+}
@@ -0,0 +1,168 @@
+package com.gouwsf.primenumbers.service;
+
+import com.gouwsf.primenumbers.algorithms.PrimesGenerator;
+import com.gouwsf.primenumbers.algorithms.impl.AtkinsSieve;
+import com.gouwsf.primenumbers.algorithms.impl.EratosthenesSieve;
+import com.gouwsf.primenumbers.algorithms.impl.PrimesNaive;
+import com.gouwsf.primenumbers.algorithms.impl.SegmentedSieve;
+import com.gouwsf.primenumbers.algorithms.impl.WheelSieve;
+import com.gouwsf.primenumbers.model.AlgorithmType;
+import com.gouwsf.primenumbers.service.impl.CostModel;
+import com.gouwsf.primenumbers.service.impl.PrimesExecutorService;
+import com.gouwsf.primenumbers.service.impl.SizeAwareScheduler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CostModelTest {
+
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+    private final List<PrimesGenerator> generators = List.of(new AtkinsSieve(), new EratosthenesSieve(),
+            new PrimesNaive(), new SegmentedSieve(), new WheelSieve());
+    private final PrimesExecutorService executor = new PrimesExecutorService(pool, new SizeAwareScheduler(pool, 1_000_000, new SimpleMeterRegistry()));
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("uncalibrated: the cheapest sieve wins, in parallel only once the range spans several leaves")
+    void choose_defaultRates() {
+        var model = new CostModel(generators, executor, pool, false, 0);
+
+        assertEquals(new CostModel.Choice(AlgorithmType.WHEEL, false), model.choose(0, 50_000));
+        assertEquals(new CostModel.Choice(AlgorithmType.WHEEL, true), model.choose(0, 100_000_000));
+    }
+
+    @Test
+    @DisplayName("observed durations move the choice away from an algorithm that runs slower than modelled")
+    void observe_refinesChoice() {
+        var model = new CostModel(generators, executor, pool, false, 0);
+
+        // the wheel sieve keeps taking 20 ms for 1,000,000 numbers - 20 ns per number
+        for (int i = 0; i < 30; i++) {
+            model.observe(AlgorithmType.WHEEL, 0, 1_000_000, false, 20_000_000);
+        }
+
+        assertEquals(new CostModel.Choice(AlgorithmType.SEGMENTED, false), model.choose(0, 50_000));
+        assertTrue(model.estimateNanos(AlgorithmType.WHEEL, 0, 1_000_000, false) > 15_000_000);
+    }
+
+    @Test
+    @DisplayName("observations too short to time reliably are ignored")
+    void observe_ignoresNoise() {
+        var model = new CostModel(generators, executor, pool, false, 0);
+        double before = model.estimateNanos(AlgorithmType.WHEEL, 0, 1_000_000, false);
+
+        model.observe(AlgorithmType.WHEEL, 0, 1_000_000, false, 1_000);
+
+        assertEquals(before, model.estimateNanos(AlgorithmType.WHEEL, 0, 1_000_000, false));
+    }
+
+    @Test
+    @DisplayName("trial division is modelled as super-linear, so it only wins for tiny limits if at all")
+    void work_naiveGrowsFasterThanSieves() {
+        double ratioSieve = CostModel.work(AlgorithmType.ERATOS, 0, 10_000_000) / CostModel.work(AlgorithmType.ERATOS, 0, 100_000);
+        double ratioNaive = CostModel.work(AlgorithmType.NAIVE, 0, 10_000_000) / CostModel.work(AlgorithmType.NAIVE, 0, 100_000);
+
+        assertEquals(100, ratioSieve, 0.01);
+        assertTrue(ratioNaive > 300, "naive work grew only " + ratioNaive + "x");
+        assertThrows(IllegalArgumentException.class, () -> CostModel.defaultNanosPerUnit(AlgorithmType.AUTO));
+    }
+
+    @Test
+    @DisplayName("an empty or inverted range is no work for any algorithm, so it never favours trial division")
+    void work_emptyOrInvertedRange_isZero() {
+        for (AlgorithmType algo : List.of(AlgorithmType.NAIVE, AlgorithmType.ERATOS, AlgorithmType.WHEEL)) {
+            assertEquals(0, CostModel.work(algo, 2_000_000, 2_000_000));
+            assertEquals(0, CostModel.work(algo, 2_000_000, 1_500_000));
+        }
+        assertEquals(0, CostModel.estimatePrimeCount(2_000_000, 1_500_000));
+    }
+
+    @Test
+    @DisplayName("calibration fits a positive rate for every algorithm and mode")
+    void calibrate_fitsEveryRate() {
+        var model = new CostModel(generators, executor, pool, false, 0);
+
+        model.calibrate();
+
+        for (PrimesGenerator generator : generators) {
+            assertTrue(model.estimateNanos(generator.getType(), 0, 1_000_000, false) > 0);
+            assertTrue(model.estimateNanos(generator.getType(), 0, 1_000_000, true) > 0);
+        }
+        assertNotEquals(AlgorithmType.AUTO, model.choose(0, 10_000_000).algorithm());
+        for (CostModel.Curve curve : model.curves()) {
+            assertEquals(7, curve.samples().size());
+            curve.samples().forEach(sample -> assertTrue(sample.sequentialNanos() > 0 && sample.parallelNanos() > 0));
+        }
+    }
+
+    @Test
+    @DisplayName("the break-even point is where the parallel estimate starts to beat the sequential one")
+    void parallelThreshold_isBreakEven() {
+        var model = new CostModel(generators, executor, pool, false, 0);
+
+        for (PrimesGenerator generator : generators) {
+            AlgorithmType algo = generator.getType();
+            int threshold = model.parallelThreshold(algo);
+            assertTrue(threshold > 2 * 32_768 && threshold < CostModel.NEVER, algo + " threshold " + threshold);
+            assertFalse(model.shouldParallelize(algo, 0, threshold));
+            assertTrue(model.shouldParallelize(algo, 0, threshold + 1));
+        }
+        // 1.5 ns sequential vs 0.375 ns + 1 ms on four workers
+        assertEquals(888_888, model.parallelThreshold(AlgorithmType.WHEEL), 1);
+    }
+
+    @Test
+    @DisplayName("an algorithm observed to parallelise badly moves its break-even point up")
+    void observe_movesBreakEven() {
+        var model = new CostModel(generators, executor, pool, false, 0);
+        int before = model.parallelThreshold(AlgorithmType.ERATOS);
+
+        // 10,000,000 numbers keep taking 31 ms in parallel - 3 ns per number, barely better than sequential
+        for (int i = 0; i < 30; i++) {
+            model.observe(AlgorithmType.ERATOS, 0, 10_000_000, true, 31_000_000);
+        }
+
+        assertTrue(model.parallelThreshold(AlgorithmType.ERATOS) > before);
+        assertEquals(30, model.curves().stream()
+                .filter(curve -> curve.algorithm() == AlgorithmType.ERATOS).findFirst().orElseThrow().observations());
+    }
+
+    @Test
+    @DisplayName("with a single worker calibration never chooses the parallel path")
+    void calibrate_singleWorker_neverParallel() {
+        var single = new ForkJoinPool(1);
+        try {
+            var model = new CostModel(generators, new PrimesExecutorService(single, new SizeAwareScheduler(single, 1_000_000, new SimpleMeterRegistry())), single, false, 0);
+
+            model.calibrate();
+
+            for (CostModel.Curve curve : model.curves()) {
+                assertEquals(CostModel.NEVER, curve.parallelThreshold(), curve.algorithm().toString());
+                curve.samples().forEach(sample -> assertEquals(-1, sample.parallelNanos()));
+            }
+            assertFalse(model.choose(0, 100_000_000).parallel());
+        } finally {
+            single.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("a configured threshold overrides the measured break-even point")
+    void parallelThreshold_pinned() {
+        var model = new CostModel(generators, executor, pool, false, 1_000);
+
+        assertEquals(1_000, model.parallelThreshold(AlgorithmType.NAIVE));
+        assertTrue(model.shouldParallelize(AlgorithmType.NAIVE, 0, 1_001));
+        assertFalse(model.shouldParallelize(AlgorithmType.NAIVE, 0, 1_000));
+    }
+}
@@ -0,0 +1,159 @@
+package com.gouwsf.primenumbers.service;
+
+import com.gouwsf.primenumbers.algorithms.PrimeSequence;
+import com.gouwsf.primenumbers.algorithms.impl.EratosthenesSieve;
+import com.gouwsf.primenumbers.algorithms.impl.MillerRabin;
+import com.gouwsf.primenumbers.exception.TooManyRequestsException;
+import com.gouwsf.primenumbers.model.PrimalityResponse;
+import com.gouwsf.primenumbers.service.impl.AdmissionControl;
+import com.gouwsf.primenumbers.service.impl.PrimalityServiceImpl;
+import com.gouwsf.primenumbers.service.impl.PrimeStore;
+import com.gouwsf.primenumbers.service.impl.SizeAwareScheduler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+class PrimalityServiceTest {
+
+    private ForkJoinPool pool;
+    private PrimeStore primeStore;
+    private MillerRabin millerRabin;
+    private AdmissionControl admissionControl;
+    private PrimalityService service;
+
+    @BeforeEach
+    void setup() {
+        pool = new ForkJoinPool(4);
+        primeStore = new PrimeStore();
+        millerRabin = spy(new MillerRabin());
+        admissionControl = new AdmissionControl(Long.MAX_VALUE, Long.MAX_VALUE, 0, 0, 1);
+        service = new PrimalityServiceImpl(millerRabin, new SizeAwareScheduler(pool, 1_000_000, new SimpleMeterRegistry()),
+                primeStore, admissionControl);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void testPrimality_smallBatch_keepsRequestOrder() {
+        PrimalityResponse resp = service.testPrimalityAsync(List.of(97L, 1L, -5L, 2L, 91L, 9_223_372_036_854_775_783L)).join();
+
+        assertEquals(List.of(true, false, false, true, false, true), resp.getResults());
+        assertEquals(3, resp.getNumberOfPrimes());
+        assertEquals(0, resp.getCacheHits());
+        assertEquals(MillerRabin.ALGORITHM_NAME, resp.getAlgorithmUsed());
+    }
+
+    @Test
+    void testPrimality_largeBatch_isSplitAcrossChunks_andMatchesSieve() {
+        int limit = 100_000;
+        PrimeSequence primes = new EratosthenesSieve().determinePrimes(limit);
+        List<Long> numbers = new ArrayList<>(limit + 1);
+        for (long n = limit; n >= 0; n--) numbers.add(n);
+
+        PrimalityResponse resp = service.testPrimalityAsync(numbers).join();
+
+        assertEquals(primes.size(), resp.getNumberOfPrimes());
+        for (int i = 0; i < numbers.size(); i++) {
+            int n = numbers.get(i).intValue();
+            assertEquals(primes.binarySearch(n) >= 0, resp.getResults().get(i), "n = " + n);
+        }
+    }
+
+    @Test
+    void testPrimality_answersFromPrimeStore_whenCovered() {
+        primeStore.primesUpTo(1_000, (from, to) -> new EratosthenesSieve().determinePrimes(to));
+
+        PrimalityResponse resp = service.testPrimalityAsync(List.of(997L, 995L, 1_009L)).join();
+
+        assertEquals(List.of(true, false, true), resp.getResults());
+        assertEquals(2, resp.getCacheHits());
+        verify(millerRabin, times(1)).isPrime(anyLong());
+        verify(millerRabin).isPrime(1_009L);
+    }
+
+    @Test
+    void testPrimality_returnsBeforeTheTestsFinish() throws Exception {
+        var release = new CountDownLatch(1);
+        doAnswer(inv -> {
+            assertTrue(release.await(10, TimeUnit.SECONDS));
+            return inv.callRealMethod();
+        }).when(millerRabin).isPrime(anyLong());
+
+        var response = service.testPrimalityAsync(List.of(97L));
+
+        assertFalse(response.isDone());
+        release.countDown();
+        assertEquals(List.of(true), response.join().getResults());
+    }
+
+    @Test
+    void testPrimality_waitsForASchedulerSlot() throws Exception {
+        var single = new ForkJoinPool(1);
+        try {
+            var scheduler = new SizeAwareScheduler(single, 1_000_000, new SimpleMeterRegistry());
+            service = new PrimalityServiceImpl(millerRabin, scheduler, primeStore, admissionControl);
+            var release = new CountDownLatch(1);
+            var blocker = scheduler.open(1);
+            var blocking = blocker.submit(1, () -> {
+                try {
+                    return release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+
+            var response = service.testPrimalityAsync(List.of(97L));
+
+            assertFalse(response.isDone());
+            assertEquals(1, scheduler.queuedTasks());
+            release.countDown();
+            assertEquals(List.of(true), response.join().getResults());
+            assertTrue(blocking.join());
+            blocker.close();
+        } finally {
+            single.shutdownNow();
+        }
+    }
+
+    @Test
+    void testPrimality_releasesItsAdmissionOnceTested() {
+        var response = service.testPrimalityAsync(List.of(97L, 91L)).join();
+
+        assertEquals(List.of(true, false), response.getResults());
+        assertEquals(0, admissionControl.inFlight());
+    }
+
+    @Test
+    void testPrimality_overBudget_rejectedWithoutTesting() {
+        var gate = new AdmissionControl(1L << 20, 1_000_000L, 0, 0, 1);
+        service = new PrimalityServiceImpl(millerRabin, new SizeAwareScheduler(pool, 1_000_000, new SimpleMeterRegistry()),
+                primeStore, gate);
+
+        try (var busy = gate.admit(new AdmissionControl.RequestCost(1_000_000L, 0)).join()) {
+            var failure = assertThrows(CompletionException.class, () -> service.testPrimalityAsync(List.of(97L)).join());
+            assertInstanceOf(TooManyRequestsException.class, failure.getCause());
+        }
+        verify(millerRabin, never()).isPrime(anyLong());
+    }
+
+    @Test
+    void testPrimality_rejectsNullEntries() {
+        assertThrows(IllegalArgumentException.class, () -> service.testPrimalityAsync(Arrays.asList(2L, null)));
+    }
+}
@@ -0,0 +1,83 @@
+package com.gouwsf.primenumbers.service;
+
+import com.gouwsf.primenumbers.algorithms.impl.LucyPrimeCounter;
+import com.gouwsf.primenumbers.exception.TooManyRequestsException;
+import com.gouwsf.primenumbers.model.PrimeCountResponse;
+import com.gouwsf.primenumbers.service.impl.AdmissionControl;
+import com.gouwsf.primenumbers.service.impl.PrimeCountServiceImpl;
+import com.gouwsf.primenumbers.service.impl.SizeAwareScheduler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PrimeCountServiceTest {
+
+    @Mock LucyPrimeCounter counter;
+
+    private final ForkJoinPool pool = new ForkJoinPool(2);
+    private final SizeAwareScheduler scheduler = new SizeAwareScheduler(pool, 1_000_000, new SimpleMeterRegistry());
+    private final AdmissionControl admissionControl = new AdmissionControl(Long.MAX_VALUE, Long.MAX_VALUE, 0, 0, 1);
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void countPrimes_delegatesToCounter_andReportsDuration() {
+        when(counter.countPrimes(1_000_000_000_000L)).thenReturn(37_607_912_018L);
+        PrimeCountService service = new PrimeCountServiceImpl(counter, scheduler, admissionControl);
+
+        PrimeCountResponse resp = service.countPrimesAsync(1_000_000_000_000L).join();
+
+        assertEquals(1_000_000_000_000L, resp.getLimit());
+        assertEquals(37_607_912_018L, resp.getNumberOfPrimes());
+        assertEquals("LUCY", resp.getAlgorithmUsed());
+        assertTrue(resp.getDurationMillis() >= 0);
+        verify(counter, times(1)).countPrimes(1_000_000_000_000L);
+        assertEquals(0, admissionControl.inFlight());
+    }
+
+    @Test
+    void countPrimes_overBudget_rejectedWithoutCounting() {
+        var gate = new AdmissionControl(1L << 20, 1_000_000L, 0, 0, 1);
+        PrimeCountService service = new PrimeCountServiceImpl(counter, scheduler, gate);
+
+        try (var busy = gate.admit(new AdmissionControl.RequestCost(1_000_000L, 0)).join()) {
+            var failure = assertThrows(CompletionException.class, () -> service.countPrimesAsync(1_000_000_000L).join());
+            assertInstanceOf(TooManyRequestsException.class, failure.getCause());
+        }
+        verifyNoInteractions(counter);
+    }
+
+    @Test
+    void countPrimes_returnsBeforeTheCountFinishes() throws Exception {
+        var release = new CountDownLatch(1);
+        var caller = Thread.currentThread();
+        when(counter.countPrimes(100L)).thenAnswer(inv -> {
+            assertNotSame(caller, Thread.currentThread());
+            assertTrue(release.await(10, TimeUnit.SECONDS));
+            return 25L;
+        });
+        PrimeCountService service = new PrimeCountServiceImpl(counter, scheduler, admissionControl);
+
+        var response = service.countPrimesAsync(100L);
+
+        assertFalse(response.isDone());
+        release.countDown();
+        assertEquals(25L, response.join().getNumberOfPrimes());
+        assertEquals(0, scheduler.queuedTasks());
+    }
+}
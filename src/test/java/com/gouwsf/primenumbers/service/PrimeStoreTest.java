@@ -0,0 +1,222 @@
+package com.gouwsf.primenumbers.service;
+
+import com.gouwsf.primenumbers.algorithms.PrimeSequence;
+import com.gouwsf.primenumbers.algorithms.impl.SegmentedSieve;
+import com.gouwsf.primenumbers.service.impl.PrimeStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrimeStoreTest {
+
+    private final SegmentedSieve sieve = new SegmentedSieve();
+    private final List<int[]> sievedRanges = new ArrayList<>();
+
+    private final PrimeStore.RangeSieve recordingSieve = (from, to) -> {
+        synchronized (sievedRanges) {
+            sievedRanges.add(new int[]{from, to});
+        }
+        return sieve.determinePrimes(from, to, sieve.determinePrimes((int) Math.sqrt(to)));
+    };
+
+    @Test
+    void servesSmallerLimitsAsPrefixSlices_withoutSieving() {
+        var store = new PrimeStore();
+
+        var upTo100 = store.primesUpTo(100, recordingSieve);
+        var upTo30 = store.primesUpTo(30, recordingSieve);
+        var upTo29 = store.primesUpTo(29, recordingSieve);
+
+        assertEquals(25, upTo100.size());
+        assertEquals(PrimeSequence.of(2, 3, 5, 7, 11, 13, 17, 19, 23, 29), upTo30);
+        assertEquals(upTo30, upTo29);
+        assertEquals(1, sievedRanges.size());
+    }
+
+    @Test
+    void extendsBySievingOnlyTheNewRange() {
+        var store = new PrimeStore();
+
+        store.primesUpTo(1_000, recordingSieve);
+        var upTo1M = store.primesUpTo(1_000_000, recordingSieve);
+
+        assertEquals(78_498, upTo1M.size());
+        assertEquals(sieve.determinePrimes(1_000_000), upTo1M);
+        assertArrayEquals(new int[]{1, 1_000}, sievedRanges.get(0));
+        assertArrayEquals(new int[]{1_000, 1_000_000}, sievedRanges.get(1));
+        assertEquals(upTo1M, store.snapshot());
+    }
+
+    @Test
+    void asyncExtensions_startOnlyOnceTheOneInFlightIsDone() {
+        var store = new PrimeStore();
+        List<CompletableFuture<Void>> sieving = new ArrayList<>();
+        PrimeStore.AsyncRangeSieve deferredSieve = (from, to) -> {
+            var done = new CompletableFuture<Void>();
+            sieving.add(done);
+            return done.thenApply(ignored -> recordingSieve.primesIn(from, to));
+        };
+
+        var first = store.primesUpToAsync(1_000, deferredSieve);
+        var covered = store.primesUpToAsync(500, deferredSieve);
+        var second = store.primesUpToAsync(2_000, deferredSieve);
+
+        assertFalse(first.isDone() || covered.isDone() || second.isDone());
+        assertEquals(1, sieving.size(), "later misses wait for the extension in flight");
+        sieving.get(0).complete(null);
+        assertEquals(168, first.join().size());
+        // 500 was covered by the first extension; 2,000 only sieves what it left out
+        assertEquals(95, covered.join().size());
+        assertFalse(second.isDone());
+        sieving.get(1).complete(null);
+        assertEquals(sieve.determinePrimes(2_000), second.join());
+        assertArrayEquals(new int[]{1_000, 2_000}, sievedRanges.get(1));
+        assertEquals(2, sievedRanges.size());
+    }
+
+    @Test
+    void earlierSlicesStayValid_afterTheTableGrows() {
+        var store = new PrimeStore();
+
+        var upTo1000 = store.primesUpTo(1_000, recordingSieve);
+        store.primesUpTo(500_000, recordingSieve);
+        store.primesUpTo(2_000_000, recordingSieve);
+
+        assertEquals(sieve.determinePrimes(1_000), upTo1000);
+    }
+
+    @Test
+    void concurrentRequests_neverSieveTheSameRangeTwice() {
+        var store = new PrimeStore();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            CompletableFuture<?>[] futures = IntStream.rangeClosed(1, 32)
+                    .mapToObj(i -> CompletableFuture.runAsync(() -> {
+                        int limit = i * 50_000;
+                        assertEquals(sieve.determinePrimes(limit), store.primesUpTo(limit, recordingSieve));
+                    }, pool))
+                    .toArray(CompletableFuture[]::new);
+            CompletableFuture.allOf(futures).join();
+        } finally {
+            pool.shutdownNow();
+        }
+
+        // sieved ranges are disjoint and contiguous
+        sievedRanges.sort((a, b) -> Integer.compare(a[0], b[0]));
+        int expectedFrom = 1;
+        for (int[] range : sievedRanges) {
+            assertEquals(expectedFrom, range[0]);
+            expectedFrom = range[1];
+        }
+    }
+
+    @Test
+    void rejectsLimitsAboveMax() {
+        var store = new PrimeStore();
+        assertThrows(IllegalArgumentException.class, () -> store.primesUpTo(PrimeStore.MAX_LIMIT + 1, recordingSieve));
+    }
+
+    @Test
+    void rejectsLimitsAboveConfiguredMax() {
+        var store = new PrimeStore(null, 10_000);
+
+        assertEquals(1_229, store.primesUpTo(10_000, recordingSieve).size());
+        assertThrows(IllegalArgumentException.class, () -> store.primesUpTo(10_001, recordingSieve));
+        assertEquals(10_000, store.maxLimit());
+    }
+
+    @Test
+    void persistedTable_isMappedOnRestart_withoutSieving(@TempDir Path dir) {
+        Path file = dir.resolve("primes.bin");
+        var first = new PrimeStore(file.toString(), PrimeStore.MAX_LIMIT);
+        first.primesUpTo(100_000, recordingSieve);
+        first.primesUpTo(1_000_000, recordingSieve);
+        first.close();
+
+        var restarted = new PrimeStore(file.toString(), PrimeStore.MAX_LIMIT);
+        PrimeStore.RangeSieve mustNotSieve = (from, to) -> fail("sieved (" + from + ", " + to + "] after restart");
+
+        assertEquals(sieve.determinePrimes(1_000_000), restarted.primesUpTo(1_000_000, mustNotSieve));
+        assertEquals(sieve.determinePrimes(12_345), restarted.primesUpTo(12_345, mustNotSieve));
+        restarted.close();
+    }
+
+    @Test
+    void persistedTable_keepsGrowingAfterRestart(@TempDir Path dir) {
+        Path file = dir.resolve("primes.bin");
+        var first = new PrimeStore(file.toString(), PrimeStore.MAX_LIMIT);
+        first.primesUpTo(10_000, recordingSieve);
+        first.close();
+
+        var restarted = new PrimeStore(file.toString(), PrimeStore.MAX_LIMIT);
+        assertEquals(sieve.determinePrimes(300_000), restarted.primesUpTo(300_000, recordingSieve));
+        restarted.close();
+
+        assertArrayEquals(new int[]{10_000, 300_000}, sievedRanges.get(sievedRanges.size() - 1));
+        var again = new PrimeStore(file.toString(), PrimeStore.MAX_LIMIT);
+        assertEquals(sieve.determinePrimes(300_000), again.snapshot());
+        again.close();
+    }
+
+    @Test
+    void fileInUse_isLeftAlone_andTheSecondStoreRunsInMemory(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("primes.bin");
+        var owner = new PrimeStore(file.toString(), PrimeStore.MAX_LIMIT);
+        owner.primesUpTo(10_000, recordingSieve);
+        long size = Files.size(file);
+
+        var second = new PrimeStore(file.toString(), PrimeStore.MAX_LIMIT);
+        assertEquals(PrimeSequence.empty(), second.snapshot());
+        assertEquals(sieve.determinePrimes(20_000), second.primesUpTo(20_000, recordingSieve));
+        second.close();
+
+        assertEquals(size, Files.size(file));
+        owner.close();
+        var restarted = new PrimeStore(file.toString(), PrimeStore.MAX_LIMIT);
+        assertEquals(10_000, restarted.highWater());
+        restarted.close();
+    }
+
+    @Test
+    void invalidFile_isIgnored_andRewritten(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("primes.bin");
+        Files.write(file, new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17});
+
+        var store = new PrimeStore(file.toString(), PrimeStore.MAX_LIMIT);
+        assertEquals(PrimeSequence.empty(), store.snapshot());
+        assertEquals(25, store.primesUpTo(100, recordingSieve).size());
+        store.close();
+
+        var restarted = new PrimeStore(file.toString(), PrimeStore.MAX_LIMIT);
+        assertEquals(25, restarted.snapshot().size());
+        restarted.close();
+    }
+
+    @Test
+    void truncatedFile_isIgnored(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("primes.bin");
+        var store = new PrimeStore(file.toString(), PrimeStore.MAX_LIMIT);
+        store.primesUpTo(100_000, recordingSieve);
+        store.close();
+        try (var channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(1_000);
+        }
+
+        var restarted = new PrimeStore(file.toString(), PrimeStore.MAX_LIMIT);
+        assertEquals(PrimeSequence.empty(), restarted.snapshot());
+        restarted.close();
+    }
+}
@@ -1,22 +1,34 @@
 package com.gouwsf.primenumbers.service.impl;
 
+import com.gouwsf.primenumbers.algorithms.PrimeSequence;
 import com.gouwsf.primenumbers.algorithms.PrimesGenerator;
+import com.gouwsf.primenumbers.algorithms.impl.LongSegmentedSieve;
+import com.gouwsf.primenumbers.algorithms.impl.PrimesNaive;
+import com.gouwsf.primenumbers.algorithms.impl.SegmentedSieve;
+import com.gouwsf.primenumbers.algorithms.impl.WheelSieve;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
-import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 class PrimesExecutorServiceTest {
 
-    private final ExecutorService pool = Executors.newFixedThreadPool(4);
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+    private final SizeAwareScheduler scheduler = new SizeAwareScheduler(pool, 1_000_000, new SimpleMeterRegistry());
 
     @AfterEach
     void tearDown() {
@@ -27,7 +39,7 @@ class PrimesExecutorServiceTest {
     void computeAsync_limitBelow2_returnsEmpty_andNoGeneratorCalls() {
         // given
         PrimesGenerator generator = mock(PrimesGenerator.class);
-        PrimesExecutorService svc = new PrimesExecutorService(pool);
+        PrimesExecutorService svc = new PrimesExecutorService(pool, scheduler);
 
         // when
         List<Integer> out = svc.computeAsync(1, generator);
@@ -38,23 +50,25 @@ class PrimesExecutorServiceTest {
     }
 
     @Test
-    void computeAsync_orchestratesBaseAndSegments_andFlattensInOrder() {
+    void computeAsync_orchestratesBaseAndLeaves_andMergesInOrder() {
         // given
-        int limit = 10;                    // sqrt(10) = 3
+        int limit = 1_000_000;
         int root = (int) Math.floor(Math.sqrt(limit));
-        var basePrimes = List.of(2, 3);    // arbitrary; only used as a token to pass through
+        var basePrimes = PrimeSequence.of(2, 3);    // arbitrary; only used as a token to pass through
 
         PrimesGenerator generator = mock(PrimesGenerator.class);
 
         // Base primes up to sqrt(limit) called once
         when(generator.determinePrimes(root)).thenReturn(basePrimes);
 
-        // For each segment call, just return a singleton list containing the segment's hi,
-        // so we can assert flattening + ordering deterministically without caring about primality.
-        when(generator.determinePrimes(anyInt(), anyInt(), anyList()))
-                .thenAnswer(inv -> List.of(inv.getArgument(1, Integer.class))); // return [toInclusive]
+        // For each leaf call, just return a singleton list containing the leaf's hi,
+        // so we can assert merging + ordering deterministically without caring about primality.
+        when(generator.determinePrimes(anyInt(), anyInt(), any(PrimeSequence.class)))
+                .thenAnswer(inv -> PrimeSequence.of(inv.getArgument(1, Integer.class))); // return [toInclusive]
+        when(generator.sieveBytesPerNumber()).thenReturn(1.0);
 
-        PrimesExecutorService svc = new PrimesExecutorService(pool);
+        PrimesExecutorService svc = new PrimesExecutorService(pool, scheduler);
+        ReflectionTestUtils.setField(svc, "cacheBytes", 1 << 16);
 
         // when
         List<Integer> out = svc.computeAsync(limit, generator);
@@ -62,23 +76,186 @@ class PrimesExecutorServiceTest {
         // then: base call once with root
         verify(generator, times(1)).determinePrimes(root);
 
-        // capture segment calls
+        // capture leaf calls
         ArgumentCaptor<Integer> from = ArgumentCaptor.forClass(Integer.class);
         ArgumentCaptor<Integer> to = ArgumentCaptor.forClass(Integer.class);
-        ArgumentCaptor<List<Integer>> base = ArgumentCaptor.forClass(List.class);
-        verify(generator, atLeastOnce()).determinePrimes(from.capture(), to.capture(), base.capture());
+        ArgumentCaptor<PrimeSequence> base = ArgumentCaptor.forClass(PrimeSequence.class);
+        verify(generator, times(16)).determinePrimes(from.capture(), to.capture(), base.capture());
 
-        // all segment calls must receive the SAME basePrimes instance returned from the base call
+        // all leaf calls must receive the SAME basePrimes instance returned from the base call
         base.getAllValues().forEach(bp -> assertSame(basePrimes, bp));
 
-        // segments should cover [2..limit] with consecutive, non-overlapping ranges built by buildSegments
-        int globalMin = from.getAllValues().stream().mapToInt(v -> v + 1).min().orElseThrow();
-        int globalMax = to.getAllValues().stream().mapToInt(Integer::intValue).max().orElseThrow();
-        assertEquals(2, globalMin);
-        assertEquals(limit, globalMax);
+        // 4 workers would want 250,000 numbers each, more than the 64 KB cache budget -
+        // so [2..limit] is cut into 16 leaves of 65,536 numbers, merged back in order
+        assertEquals(16, out.size());
+        assertEquals(2 + 65_536 - 1, out.get(0));
+        assertEquals(limit, out.get(out.size() - 1));
+        for (int i = 1; i < out.size() - 1; i++) {
+            assertEquals(out.get(i - 1) + 65_536, out.get(i), "leaves must be contiguous and merged in order");
+        }
+    }
+
+    @Test
+    void computeAsync_mergeCopiesRunAsSchedulerTasks() throws Exception {
+        var registry = new SimpleMeterRegistry();
+        var svc = new PrimesExecutorService(pool, new SizeAwareScheduler(pool, 1_000_000, registry));
+        ReflectionTestUtils.setField(svc, "cacheBytes", 1 << 16);
+
+        // half a byte per number: 131,072-number leaves, so 8 leaves and 8 copies
+        var out = svc.computeAsync(1_000_000, new SegmentedSieve());
+
+        assertEquals(78_498, out.size());
+        var tasks = registry.get("primes.scheduler.task").timer();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        // a task is timed after its result is handed over
+        while (tasks.count() < 16 && System.nanoTime() < deadline) Thread.sleep(1);
+        assertEquals(16, tasks.count());
+    }
+
+    @Test
+    void computeAsync_matchesSingleThreadedSieve() {
+        var sieve = new SegmentedSieve();
+        PrimesExecutorService svc = new PrimesExecutorService(pool, scheduler);
+        ReflectionTestUtils.setField(svc, "cacheBytes", 1 << 17);
+
+        assertEquals(sieve.determinePrimes(5_000_000), svc.computeAsync(5_000_000, sieve));
+        assertEquals(sieve.determinePrimes(4_000_000, 5_000_000, sieve.determinePrimes(2_236)),
+                svc.computeAsync(4_000_000, 5_000_000, sieve));
+    }
+
+    @Test
+    void submit_returnsBeforeTheLeavesAreSieved() throws Exception {
+        var sieve = spy(new SegmentedSieve());
+        var release = new CountDownLatch(1);
+        doAnswer(inv -> {
+            release.await();
+            return inv.callRealMethod();
+        }).when(sieve).determinePrimes(anyInt(), anyInt(), any(PrimeSequence.class));
+        PrimesExecutorService svc = new PrimesExecutorService(pool, scheduler);
+        ReflectionTestUtils.setField(svc, "cacheBytes", 1 << 17);
+
+        var primes = svc.submit(1, 1_000_000, sieve);
+
+        assertFalse(primes.isDone());
+        release.countDown();
+        assertEquals(new SegmentedSieve().determinePrimes(1_000_000), primes.get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void computeAsync_traced_recordsBasePrimesLeavesAndMerge() {
+        var sieve = new SegmentedSieve();
+        PrimesExecutorService svc = new PrimesExecutorService(pool, scheduler);
+        ReflectionTestUtils.setField(svc, "cacheBytes", 1 << 17);
+        var trace = new RequestTrace();
+
+        var primes = RequestTrace.run(trace, () -> svc.computeAsync(1_000_000, sieve));
+
+        assertEquals(78_498, primes.size());
+        assertFalse(trace.cacheHit());
+        assertTrue(trace.basePrimesNanos() > 0);
+        assertTrue(trace.mergeNanos() > 0);
+        // 999,999 numbers in leaves of 1 << 18 - a 128 KB budget at half a byte per number
+        assertEquals(4, trace.segments().size());
+        assertEquals(999_999, trace.segments().stream().mapToLong(RequestTrace.Segment::numbers).sum());
+        trace.segments().forEach(segment -> assertTrue(segment.computeNanos() > 0 && segment.queueWaitNanos() >= 0));
+        assertNull(RequestTrace.current());
+    }
+
+    @Test
+    void leafWidth_followsParallelismAndCacheBudget() {
+        PrimesExecutorService svc = new PrimesExecutorService(pool, scheduler);
+        ReflectionTestUtils.setField(svc, "cacheBytes", 1 << 20);
+
+        // narrow range: never below the minimum leaf
+        assertEquals(PrimesExecutorService.MIN_LEAF_WIDTH, svc.leafWidth(1_000, 64, 1));
+        // one leaf per worker while that fits the cache budget
+        assertEquals(100_000, svc.leafWidth(6_400_000, 64, 1));
+        // wide range: cache-sized leaves, so more cores still get work
+        assertEquals(1 << 20, svc.leafWidth(250_000_000, 64, 1));
+        assertEquals(1 << 20, svc.leafWidth(250_000_000, 4, 1));
+    }
+
+    @Test
+    void leafWidth_scalesTheByteBudgetByEachGeneratorsSieve() {
+        PrimesExecutorService svc = new PrimesExecutorService(pool, scheduler);
+        ReflectionTestUtils.setField(svc, "cacheBytes", 1 << 20);
+
+        // a byte per odd number: 1 MB covers 2M numbers
+        assertEquals(1 << 21, svc.leafWidth(250_000_000, 64, new SegmentedSieve().sieveBytesPerNumber()));
+        // a byte per 30 numbers: 1 MB covers 30M numbers
+        assertEquals(30 << 20, svc.leafWidth(250_000_000, 4, new WheelSieve().sieveBytesPerNumber()));
+        // no sieve: split by parallelism only
+        assertEquals(62_500_000, svc.leafWidth(250_000_000, 4, new PrimesNaive().sieveBytesPerNumber()));
+    }
+
+    @Test
+    void computeAsync_range_sievesOnlyTheWindow() {
+        // given
+        int from = 1_000_000;
+        int to = 1_000_100;
+        PrimesGenerator generator = mock(PrimesGenerator.class);
+        when(generator.determinePrimes(anyInt())).thenReturn(PrimeSequence.of(2, 3));
+        when(generator.determinePrimes(anyInt(), anyInt(), any(PrimeSequence.class)))
+                .thenAnswer(inv -> PrimeSequence.of(inv.getArgument(1, Integer.class))); // return [toInclusive]
+
+        PrimesExecutorService svc = new PrimesExecutorService(pool, scheduler);
+
+        // when
+        PrimeSequence out = svc.computeAsync(from - 1, to, generator);
+
+        // then: base primes only up to sqrt(to), a single leaf covering exactly [from..to]
+        verify(generator, times(1)).determinePrimes((int) Math.sqrt(to));
+        verify(generator, times(1)).determinePrimes(eq(from - 1), eq(to), any(PrimeSequence.class));
+        assertEquals(to, out.getInt(out.size() - 1));
+    }
+
+    @Test
+    void computeOrdered_emitsEverySegmentInAscendingOrder() {
+        // given: wide enough to be split into several streaming segments
+        int limit = 3 * (1 << 22) + 5;
+        PrimesGenerator generator = mock(PrimesGenerator.class);
+        when(generator.determinePrimes(anyInt())).thenReturn(PrimeSequence.of(2, 3));
+        when(generator.determinePrimes(anyInt(), anyInt(), any(PrimeSequence.class)))
+                .thenAnswer(inv -> PrimeSequence.of(inv.getArgument(1, Integer.class))); // return [toInclusive]
+
+        PrimesExecutorService svc = new PrimesExecutorService(pool, scheduler);
+        List<Integer> received = new ArrayList<>();
+
+        // when
+        svc.computeOrdered(limit, generator, chunk -> received.addAll(chunk));
+
+        // then
+        assertEquals(4, received.size());
+        assertEquals(limit, received.get(received.size() - 1));
+        for (int i = 1; i < received.size(); i++) {
+            assertTrue(received.get(i - 1) < received.get(i), "segments must arrive in order");
+        }
+    }
+
+    @Test
+    void computeOrdered_longRange_beyondIntMax_emitsSegmentsInOrder() {
+        // given: a range above 2^32 spanning several streaming segments
+        long from = (1L << 32) + 1;
+        long to = from + 2L * (1 << 22) + 10;
+        LongSegmentedSieve sieve = mock(LongSegmentedSieve.class);
+        var basePrimes = PrimeSequence.of(2, 3);
+        when(sieve.determineBasePrimes(to)).thenReturn(basePrimes);
+        when(sieve.determinePrimes(anyLong(), anyLong(), any(PrimeSequence.class)))
+                .thenAnswer(inv -> new long[]{inv.getArgument(0, Long.class) + 1, inv.getArgument(1, Long.class)}); // [low, hi]
+
+        PrimesExecutorService svc = new PrimesExecutorService(pool, scheduler);
+        List<Long> received = new ArrayList<>();
+
+        // when
+        svc.computeOrdered(from - 1, to, sieve, chunk -> { for (long p : chunk) received.add(p); });
 
-        // because limit=10 and MAX_SEGMENTS=10, buildSegments will create 9 one-size segments for [2..10],
-        // and our answer function returns [hi] per segment; so the flattened list should be [2..10]
-        assertEquals(List.of(2, 3, 4, 5, 6, 7, 8, 9, 10), out);
+        // then: three contiguous segments covering [from..to], in order
+        verify(sieve, times(3)).determinePrimes(anyLong(), anyLong(), same(basePrimes));
+        assertEquals(6, received.size());
+        assertEquals(from, received.get(0));
+        assertEquals(to, received.get(received.size() - 1));
+        for (int i = 1; i + 1 < received.size(); i += 2) {
+            assertEquals(received.get(i) + 1, received.get(i + 1), "segments must be contiguous and ordered");
+        }
     }
 }
@@ -1,24 +1,44 @@
 package com.gouwsf.primenumbers.service;
 
+import com.gouwsf.primenumbers.algorithms.PrimeSequence;
 import com.gouwsf.primenumbers.algorithms.PrimesGenerator;
 import com.gouwsf.primenumbers.algorithms.impl.AtkinsSieve;
 import com.gouwsf.primenumbers.algorithms.impl.EratosthenesSieve;
+import com.gouwsf.primenumbers.algorithms.impl.LongSegmentedSieve;
 import com.gouwsf.primenumbers.algorithms.impl.PrimesNaive;
+import com.gouwsf.primenumbers.algorithms.impl.SegmentedSieve;
+import com.gouwsf.primenumbers.algorithms.impl.WheelSieve;
+import com.gouwsf.primenumbers.exception.TooManyRequestsException;
 import com.gouwsf.primenumbers.model.AlgorithmType;
 import com.gouwsf.primenumbers.model.PrimeNumberResponse;
+import com.gouwsf.primenumbers.service.impl.AdmissionControl;
+import com.gouwsf.primenumbers.service.impl.CostModel;
 import com.gouwsf.primenumbers.service.impl.PrimesExecutorService;
+import com.gouwsf.primenumbers.service.impl.PrimeStore;
 import com.gouwsf.primenumbers.service.impl.PrimesServiceImpl;
+import com.gouwsf.primenumbers.service.impl.SingleFlightPrimes;
+import com.gouwsf.primenumbers.service.impl.SizeAwareScheduler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.CsvSource;
 import org.junit.jupiter.params.provider.MethodSource;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -30,25 +50,41 @@ class PrimesServiceTest {
     @Mock AtkinsSieve atkins;
     @Mock EratosthenesSieve eratos;
     @Mock PrimesNaive naive;
+    @Mock SegmentedSieve segmented;
+    @Mock WheelSieve wheel;
     @Mock PrimesExecutorService executorService;
+    @Mock LongSegmentedSieve longSegmentedSieve;
 
     PrimesService service;
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
 
     @BeforeEach
     void stubGenerators() {
         when(atkins.getType()).thenReturn(AlgorithmType.ATKIN);
         when(eratos.getType()).thenReturn(AlgorithmType.ERATOS);
         when(naive.getType()).thenReturn(AlgorithmType.NAIVE);
+        when(segmented.getType()).thenReturn(AlgorithmType.SEGMENTED);
+        when(wheel.getType()).thenReturn(AlgorithmType.WHEEL);
 
-        service = new PrimesServiceImpl(List.of(atkins, eratos, naive), executorService);
+        service = new PrimesServiceImpl(List.of(atkins, eratos, naive, segmented, wheel), executorService,
+                longSegmentedSieve, new PrimeStore(), new SingleFlightPrimes(),
+                new AdmissionControl(Long.MAX_VALUE, Long.MAX_VALUE, 0, 0, 1),
+                new CostModel(List.of(atkins, eratos, naive, segmented, wheel), executorService, new ForkJoinPool(4), false, 0),
+                new SizeAwareScheduler(new ForkJoinPool(4), 1_000_000, meterRegistry), meterRegistry);
 
-        ReflectionTestUtils.setField(service, "multiThreadStart", Integer.MAX_VALUE);
+        parallelAbove(Integer.MAX_VALUE);
+    }
+
+    /** Pins the cost model's break-even point for every algorithm. */
+    private void parallelAbove(int threshold) {
+        ReflectionTestUtils.setField(service, "costModel", new CostModel(List.of(atkins, eratos, naive, segmented, wheel),
+                executorService, new ForkJoinPool(4), false, threshold));
     }
 
     @DisplayName("generatePrimes uses the correct generator and returns duration")
     @ParameterizedTest(name = "algo={0}, limit={1}")
     @MethodSource("cases")
-    void generatePrimes_parameterized_withoutExecutor(AlgorithmType algo, int limit, List<Integer> expected) {
+    void generatePrimes_parameterized_withoutExecutor(AlgorithmType algo, int limit, PrimeSequence expected) {
         // Stub only the chosen generator
         when(getChosenMock(algo).determinePrimes(limit)).thenReturn(expected);
 
@@ -58,75 +94,386 @@ class PrimesServiceTest {
         assertNotNull(resp);
         assertEquals(expected, resp.getPrimes(), "primes list mismatch");
         assertTrue(resp.getDurationMillis() >= 0, "duration should be non-negative");
+        assertEquals(0L, resp.getQueueWaitMillis(), "a sequential request alone in the scheduler does not queue");
+        assertEquals(1, meterRegistry.get("primes.compute")
+                .tag("algorithm", algo.name()).tag("mode", "sequential").timer().count());
 
         verifyCalledOnce(algo, limit);
         verifyNoMoreInteractionsExceptChosen(algo);
-        verify(executorService, never()).computeAsync(anyInt(), any(PrimesGenerator.class));
+        verify(executorService, never()).submit(anyInt(), anyInt(), any(PrimesGenerator.class));
     }
 
     @DisplayName("generatePrimes uses the correct generator and returns duration")
     @ParameterizedTest(name = "algo={0}, limit={1}")
     @MethodSource("cases")
-    void generatePrimes_parameterized_withExecutor(AlgorithmType algo, int limit, List<Integer> expected) {
-        ReflectionTestUtils.setField(service, "multiThreadStart", limit - 1);
+    void generatePrimes_parameterized_withExecutor(AlgorithmType algo, int limit, PrimeSequence expected) {
+        parallelAbove(limit - 1);
 
         // Stub only the chosen generator
-        when(executorService.computeAsync(anyInt(), any(PrimesGenerator.class))).thenReturn(expected);
+        when(executorService.submit(anyInt(), anyInt(), any(PrimesGenerator.class)))
+                .thenReturn(CompletableFuture.completedFuture(expected));
 
         service.generatePrimes(limit, algo);
 
         // Verify behaviour
-        verify(executorService, times(1)).computeAsync(limit, getChosenMock(algo));
+        verify(executorService, times(1)).submit(1, limit, getChosenMock(algo));
+    }
+
+    @DisplayName("streamPrimesAsync hands small limits to the generator in one chunk")
+    @ParameterizedTest(name = "algo={0}, limit={1}")
+    @MethodSource("cases")
+    void streamPrimes_singleChunk(AlgorithmType algo, int limit, PrimeSequence expected) {
+        when(getChosenMock(algo).determinePrimes(limit)).thenReturn(expected);
+        List<PrimeSequence> chunks = new ArrayList<>();
+
+        service.streamPrimesAsync(limit, algo).join().writeTo(chunks::add);
+
+        assertEquals(List.of(expected), chunks);
+        verify(executorService, never()).computeOrdered(anyInt(), any(PrimesGenerator.class), any());
+    }
+
+    @DisplayName("streamPrimesAsync streams large limits through the executor")
+    @ParameterizedTest(name = "algo={0}, limit={1}")
+    @MethodSource("cases")
+    void streamPrimes_throughExecutor(AlgorithmType algo, int limit, PrimeSequence expected) {
+        parallelAbove(limit - 1);
+        Consumer<PrimeSequence> sink = chunk -> { };
+
+        service.streamPrimesAsync(limit, algo).join().writeTo(sink);
+
+        verify(executorService, times(1)).computeOrdered(limit, getChosenMock(algo), sink);
+    }
+
+    @DisplayName("generatePrimesInRange sieves only the window above sqrt(to) base primes")
+    @ParameterizedTest(name = "algo={0}, limit={1}")
+    @MethodSource("cases")
+    void generatePrimesInRange_withoutExecutor(AlgorithmType algo, int limit, PrimeSequence expected) {
+        var generator = getChosenMock(algo);
+        var base = PrimeSequence.of(2, 3, 5);
+        var window = expected.slice(2, expected.size());
+        int from = expected.getInt(2);
+        when(generator.determinePrimes((int) Math.sqrt(limit))).thenReturn(base);
+        when(generator.determinePrimes(from - 1, limit, base)).thenReturn(window);
+
+        PrimeNumberResponse resp = service.generatePrimesInRange(from, limit, algo);
+
+        assertEquals(window, resp.getPrimes());
+        assertEquals(window.size(), resp.getNumberOfPrimes());
+        verify(executorService, never()).submit(anyInt(), anyInt(), any(PrimesGenerator.class));
+    }
+
+    @DisplayName("generatePrimesInRange runs wide windows through the executor")
+    @ParameterizedTest(name = "algo={0}, limit={1}")
+    @MethodSource("cases")
+    void generatePrimesInRange_withExecutor(AlgorithmType algo, int limit, PrimeSequence expected) {
+        parallelAbove(1);
+        when(executorService.submit(anyInt(), anyInt(), any(PrimesGenerator.class)))
+                .thenReturn(CompletableFuture.completedFuture(expected));
+
+        service.generatePrimesInRange(2, limit, algo);
+
+        verify(executorService, times(1)).submit(1, limit, getChosenMock(algo));
+    }
+
+    @DisplayName("generatePrimesInRange rejects inverted or oversized ranges")
+    @ParameterizedTest(name = "[{0}, {1}]")
+    @CsvSource({"20, 10", "2, 250000002", "1000, 2147483647"})
+    void generatePrimesInRange_invalidRange(int from, int to) {
+        assertThrows(IllegalArgumentException.class,
+                () -> service.generatePrimesInRange(from, to, AlgorithmType.ERATOS));
+        verifyNoInteractions(executorService);
+    }
+
+    @Test
+    @DisplayName("generatePrimesAsync returns while the pool computes and holds its admission until it is done")
+    void generatePrimesAsync_completesWithThePool() {
+        var gate = new AdmissionControl(Long.MAX_VALUE, Long.MAX_VALUE, 0, 0, 1);
+        ReflectionTestUtils.setField(service, "admissionControl", gate);
+        parallelAbove(1);
+        var computing = new CompletableFuture<PrimeSequence>();
+        when(executorService.submit(1, 1_000, eratos)).thenReturn(computing);
+
+        var response = service.generatePrimesAsync(1_000, AlgorithmType.ERATOS, false);
+
+        assertFalse(response.isDone());
+        assertEquals(1, gate.inFlight());
+        computing.complete(PrimeSequence.of(2, 3, 5, 7));
+        assertEquals(PrimeSequence.of(2, 3, 5, 7), response.join().getPrimes());
+        assertEquals(4, response.join().getNumberOfPrimes());
+        assertEquals(0, gate.inFlight());
+    }
+
+    @Test
+    @DisplayName("generatePrimesAsync returns while the request waits for admission and starts once budget is released")
+    void generatePrimesAsync_waitsForAdmissionWithoutHoldingTheCaller() {
+        var gate = new AdmissionControl(Long.MAX_VALUE, 1_000_000_000L, 0, TimeUnit.SECONDS.toNanos(10), 1);
+        ReflectionTestUtils.setField(service, "admissionControl", gate);
+        parallelAbove(1);
+        when(executorService.submit(1, 1_000_000, eratos)).thenReturn(CompletableFuture.completedFuture(PrimeSequence.of(2)));
+        var busy = gate.admit(new AdmissionControl.RequestCost(1_000_000_000L, 0)).join();
+
+        var response = service.generatePrimesAsync(1_000_000, AlgorithmType.ERATOS, false);
+
+        assertFalse(response.isDone());
+        verifyNoInteractions(executorService);
+        busy.close();
+        assertEquals(1, response.join().getNumberOfPrimes());
+        assertEquals(0, gate.inFlight());
+    }
+
+    @Test
+    @DisplayName("sequential plans run as scheduler tasks, so the async methods return before they finish")
+    void generatePrimesAsync_sequential_returnsBeforeTheComputationFinishes() {
+        var release = new CountDownLatch(1);
+        var caller = Thread.currentThread();
+        var eratosSieve = new EratosthenesSieve();
+        when(eratos.determinePrimes(anyInt())).thenAnswer(inv -> {
+            int limit = inv.getArgument(0, Integer.class);
+            // base primes of a range are the only part computed by the caller
+            if (limit > 2_000) awaitOffCaller(release, caller);
+            return eratosSieve.determinePrimes(limit);
+        });
+        when(eratos.determinePrimes(anyInt(), anyInt(), any(PrimeSequence.class))).thenAnswer(inv -> {
+            awaitOffCaller(release, caller);
+            return eratosSieve.determinePrimes(inv.getArgument(0), inv.getArgument(1), inv.getArgument(2));
+        });
+
+        var list = service.generatePrimesAsync(10_000, AlgorithmType.ERATOS, false);
+        var extension = service.generatePrimesAsync(2_000_000, AlgorithmType.ERATOS, false);
+        var range = service.generatePrimesInRangeAsync(9_000, 10_000, AlgorithmType.ERATOS, false);
+
+        assertFalse(list.isDone() || extension.isDone() || range.isDone());
+        release.countDown();
+        assertEquals(1_229, list.join().getNumberOfPrimes());
+        assertEquals(148_933, extension.join().getNumberOfPrimes());
+        assertEquals(112, range.join().getNumberOfPrimes());
+    }
+
+    private static void awaitOffCaller(CountDownLatch release, Thread caller) throws InterruptedException {
+        assertNotSame(caller, Thread.currentThread(), "sequential sieve ran on the calling thread");
+        assertTrue(release.await(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("a failed asynchronous computation releases its admission and surfaces its own exception")
+    void generatePrimes_failedComputation_rethrownUnwrapped() {
+        var gate = new AdmissionControl(Long.MAX_VALUE, Long.MAX_VALUE, 0, 0, 1);
+        ReflectionTestUtils.setField(service, "admissionControl", gate);
+        parallelAbove(1);
+        when(executorService.submit(1, 1_000, eratos))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("leaf failed")));
+
+        assertThrows(IllegalStateException.class, () -> service.generatePrimes(1_000, AlgorithmType.ERATOS));
+        assertEquals(0, gate.inFlight());
+    }
+
+    @Test
+    @DisplayName("generatePrimes with AUTO runs the generator the cost model expects to be fastest")
+    void generatePrimes_auto_resolvesThroughCostModel() {
+        when(wheel.determinePrimes(1_000)).thenReturn(PrimeSequence.of(2, 3, 5, 7));
+
+        PrimeNumberResponse resp = service.generatePrimes(1_000, AlgorithmType.AUTO);
+
+        // with uncalibrated rates the wheel sieve is cheapest per number, and 1,000 is too small to split
+        assertEquals(AlgorithmType.WHEEL.name(), resp.getAlgorithmUsed());
+        verify(wheel, times(1)).determinePrimes(1_000);
+        verifyNoInteractions(executorService);
+    }
+
+    @Test
+    @DisplayName("generatePrimesInRange is rejected without computing when the admission budget is exhausted")
+    void generatePrimesInRange_overBudget_rejected() {
+        var gate = new AdmissionControl(1L << 20, 1_000_000_000L, 0, 0, 1);
+        ReflectionTestUtils.setField(service, "admissionControl", gate);
+
+        try (var busy = gate.admit(new AdmissionControl.RequestCost(1_000_000_000L, 1L << 20)).join()) {
+            assertThrows(TooManyRequestsException.class,
+                    () -> service.generatePrimesInRange(2, 10_000_000, AlgorithmType.ERATOS));
+        }
+        verify(eratos, never()).determinePrimes(anyInt(), anyInt(), any());
+        verifyNoInteractions(executorService);
+    }
+
+    @Test
+    @DisplayName("streamPrimesAsync holds its admission until the stream has been written")
+    void streamPrimesAsync_holdsAdmissionWhileWriting() {
+        var gate = new AdmissionControl(Long.MAX_VALUE, Long.MAX_VALUE, 0, 0, 1);
+        ReflectionTestUtils.setField(service, "admissionControl", gate);
+        when(eratos.determinePrimes(1_000_000)).thenReturn(PrimeSequence.of(2, 3, 5));
+        List<Integer> inFlightWhileWriting = new ArrayList<>();
+
+        var stream = service.streamPrimesAsync(1_000_000, AlgorithmType.ERATOS).join();
+        assertEquals(1, gate.inFlight());
+        stream.writeTo(chunk -> inFlightWhileWriting.add(gate.inFlight()));
+
+        assertEquals(List.of(1), inFlightWhileWriting);
+        assertEquals(0, gate.inFlight());
+    }
+
+    @Test
+    @DisplayName("streamPrimesInRangeAsync is rejected before anything is streamed when the budget is exhausted")
+    void streamPrimesInRangeAsync_overBudget_rejected() {
+        var gate = new AdmissionControl(1L << 20, 1_000_000_000L, 0, 0, 1);
+        ReflectionTestUtils.setField(service, "admissionControl", gate);
+        when(executorService.streamWindowWidth()).thenReturn(1L << 24);
+
+        try (var busy = gate.admit(new AdmissionControl.RequestCost(1_000_000_000L, 1L << 20)).join()) {
+            var stream = service.streamPrimesInRangeAsync(1L << 40, (1L << 40) + 100_000_000L);
+            var failure = assertThrows(CompletionException.class, stream::join);
+            assertInstanceOf(TooManyRequestsException.class, failure.getCause());
+        }
+        verify(executorService, never()).computeOrdered(anyLong(), anyLong(), any(), any());
+    }
+
+    @Test
+    @DisplayName("generatePrimes serves large limits from the shared store, sieving only what it lacks")
+    void generatePrimes_largeLimits_servedFromPrimeStore() {
+        var eratosSieve = new EratosthenesSieve();
+        when(eratos.determinePrimes(anyInt())).thenAnswer(inv -> eratosSieve.determinePrimes(inv.getArgument(0, Integer.class)));
+        when(eratos.determinePrimes(anyInt(), anyInt(), any(PrimeSequence.class)))
+                .thenAnswer(inv -> eratosSieve.determinePrimes(inv.getArgument(0), inv.getArgument(1), inv.getArgument(2)));
+
+        var first = service.generatePrimes(2_000_000, AlgorithmType.ERATOS);
+        var smaller = service.generatePrimes(1_500_000, AlgorithmType.WHEEL);
+        var larger = service.generatePrimes(2_000_100, AlgorithmType.ERATOS);
+
+        assertEquals(148_933, first.getNumberOfPrimes());
+        assertEquals(114_155, smaller.getNumberOfPrimes());
+        assertEquals(eratosSieve.determinePrimes(2_000_100), larger.getPrimes());
+        // a prefix of the table reports no algorithm; an extension reports the one that sieved it
+        assertEquals(AlgorithmType.ERATOS.name(), first.getAlgorithmUsed());
+        assertEquals("STORE", smaller.getAlgorithmUsed());
+        assertEquals(AlgorithmType.ERATOS.name(), larger.getAlgorithmUsed());
+        // the smaller limit was a prefix slice - the wheel sieve was never asked
+        verify(wheel, never()).determinePrimes(anyInt());
+        // the larger limit only sieved (2_000_000, 2_000_100]
+        verify(eratos, times(1)).determinePrimes(1, 2_000_000, eratosSieve.determinePrimes(1414));
+        verify(eratos, times(1)).determinePrimes(eq(2_000_000), eq(2_000_100), any(PrimeSequence.class));
+        verifyNoInteractions(executorService);
+    }
+
+    @Test
+    @DisplayName("AUTO within the table is served from it without consulting the cost model")
+    void generatePrimes_auto_tableHit_skipsPlanning() {
+        var eratosSieve = new EratosthenesSieve();
+        when(eratos.determinePrimes(anyInt())).thenAnswer(inv -> eratosSieve.determinePrimes(inv.getArgument(0, Integer.class)));
+        when(eratos.determinePrimes(anyInt(), anyInt(), any(PrimeSequence.class)))
+                .thenAnswer(inv -> eratosSieve.determinePrimes(inv.getArgument(0), inv.getArgument(1), inv.getArgument(2)));
+        service.generatePrimes(2_000_000, AlgorithmType.ERATOS);
+        var costModel = spy((CostModel) ReflectionTestUtils.getField(service, "costModel"));
+        ReflectionTestUtils.setField(service, "costModel", costModel);
+
+        var response = service.generatePrimes(1_500_000, AlgorithmType.AUTO);
+
+        assertEquals("STORE", response.getAlgorithmUsed());
+        assertEquals(114_155, response.getNumberOfPrimes());
+        verify(costModel, never()).choose(anyLong(), anyLong());
+        verify(naive, never()).determinePrimes(anyInt());
+        verify(wheel, never()).determinePrimes(anyInt());
+        verifyNoInteractions(executorService);
+    }
+
+    @Test
+    @DisplayName("limits above the configured table size are computed directly and never retained")
+    void generatePrimes_aboveConfiguredStoreLimit_notRetained() {
+        ReflectionTestUtils.setField(service, "primeStore", new PrimeStore(null, 1_500_000));
+        when(eratos.determinePrimes(2_000_000)).thenReturn(PrimeSequence.of(2, 3, 5));
+
+        var response = service.generatePrimes(2_000_000, AlgorithmType.ERATOS);
+
+        assertEquals(AlgorithmType.ERATOS.name(), response.getAlgorithmUsed());
+        verify(eratos, times(1)).determinePrimes(2_000_000);
+    }
+
+    @Test
+    @DisplayName("diagnostics report a sieved request as one segment and a prime table hit as a cache hit")
+    void generatePrimes_diagnostics_cacheHitAndSegments() {
+        var eratosSieve = new EratosthenesSieve();
+        when(eratos.determinePrimes(anyInt())).thenAnswer(inv -> eratosSieve.determinePrimes(inv.getArgument(0, Integer.class)));
+        when(eratos.determinePrimes(anyInt(), anyInt(), any(PrimeSequence.class)))
+                .thenAnswer(inv -> eratosSieve.determinePrimes(inv.getArgument(0), inv.getArgument(1), inv.getArgument(2)));
+
+        var plain = service.generatePrimes(1_000, AlgorithmType.ERATOS);
+        var sieved = service.generatePrimes(1_000, AlgorithmType.ERATOS, true).getDiagnostics();
+        var extended = service.generatePrimes(2_000_000, AlgorithmType.ERATOS, true).getDiagnostics();
+        var hit = service.generatePrimes(1_500_000, AlgorithmType.ERATOS, true).getDiagnostics();
+
+        assertNull(plain.getDiagnostics());
+        assertFalse(sieved.getCacheHit());
+        assertEquals(1, sieved.getSegments().size());
+        assertEquals(1_000, sieved.getSegments().get(0).getNumbers());
+        assertFalse(extended.getCacheHit());
+        assertTrue(extended.getBasePrimesNanos() > 0);
+        assertEquals(1_999_999, extended.getSegments().get(0).getNumbers());
+        assertTrue(hit.getCacheHit());
+        assertEquals(List.of(), hit.getSegments());
+        assertTrue(hit.getComputeNanos() > 0 && hit.getResponseBuildNanos() > 0);
+    }
+
+    @Test
+    @DisplayName("streamPrimesInRangeAsync always streams long ranges through the executor")
+    void streamPrimesInRange_throughExecutor() {
+        long from = 1L << 40;
+        long to = from + 1_000;
+        Consumer<long[]> sink = chunk -> { };
+
+        service.streamPrimesInRangeAsync(from, to).join().writeTo(sink);
+
+        verify(executorService, times(1)).computeOrdered(from - 1, to, longSegmentedSieve, sink);
+    }
+
+    @DisplayName("streamPrimesInRangeAsync rejects inverted, oversized or out-of-bound ranges")
+    @ParameterizedTest(name = "[{0}, {1}]")
+    @CsvSource({"20, 10", "2, 10000000002", "999999999999990, 1000000000000001"})
+    void streamPrimesInRange_invalidRange(long from, long to) {
+        assertThrows(IllegalArgumentException.class, () -> service.streamPrimesInRangeAsync(from, to));
+        verifyNoInteractions(executorService);
     }
 
     static Stream<Arguments> cases() {
         return Stream.of(
                 // ATKIN
                 org.junit.jupiter.params.provider.Arguments.of(
-                        AlgorithmType.ATKIN, 10, List.of(2,3,5,7)),
+                        AlgorithmType.ATKIN, 10, PrimeSequence.of(2,3,5,7)),
                 // ERATOS
                 org.junit.jupiter.params.provider.Arguments.of(
-                        AlgorithmType.ERATOS, 20, List.of(2,3,5,7,11,13,17,19)),
+                        AlgorithmType.ERATOS, 20, PrimeSequence.of(2,3,5,7,11,13,17,19)),
                 // NAIVE
                 org.junit.jupiter.params.provider.Arguments.of(
-                        AlgorithmType.NAIVE, 30, List.of(2,3,5,7,11,13,17,19,23,29))
+                        AlgorithmType.NAIVE, 30, PrimeSequence.of(2,3,5,7,11,13,17,19,23,29)),
+                // SEGMENTED
+                org.junit.jupiter.params.provider.Arguments.of(
+                        AlgorithmType.SEGMENTED, 40, PrimeSequence.of(2,3,5,7,11,13,17,19,23,29,31,37)),
+                // WHEEL
+                org.junit.jupiter.params.provider.Arguments.of(
+                        AlgorithmType.WHEEL, 50, PrimeSequence.of(2,3,5,7,11,13,17,19,23,29,31,37,41,43,47))
         );
     }
 
     /* --- helpers --- */
+    private List<PrimesGenerator> allMocks() {
+        return List.of(atkins, eratos, naive, segmented, wheel);
+    }
+
     private PrimesGenerator getChosenMock(AlgorithmType algo) {
-        return switch (algo) {
-            case ATKIN -> atkins;
-            case ERATOS  -> eratos;
-            case NAIVE  -> naive;
-        };
+        return allMocks().stream()
+                .filter(generator -> generator.getType() == algo)
+                .findFirst()
+                .orElseThrow();
     }
 
     private void verifyCalledOnce(AlgorithmType algo, int limit) {
-        switch (algo) {
-            case ATKIN -> {
-                verify(atkins, times(1)).determinePrimes(limit);
-                verify(eratos, never()).determinePrimes(anyInt());
-                verify(naive, never()).determinePrimes(anyInt());
-            }
-            case ERATOS -> {
-                verify(eratos, times(1)).determinePrimes(limit);
-                verify(atkins, never()).determinePrimes(anyInt());
-                verify(naive, never()).determinePrimes(anyInt());
-            }
-            case NAIVE -> {
-                verify(naive, times(1)).determinePrimes(limit);
-                verify(atkins, never()).determinePrimes(anyInt());
-                verify(eratos, never()).determinePrimes(anyInt());
-            }
-        }
+        var chosen = getChosenMock(algo);
+        verify(chosen, times(1)).determinePrimes(limit);
+        allMocks().stream()
+                .filter(generator -> generator != chosen)
+                .forEach(generator -> verify(generator, never()).determinePrimes(anyInt()));
     }
 
     private void verifyNoMoreInteractionsExceptChosen(AlgorithmType algo) {
-        switch (algo) {
-            case ATKIN -> verifyNoMoreInteractions(eratos, naive);
-            case ERATOS  -> verifyNoMoreInteractions(atkins, naive);
-            case NAIVE  -> verifyNoMoreInteractions(atkins, eratos);
-        }
+        var chosen = getChosenMock(algo);
+        allMocks().stream()
+                .filter(generator -> generator != chosen)
+                .forEach(generator -> verifyNoMoreInteractions(generator));
     }
 }
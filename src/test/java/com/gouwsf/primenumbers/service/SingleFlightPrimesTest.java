@@ -0,0 +1,156 @@
+package com.gouwsf.primenumbers.service;
+
+import com.gouwsf.primenumbers.algorithms.PrimeSequence;
+import com.gouwsf.primenumbers.algorithms.impl.SegmentedSieve;
+import com.gouwsf.primenumbers.service.impl.SingleFlightPrimes;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+import static com.gouwsf.primenumbers.model.AlgorithmType.ERATOS;
+import static com.gouwsf.primenumbers.model.AlgorithmType.NAIVE;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightPrimesTest {
+
+    private final ExecutorService pool = Executors.newFixedThreadPool(8);
+    private final SegmentedSieve sieve = new SegmentedSieve();
+    private final SingleFlightPrimes singleFlight = new SingleFlightPrimes();
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void identicalConcurrentRequests_shareOneComputation() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger computations = new AtomicInteger();
+        IntFunction<PrimeSequence> compute = limit -> {
+            computations.incrementAndGet();
+            await(release);
+            return sieve.determinePrimes(limit);
+        };
+
+        var leader = CompletableFuture.supplyAsync(() -> singleFlight.primesUpTo(ERATOS, 1_000_000, compute), pool);
+        awaitComputationStarted(computations);
+        var followers = new CompletableFuture[7];
+        for (int i = 0; i < followers.length; i++) {
+            followers[i] = CompletableFuture.supplyAsync(() -> singleFlight.primesUpTo(ERATOS, 1_000_000, compute), pool);
+        }
+        release.countDown();
+
+        assertEquals(78_498, leader.get(10, TimeUnit.SECONDS).size());
+        for (var follower : followers) {
+            assertSame(leader.get(), follower.get(10, TimeUnit.SECONDS));
+        }
+        assertEquals(1, computations.get());
+    }
+
+    @Test
+    void asyncRequests_joinTheComputationInFlight_withoutBlocking() {
+        AtomicInteger computations = new AtomicInteger();
+        var computing = new CompletableFuture<PrimeSequence>();
+        IntFunction<CompletableFuture<PrimeSequence>> compute = limit -> {
+            computations.incrementAndGet();
+            return computing;
+        };
+
+        var leader = singleFlight.primesUpToAsync(ERATOS, 1_000_000, compute);
+        var follower = singleFlight.primesUpToAsync(ERATOS, 1_000_000, compute);
+        var smaller = singleFlight.primesUpToAsync(ERATOS, 100_000, compute);
+
+        assertFalse(leader.isDone() || follower.isDone() || smaller.isDone());
+        computing.complete(sieve.determinePrimes(1_000_000));
+        assertSame(leader.join(), follower.join());
+        assertEquals(9_592, smaller.join().size());
+        assertEquals(1, computations.get());
+    }
+
+    @Test
+    void differentAlgorithms_neverShare() {
+        AtomicInteger computations = new AtomicInteger();
+        var slow = new CompletableFuture<PrimeSequence>();
+        IntFunction<CompletableFuture<PrimeSequence>> compute = limit -> {
+            computations.incrementAndGet();
+            return computations.get() == 1 ? slow : CompletableFuture.completedFuture(sieve.determinePrimes(limit));
+        };
+
+        var naive = singleFlight.primesUpToAsync(NAIVE, 1_000_000, compute);
+        var eratos = singleFlight.primesUpToAsync(ERATOS, 100_000, compute);
+
+        // the ERATOS request ran its own computation instead of waiting for the NAIVE one
+        assertEquals(2, computations.get());
+        assertEquals(9_592, eratos.join().size());
+        assertFalse(naive.isDone());
+        slow.complete(sieve.determinePrimes(1_000_000));
+        assertEquals(78_498, naive.join().size());
+    }
+
+    @Test
+    void smallerLimit_slicesFromLargerComputationInFlight() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger computations = new AtomicInteger();
+        IntFunction<PrimeSequence> compute = limit -> {
+            computations.incrementAndGet();
+            await(release);
+            return sieve.determinePrimes(limit);
+        };
+
+        var large = CompletableFuture.supplyAsync(() -> singleFlight.primesUpTo(ERATOS, 1_000_000, compute), pool);
+        awaitComputationStarted(computations);
+        var small = CompletableFuture.supplyAsync(() -> singleFlight.primesUpTo(ERATOS, 1_000, compute), pool);
+        release.countDown();
+
+        assertEquals(sieve.determinePrimes(1_000), small.get(10, TimeUnit.SECONDS));
+        assertEquals(78_498, large.get(10, TimeUnit.SECONDS).size());
+        assertEquals(1, computations.get());
+    }
+
+    @Test
+    void failure_isSeenByWaiters_andNotRemembered() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger computations = new AtomicInteger();
+        IntFunction<PrimeSequence> failing = limit -> {
+            computations.incrementAndGet();
+            await(release);
+            throw new IllegalStateException("boom");
+        };
+
+        var leader = CompletableFuture.supplyAsync(() -> singleFlight.primesUpTo(ERATOS, 500, failing), pool);
+        awaitComputationStarted(computations);
+        var follower = CompletableFuture.supplyAsync(() -> singleFlight.primesUpTo(ERATOS, 500, failing), pool);
+        release.countDown();
+
+        var leaderFailure = assertThrows(Exception.class, () -> leader.get(10, TimeUnit.SECONDS));
+        var followerFailure = assertThrows(Exception.class, () -> follower.get(10, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, leaderFailure.getCause());
+        assertInstanceOf(IllegalStateException.class, followerFailure.getCause());
+
+        // the failed computation is gone - the next request computes afresh
+        assertEquals(sieve.determinePrimes(500), singleFlight.primesUpTo(ERATOS, 500, sieve::determinePrimes));
+    }
+
+    private static void awaitComputationStarted(AtomicInteger computations) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (computations.get() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(1, computations.get());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
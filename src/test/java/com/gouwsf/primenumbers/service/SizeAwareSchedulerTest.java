@@ -0,0 +1,155 @@
+package com.gouwsf.primenumbers.service;
+
+import com.gouwsf.primenumbers.service.impl.SizeAwareScheduler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SizeAwareSchedulerTest {
+
+    private static final long BIG_TASK = 1_000_000_000L;
+
+    // a single worker makes the dispatch order observable
+    private final ForkJoinPool pool = new ForkJoinPool(1);
+    private final List<String> order = Collections.synchronizedList(new ArrayList<>());
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void smallJob_overtakesQueuedLeavesOfLargeJob() throws Exception {
+        var scheduler = new SizeAwareScheduler(pool, 1_000_000, new SimpleMeterRegistry());
+        var release = new CountDownLatch(1);
+
+        try (var big = scheduler.open(4 * BIG_TASK); var small = scheduler.open(1_000)) {
+            var bigTasks = submitBig(big, release);
+            var smallTask = small.submit(1_000, () -> order.add("small"));
+
+            release.countDown();
+            CompletableFuture.allOf(bigTasks.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+            smallTask.get(5, TimeUnit.SECONDS);
+        }
+
+        // the first big leaf was already running; the small job goes before the rest
+        assertEquals(List.of("big-0", "small", "big-1", "big-2", "big-3"), order);
+    }
+
+    @Test
+    void largeJob_isNotOvertakenOnceAged() throws Exception {
+        // credit so fast that any wait outweighs any amount of work - plain arrival order
+        var scheduler = new SizeAwareScheduler(pool, Long.MAX_VALUE, new SimpleMeterRegistry());
+        var release = new CountDownLatch(1);
+
+        try (var big = scheduler.open(4 * BIG_TASK)) {
+            var bigTasks = submitBig(big, release);
+            Thread.sleep(5);
+            try (var small = scheduler.open(1_000)) {
+                var smallTask = small.submit(1_000, () -> order.add("small"));
+
+                release.countDown();
+                CompletableFuture.allOf(bigTasks.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+                smallTask.get(5, TimeUnit.SECONDS);
+            }
+        }
+
+        assertEquals(List.of("big-0", "big-1", "big-2", "big-3", "small"), order);
+    }
+
+    @Test
+    void recordQueueWait_reportsTimeUntilFirstTaskStarted() throws Exception {
+        var scheduler = new SizeAwareScheduler(pool, 1_000_000, new SimpleMeterRegistry());
+        var release = new CountDownLatch(1);
+        var blocker = scheduler.open(BIG_TASK);
+        var blocking = blocker.submit(BIG_TASK, () -> await(release));
+
+        long[] waited = new long[1];
+        var opened = new CountDownLatch(1);
+        var result = CompletableFuture.supplyAsync(() -> SizeAwareScheduler.recordQueueWait(waited, () -> {
+            try (var job = scheduler.open(1_000)) {
+                opened.countDown();
+                return job.submit(1_000, () -> "done").join();
+            }
+        }));
+
+        assertTrue(opened.await(5, TimeUnit.SECONDS));
+        Thread.sleep(50);
+        release.countDown();
+
+        assertEquals("done", result.get(5, TimeUnit.SECONDS));
+        assertTrue(waited[0] >= TimeUnit.MILLISECONDS.toNanos(40), "waited " + waited[0] + " ns");
+        blocking.get(5, TimeUnit.SECONDS);
+        blocker.close();
+    }
+
+    @Test
+    void close_cancelsTasksThatHaveNotStarted() throws Exception {
+        var scheduler = new SizeAwareScheduler(pool, 1_000_000, new SimpleMeterRegistry());
+        var release = new CountDownLatch(1);
+        List<CompletableFuture<Boolean>> tasks;
+
+        try (var big = scheduler.open(4 * BIG_TASK)) {
+            tasks = submitBig(big, release);
+        }
+        release.countDown();
+
+        assertTrue(tasks.get(0).get(5, TimeUnit.SECONDS));
+        for (int i = 1; i < tasks.size(); i++) {
+            var queued = tasks.get(i);
+            assertThrows(CancellationException.class, queued::join);
+        }
+        assertEquals(List.of("big-0"), order);
+    }
+
+    @Test
+    void metrics_reportQueuedRunningAndTaskTimes() throws Exception {
+        var registry = new SimpleMeterRegistry();
+        var scheduler = new SizeAwareScheduler(pool, 1_000_000, registry);
+        var release = new CountDownLatch(1);
+
+        try (var big = scheduler.open(4 * BIG_TASK)) {
+            var bigTasks = submitBig(big, release);
+            Thread.sleep(20);
+            assertEquals(3, registry.get("primes.scheduler.tasks").tag("state", "queued").gauge().value());
+            assertEquals(1, registry.get("primes.scheduler.tasks").tag("state", "running").gauge().value());
+
+            release.countDown();
+            CompletableFuture.allOf(bigTasks.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+        }
+
+        assertEquals(0, scheduler.queuedTasks());
+        assertEquals(4, registry.get("primes.scheduler.task").timer().count());
+    }
+
+    /** Four big leaves; the first one blocks the only worker until {@code release} opens. */
+    private List<CompletableFuture<Boolean>> submitBig(SizeAwareScheduler.Job big, CountDownLatch release) {
+        List<CompletableFuture<Boolean>> tasks = new ArrayList<>();
+        tasks.add(big.submit(BIG_TASK, () -> await(release) && order.add("big-0")));
+        for (int i = 1; i < 4; i++) {
+            String name = "big-" + i;
+            tasks.add(big.submit(BIG_TASK, () -> order.add(name)));
+        }
+        return tasks;
+    }
+
+    private static boolean await(CountDownLatch latch) {
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}